@@ -0,0 +1,217 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.http;
+
+import com.innerfunction.q.Q;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A batch of HTTP requests.
+ * The requests in a batch are submitted together and sent concurrently on the client's batch
+ * thread pool, subject to a limit on the number of requests sent to any one host at the same
+ * time. The batch's result promise resolves once every request has completed, to a list of
+ * responses in the same order as the requests. The failure of an individual request doesn't
+ * fail the batch; instead, the failed request's response is null and its error is available
+ * through the getError() method.
+ *
+ * A batch can be cancelled, e.g. when the view which requested it is destroyed. Cancelling
+ * a batch aborts any outstanding requests and rejects the result promise.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class BatchRequest {
+
+    /** The client used to send the requests. */
+    private Client client;
+    /** The requests in the batch. */
+    private List<Request> requests;
+    /** The maximum number of requests sent concurrently to a single host. */
+    private int maxPerHost;
+    /** The request responses. */
+    private Response[] responses;
+    /** The request errors. */
+    private Exception[] errors;
+    /** Queues of indexes of requests waiting to be sent, keyed by host. */
+    private Map<String,LinkedList<Integer>> pending = new HashMap<>();
+    /** The number of requests currently being sent, keyed by host. */
+    private Map<String,Integer> active = new HashMap<>();
+    /** The number of requests which haven't yet completed. */
+    private int remaining;
+    /** A flag indicating whether the batch has been cancelled. */
+    private boolean cancelled;
+    /** A promise resolving to the batch result. */
+    private Q.Promise<List<Response>> result = new Q.Promise<>();
+
+    BatchRequest(Client client, List<Request> requests, int maxPerHost) {
+        this.client = client;
+        this.requests = new ArrayList<>( requests );
+        this.maxPerHost = Math.max( 1, maxPerHost );
+        this.responses = new Response[requests.size()];
+        this.errors = new Exception[requests.size()];
+        this.remaining = requests.size();
+    }
+
+    /** Start sending the batch's requests. */
+    void start() {
+        synchronized( this ) {
+            // Group requests by host.
+            for( int i = 0; i < requests.size(); i++ ) {
+                String host = requests.get( i ).getURL().getHost();
+                LinkedList<Integer> queue = pending.get( host );
+                if( queue == null ) {
+                    queue = new LinkedList<>();
+                    pending.put( host, queue );
+                    active.put( host, 0 );
+                }
+                queue.add( i );
+            }
+            // Dispatch the first requests for each host.
+            for( String host : pending.keySet() ) {
+                for( int i = 0; i < maxPerHost; i++ ) {
+                    dispatchNext( host );
+                }
+            }
+        }
+        if( requests.isEmpty() ) {
+            result.resolve( getResponses() );
+        }
+    }
+
+    /** Get a promise resolving to the list of batch responses. */
+    public Q.Promise<List<Response>> getResult() {
+        return result;
+    }
+
+    /** Get the requests in the batch. */
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Get the error for a request in the batch.
+     * @param idx   The index of the request in the batch.
+     * @return The error which caused the request to fail, or null if it hasn't failed.
+     */
+    public synchronized Exception getError(int idx) {
+        return errors[idx];
+    }
+
+    /** Test whether all requests in the batch have completed. */
+    public synchronized boolean isComplete() {
+        return remaining == 0;
+    }
+
+    /** Test whether the batch has been cancelled. */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancel the batch.
+     * Requests waiting to be sent are discarded, requests in progress are cancelled, and the
+     * result promise is rejected.
+     */
+    public void cancel() {
+        synchronized( this ) {
+            if( cancelled || remaining == 0 ) {
+                return;
+            }
+            cancelled = true;
+            pending.clear();
+        }
+        for( Request request : requests ) {
+            request.cancel();
+        }
+        result.reject("Batch cancelled");
+    }
+
+    /** Send the next request waiting for the specified host, if the host's limit allows. */
+    private synchronized void dispatchNext(final String host) {
+        LinkedList<Integer> queue = pending.get( host );
+        if( cancelled || queue == null || queue.isEmpty() || active.get( host ) >= maxPerHost ) {
+            return;
+        }
+        final int idx = queue.removeFirst();
+        active.put( host, active.get( host ) + 1 );
+        final Request request = requests.get( idx );
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if( isCancelled() ) {
+                    return;
+                }
+                Q.Promise<Response> promise = new Q.Promise<>();
+                promise
+                    .then(new Q.Promise.Callback<Response, Void>() {
+                        @Override
+                        public Void result(Response response) {
+                            completed( idx, host, response, null );
+                            return null;
+                        }
+                    })
+                    .error(new Q.Promise.ErrorCallback() {
+                        @Override
+                        public void error(Exception e) {
+                            completed( idx, host, null, e );
+                        }
+                    });
+                client.sendOnCurrentThread( request, promise );
+            }
+        };
+        try {
+            Client.BatchExecutor.execute( task );
+        }
+        catch(RejectedExecutionException e) {
+            // Record the failure after the lock is released.
+            final Exception error = e;
+            Client.RequestQueue.dispatch(new Runnable() {
+                @Override
+                public void run() {
+                    completed( idx, host, null, error );
+                }
+            });
+        }
+    }
+
+    /** Record the completion of a request in the batch. */
+    private void completed(int idx, String host, Response response, Exception error) {
+        boolean done;
+        synchronized( this ) {
+            if( cancelled ) {
+                return;
+            }
+            responses[idx] = response;
+            errors[idx] = error;
+            active.put( host, active.get( host ) - 1 );
+            remaining--;
+            done = remaining == 0;
+            dispatchNext( host );
+        }
+        if( done ) {
+            result.resolve( getResponses() );
+        }
+    }
+
+    /** Get the list of responses. */
+    private synchronized List<Response> getResponses() {
+        return Arrays.asList( Arrays.copyOf( responses, responses.length ) );
+    }
+}
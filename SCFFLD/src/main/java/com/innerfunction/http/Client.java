@@ -20,6 +20,7 @@ import android.net.Uri;
 
 import com.innerfunction.q.Q;
 import com.innerfunction.util.RunQueue;
+import com.innerfunction.util.Tracer;
 
 import static com.innerfunction.util.DataLiterals.*;
 
@@ -29,7 +30,11 @@ import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.MalformedURLException;
 import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * An HTTP client.
@@ -45,7 +50,8 @@ public class Client {
     static final String Tag = "HTTPClient";
 
     // Setup cookie management.
-    static final CookieManager CookieManager = new CookieManager();
+    static final CookieJar CookieJar = new CookieJar();
+    static final CookieManager CookieManager = new CookieManager( CookieJar, null );
     static {
         CookieHandler.setDefault( CookieManager );
     }
@@ -248,6 +254,21 @@ public class Client {
     /** The background queue used to asynchronously submit HTTP requests. */
     static final RunQueue RequestQueue = new RunQueue( Tag );
 
+    /** The default maximum number of batch requests sent concurrently to a single host. */
+    static final int DefaultBatchMaxPerHost = 4;
+    /** The number of threads used to send batch requests. */
+    static final int BatchThreadCount = 8;
+    /** The thread pool used to send batch requests. */
+    static final ExecutorService BatchExecutor = Executors.newFixedThreadPool( BatchThreadCount, new ThreadFactory() {
+        private int count = 0;
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread( runnable, String.format("%s:batch-%d", Tag, count++ ) );
+            thread.setDaemon( true );
+            return thread;
+        }
+    });
+
     /**
      * Send an HTTP request.
      */
@@ -257,44 +278,7 @@ public class Client {
         Runnable task = new Runnable() {
             @Override
             public void run() {
-                try {
-                    // First check for network connectivity.
-                    NetworkInfo netInfo = connectivityManager.getActiveNetworkInfo();
-                    if( netInfo == null || !netInfo.isConnected() ) {
-                        // TODO Add client configuration options to control which networks can be used.
-                        throw new IOException("Network not available");
-                    }
-                    // Connectivity OK, prepare the request before sending.
-                    prepareRequest( request );
-                    // Next, try submitting the request. (Note that this method call blocks until
-                    // the request completes, but that's ok because we are on a background thread).
-                    Response response = request.connect( Client.this );
-                    // Check for authentication challenges.
-                    if( isAuthenticationChallenge( request, response ) ) {
-                        // Try to authenticate and then resubmit the original request.
-                        authenticate( request, response )
-                            .then(new Q.Promise.Callback<Request, Void>() {
-                                @Override
-                                public Void result(Request request) {
-                                    // Retry the original request.
-                                    promise.resolve( send( request ) );
-                                    return null;
-                                }
-                            })
-                            .error(new Q.Promise.ErrorCallback() {
-                                @Override
-                                public void error(Exception e) {
-                                    promise.reject( e );
-                                }
-                            });
-                    }
-                    else {
-                        promise.resolve( response );
-                    }
-                }
-                catch(IOException e) {
-                    promise.reject( e );
-                }
+                sendOnCurrentThread( request, promise );
             }
         };
         // Place the request on the request queue.
@@ -304,6 +288,101 @@ public class Client {
         return promise;
     }
 
+    /**
+     * Send an HTTP request and wait for its response.
+     * The request is sent on the current thread, rather than on the shared request queue, so it
+     * doesn't wait behind other queued requests. This method blocks until the request completes,
+     * and so must only be called on a background thread.
+     * @param request   The request to send.
+     * @return The request's response.
+     * @throws Exception If the request fails.
+     */
+    public Response sendSync(Request request) throws Exception {
+        Q.Promise<Response> promise = new Q.Promise<>();
+        sendOnCurrentThread( request, promise );
+        return promise.sync();
+    }
+
+    /**
+     * Send an HTTP request on the current thread.
+     * This method blocks until the request completes, and so must only be called on a
+     * background thread.
+     * @param request   The request to send.
+     * @param promise   A promise which is resolved with the request's response.
+     */
+    void sendOnCurrentThread(Request request, final Q.Promise<Response> promise) {
+        Tracer.begin("Client.send");
+        try {
+            if( request.isCancelled() ) {
+                throw new RequestCancelledException( request );
+            }
+            // First check for network connectivity.
+            NetworkInfo netInfo = connectivityManager.getActiveNetworkInfo();
+            if( netInfo == null || !netInfo.isConnected() ) {
+                // TODO Add client configuration options to control which networks can be used.
+                throw new IOException("Network not available");
+            }
+            // Connectivity OK, prepare the request before sending.
+            prepareRequest( request );
+            // Next, try submitting the request. (Note that this method call blocks until
+            // the request completes, but that's ok because we are on a background thread).
+            Response response = request.connect( Client.this );
+            // Check for authentication challenges.
+            if( isAuthenticationChallenge( request, response ) ) {
+                // Try to authenticate and then resubmit the original request.
+                authenticate( request, response )
+                    .then(new Q.Promise.Callback<Request, Void>() {
+                        @Override
+                        public Void result(Request request) {
+                            // Retry the original request.
+                            promise.resolve( send( request ) );
+                            return null;
+                        }
+                    })
+                    .error(new Q.Promise.ErrorCallback() {
+                        @Override
+                        public void error(Exception e) {
+                            promise.reject( e );
+                        }
+                    });
+            }
+            else {
+                promise.resolve( response );
+            }
+        }
+        catch(IOException e) {
+            promise.reject( e );
+        }
+        finally {
+            Tracer.end("Client.send");
+        }
+    }
+
+    /**
+     * Send a batch of HTTP requests.
+     * Requests in the batch are sent concurrently, with at most DefaultBatchMaxPerHost requests
+     * sent to the same host at any one time.
+     * @param requests  The requests to send.
+     * @return A batch object; the batch's result promise resolves to the list of responses, in
+     * the same order as the requests.
+     */
+    public BatchRequest batch(List<Request> requests) {
+        return batch( requests, DefaultBatchMaxPerHost );
+    }
+
+    /**
+     * Send a batch of HTTP requests.
+     * @param requests      The requests to send.
+     * @param maxPerHost    The maximum number of requests to send concurrently to a single host.
+     * @return A batch object; the batch's result promise resolves to the list of responses, in
+     * the same order as the requests.
+     */
+    public BatchRequest batch(List<Request> requests, int maxPerHost) {
+        BatchRequest batch = new BatchRequest( this, requests, maxPerHost );
+        batch.start();
+        return batch;
+    }
+
     /**
      * Append query parameters to the end of a URL.
      * @param url       A URL string; may already contain query parameters, in which case those
@@ -331,6 +410,19 @@ public class Client {
         return url;
     }
 
+    /** Get the cookie jar shared by all HTTP client instances. */
+    public static CookieJar getCookieJar() {
+        return CookieJar;
+    }
+
+    /**
+     * Persist cookies to a file, so that sessions survive app restarts.
+     * Loads any cookies previously saved to the file.
+     */
+    public static void setCookiePersistenceFile(File file) {
+        CookieJar.setPersistenceFile( file );
+    }
+
     /** Set the default, global authentication delegate. */
     public static final void setGlobalAuthenticationDelegate(AuthenticationDelegate delegate) {
         GlobalAuthenticationDelegate = delegate;
@@ -0,0 +1,163 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.http;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Management of the HTTP connection lifecycle.
+ * Android's HttpURLConnection keeps a pool of keep-alive sockets which are reused by later
+ * requests to the same host, but only if a connection's response stream is read to the end
+ * and closed; calling disconnect() on a connection can close the underlying socket and so
+ * defeat the pool. This class encapsulates the rules for releasing a connection correctly,
+ * provides configuration of the platform's pool size and idle timeout, and records metrics
+ * on how many connections were returned to the pool. The default pool settings are only applied
+ * where the app hasn't already set the corresponding system properties.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ConnectionPool {
+
+    static final String Tag = ConnectionPool.class.getSimpleName();
+
+    /** The default maximum number of idle connections kept per host. */
+    public static final int DefaultMaxIdleConnections = 5;
+    /** The default time, in milliseconds, that an idle connection is kept in the pool. */
+    public static final long DefaultKeepAliveDuration = 5 * 60 * 1000; // 5 mins
+    /** The buffer size used when draining unread response data. */
+    static final int DrainBufferSize = 1024;
+
+    /** The number of connections opened. */
+    private static final AtomicLong OpenedCount = new AtomicLong();
+    /** The number of connections released back to the pool. */
+    private static final AtomicLong ReleasedCount = new AtomicLong();
+    /** The number of connections which were disconnected and so not available for reuse. */
+    private static final AtomicLong DisconnectedCount = new AtomicLong();
+
+    static {
+        setPropertyIfAbsent("http.keepAlive", "true");
+        if( Boolean.parseBoolean( System.getProperty("http.keepAlive") ) ) {
+            setPropertyIfAbsent("http.maxConnections", Integer.toString( DefaultMaxIdleConnections ) );
+            setPropertyIfAbsent("http.keepAliveDuration", Long.toString( DefaultKeepAliveDuration ) );
+        }
+    }
+
+    /**
+     * Configure the platform connection pool.
+     * Note that HttpURLConnection reads these settings when its pool is first used, so this
+     * method should be called early in the app's lifecycle, before any requests are sent.
+     *
+     * @param maxIdleConnections    The maximum number of idle connections kept per host.
+     *                              Pass zero to disable keep-alive.
+     * @param keepAliveDuration     The time, in milliseconds, that an idle connection is kept.
+     */
+    public static void configure(int maxIdleConnections, long keepAliveDuration) {
+        boolean keepAlive = maxIdleConnections > 0;
+        System.setProperty("http.keepAlive", Boolean.toString( keepAlive ) );
+        if( keepAlive ) {
+            System.setProperty("http.maxConnections", Integer.toString( maxIdleConnections ) );
+            System.setProperty("http.keepAliveDuration", Long.toString( keepAliveDuration ) );
+        }
+    }
+
+    /** Record that a new connection is being opened. */
+    static void opened() {
+        OpenedCount.incrementAndGet();
+    }
+
+    /**
+     * Release a connection whose response has been read.
+     * Drains any unread data from the response stream and then closes it, which returns the
+     * underlying socket to the pool. If the stream can't be drained then the connection is
+     * disconnected instead.
+     *
+     * @param connection    The connection to release.
+     * @param in            The response stream opened on the connection; may be null.
+     */
+    static void release(HttpURLConnection connection, InputStream in) {
+        if( in == null ) {
+            // No response stream was opened, so the connection can't be returned to the pool.
+            disconnect( connection );
+            return;
+        }
+        try {
+            byte[] buffer = new byte[DrainBufferSize];
+            while( in.read( buffer ) > -1 ) {
+                // Discard any unread data.
+            }
+            in.close();
+            ReleasedCount.incrementAndGet();
+        }
+        catch(IOException e) {
+            Log.w( Tag, String.format("Releasing connection to %s", connection.getURL() ), e );
+            disconnect( connection );
+        }
+    }
+
+    /**
+     * Disconnect a connection.
+     * Should only be used when a request fails, as the underlying socket is then discarded.
+     */
+    static void disconnect(HttpURLConnection connection) {
+        connection.disconnect();
+        DisconnectedCount.incrementAndGet();
+    }
+
+    /** Get the number of connections opened. */
+    public static long getOpenedCount() {
+        return OpenedCount.get();
+    }
+
+    /** Get the number of connections released back to the pool. */
+    public static long getReleasedCount() {
+        return ReleasedCount.get();
+    }
+
+    /** Get the number of connections disconnected without being returned to the pool. */
+    public static long getDisconnectedCount() {
+        return DisconnectedCount.get();
+    }
+
+    /**
+     * Get the connection release rate.
+     * This is the proportion of opened connections which were returned to the pool and so were
+     * available for reuse by a later request. Note that this doesn't measure whether later
+     * requests actually reused the pooled connections.
+     *
+     * @return A value between 0 and 1.
+     */
+    public static float getReleaseRate() {
+        long opened = OpenedCount.get();
+        return opened > 0 ? (float)ReleasedCount.get() / opened : 0f;
+    }
+
+    /** Set a system property, unless it already has a value. */
+    private static void setPropertyIfAbsent(String name, String value) {
+        if( System.getProperty( name ) == null ) {
+            System.setProperty( name, value );
+        }
+    }
+
+    /** Reset all connection metrics. */
+    public static void resetMetrics() {
+        OpenedCount.set( 0 );
+        ReleasedCount.set( 0 );
+        DisconnectedCount.set( 0 );
+    }
+}
@@ -0,0 +1,427 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.http;
+
+import android.util.Log;
+
+import com.innerfunction.util.Files;
+
+import java.io.File;
+import java.net.CookieStore;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent cookie store.
+ * Cookies are held in a concurrent map, so request threads can add and read cookies without
+ * contending on a single lock. The Cookie request header for each host is computed once and
+ * then cached until the cookies applying to that host change or expire.
+ *
+ * The cookie jar can optionally be persisted to a file, so that sessions survive app restarts.
+ * Only persistent cookies (i.e. cookies with a max-age) are written to the file. The file format
+ * is one cookie per line, with tab separated fields.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class CookieJar implements CookieStore {
+
+    static final String Tag = CookieJar.class.getSimpleName();
+
+    /** An entry in the cookie jar. */
+    static class Entry {
+        /** The cookie. */
+        final HttpCookie cookie;
+        /** The domain the cookie applies to. */
+        final String domain;
+        /** Flag indicating whether the cookie only applies to its origin host. */
+        final boolean hostOnly;
+        /** The cookie's expiry time, or -1 for a session cookie. */
+        final long expiresAt;
+
+        Entry(HttpCookie cookie, String domain, boolean hostOnly, long expiresAt) {
+            this.cookie = cookie;
+            this.domain = domain;
+            this.hostOnly = hostOnly;
+            this.expiresAt = expiresAt;
+        }
+
+        /** Get the key used to identify the entry. */
+        String getKey() {
+            return makeKey( domain, cookie.getPath(), cookie.getName() );
+        }
+
+        /** Test whether the cookie has expired. */
+        boolean hasExpired(long now) {
+            return expiresAt > -1 && expiresAt <= now;
+        }
+
+        /** Test whether the cookie applies to the specified host. */
+        boolean matchesHost(String host) {
+            if( hostOnly ) {
+                return domain.equals( host );
+            }
+            return domain.equals( host ) || host.endsWith( "." + domain );
+        }
+
+        /** Test whether the cookie applies to the specified URI. */
+        boolean matches(String host, String path, boolean secure) {
+            if( !matchesHost( host ) ) {
+                return false;
+            }
+            if( cookie.getSecure() && !secure ) {
+                return false;
+            }
+            return pathMatches( cookie.getPath(), path );
+        }
+
+        /** Test whether the cookie applies to every path on its host. */
+        boolean isRootPath() {
+            return "/".equals( cookie.getPath() );
+        }
+    }
+
+    /** A cached Cookie request header. */
+    static class CachedHeader {
+        /** The header value. */
+        final String value;
+        /** The earliest expiry time of any cookie included in the header, or -1. */
+        final long expiresAt;
+
+        CachedHeader(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** The cookies in the jar, keyed by domain, path and name. */
+    private Map<String,Entry> entries = new ConcurrentHashMap<>();
+    /** Cookie request headers, keyed by scheme and host. */
+    private ConcurrentMap<String,CachedHeader> headerCache = new ConcurrentHashMap<>();
+    /** A file for persisting cookies; may be null. */
+    private File persistenceFile;
+    /** A flag indicating that persistent cookies have changed since the jar was last saved. */
+    private AtomicBoolean dirty = new AtomicBoolean( false );
+    /** A counter incremented whenever the jar's contents change. */
+    private AtomicLong version = new AtomicLong();
+    /** A lock serializing writes to the persistence file. */
+    private final Object saveLock = new Object();
+
+    public CookieJar() {}
+
+    /**
+     * Set the file used to persist cookies.
+     * Any cookies already stored in the file are loaded into the jar.
+     */
+    public void setPersistenceFile(File file) {
+        this.persistenceFile = file;
+        if( file != null && file.exists() ) {
+            load( file );
+        }
+    }
+
+    /**
+     * Get the value of the Cookie request header for the specified URI.
+     * @return The header value, or null if no cookies apply to the URI.
+     */
+    public String getCookieHeader(URI uri) {
+        String host = normalizeHost( uri.getHost() );
+        if( host == null ) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String cacheKey = uri.getScheme()+"://"+host;
+        CachedHeader cached = headerCache.get( cacheKey );
+        if( cached != null && (cached.expiresAt == -1 || cached.expiresAt > now) ) {
+            return cached.value;
+        }
+        // Build a new header value.
+        long startVersion = version.get();
+        boolean secure = "https".equalsIgnoreCase( uri.getScheme() );
+        String path = uri.getPath();
+        StringBuilder header = new StringBuilder();
+        long expiresAt = -1;
+        boolean cacheable = true;
+        for( Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if( entry.hasExpired( now ) ) {
+                it.remove();
+                continue;
+            }
+            if( !entry.matchesHost( host ) ) {
+                continue;
+            }
+            // Headers can only be cached per-host if they don't depend on the request path.
+            if( !entry.isRootPath() ) {
+                cacheable = false;
+            }
+            if( entry.matches( host, path, secure ) ) {
+                if( header.length() > 0 ) {
+                    header.append("; ");
+                }
+                header.append( entry.cookie.getName() ).append('=').append( entry.cookie.getValue() );
+                if( entry.expiresAt > -1 && (expiresAt == -1 || entry.expiresAt < expiresAt) ) {
+                    expiresAt = entry.expiresAt;
+                }
+            }
+        }
+        String value = header.length() > 0 ? header.toString() : null;
+        // Don't cache the result if the jar was modified whilst building it. The jar's version is
+        // incremented before cached headers are invalidated, so checking the version again after
+        // the put ensures that a header can't be cached after a change which invalidates it.
+        if( cacheable && version.get() == startVersion ) {
+            CachedHeader cachedHeader = new CachedHeader( value, expiresAt );
+            headerCache.put( cacheKey, cachedHeader );
+            if( version.get() != startVersion ) {
+                headerCache.remove( cacheKey, cachedHeader );
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void add(URI uri, HttpCookie cookie) {
+        String host = normalizeHost( uri.getHost() );
+        String domain = normalizeHost( cookie.getDomain() );
+        boolean hostOnly = domain == null;
+        if( hostOnly ) {
+            domain = host;
+        }
+        else if( domain.startsWith(".") ) {
+            domain = domain.substring( 1 );
+        }
+        if( domain == null ) {
+            return;
+        }
+        if( cookie.getPath() == null ) {
+            cookie.setPath( defaultPath( uri.getPath() ) );
+        }
+        long maxAge = cookie.getMaxAge();
+        Entry entry = new Entry( cookie, domain, hostOnly, maxAge > -1 ? System.currentTimeMillis() + maxAge * 1000 : -1 );
+        String key = entry.getKey();
+        Entry previous;
+        if( maxAge == 0 ) {
+            // A zero max-age indicates that the cookie should be deleted.
+            previous = entries.remove( key );
+        }
+        else {
+            previous = entries.put( key, entry );
+        }
+        changed( domain, entry.expiresAt > -1 || (previous != null && previous.expiresAt > -1) );
+    }
+
+    @Override
+    public List<HttpCookie> get(URI uri) {
+        List<HttpCookie> result = new ArrayList<>();
+        String host = normalizeHost( uri.getHost() );
+        if( host != null ) {
+            boolean secure = "https".equalsIgnoreCase( uri.getScheme() );
+            long now = System.currentTimeMillis();
+            for( Entry entry : entries.values() ) {
+                if( !entry.hasExpired( now ) && entry.matches( host, uri.getPath(), secure ) ) {
+                    result.add( entry.cookie );
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<HttpCookie> getCookies() {
+        List<HttpCookie> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for( Entry entry : entries.values() ) {
+            if( !entry.hasExpired( now ) ) {
+                result.add( entry.cookie );
+            }
+        }
+        return Collections.unmodifiableList( result );
+    }
+
+    @Override
+    public List<URI> getURIs() {
+        List<URI> result = new ArrayList<>();
+        for( Entry entry : entries.values() ) {
+            URI uri = URI.create("http://"+entry.domain );
+            if( !result.contains( uri ) ) {
+                result.add( uri );
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean remove(URI uri, HttpCookie cookie) {
+        boolean removed = false;
+        for( Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if( entry.cookie.equals( cookie ) ) {
+                it.remove();
+                changed( entry.domain, entry.expiresAt > -1 );
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeAll() {
+        boolean removed = !entries.isEmpty();
+        entries.clear();
+        version.incrementAndGet();
+        headerCache.clear();
+        dirty.set( true );
+        return removed;
+    }
+
+    /**
+     * Save persistent cookies to the persistence file, if the jar has changed since last saved.
+     * Has no effect if no persistence file has been set. Saves are serialized, and the cookies are
+     * written to a temporary file which then replaces the persistence file, so that a partially
+     * written file is never read.
+     */
+    public void save() {
+        synchronized( saveLock ) {
+            File file = persistenceFile;
+            if( file == null || !dirty.getAndSet( false ) ) {
+                return;
+            }
+            if( !write( file ) ) {
+                Log.w( Tag, String.format("Failed to write cookies to %s", file ) );
+                dirty.set( true );
+            }
+        }
+    }
+
+    /** Write persistent cookies to a file. */
+    private boolean write(File file) {
+        long now = System.currentTimeMillis();
+        StringBuilder sb = new StringBuilder();
+        for( Entry entry : entries.values() ) {
+            if( entry.expiresAt > -1 && !entry.hasExpired( now ) ) {
+                HttpCookie cookie = entry.cookie;
+                sb.append( entry.domain ).append('\t')
+                  .append( entry.hostOnly ? 'H' : 'D' ).append( cookie.getSecure() ? 'S' : '-' ).append('\t')
+                  .append( cookie.getPath() ).append('\t')
+                  .append( entry.expiresAt ).append('\t')
+                  .append( cookie.getName() ).append('\t')
+                  .append( cookie.getValue() ).append('\n');
+            }
+        }
+        File tmpFile = new File( file.getPath()+".tmp");
+        if( !Files.writeString( tmpFile, sb.toString() ) || !tmpFile.renameTo( file ) ) {
+            tmpFile.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /** Load cookies from a persistence file. */
+    private void load(File file) {
+        String data = Files.readString( file );
+        if( data == null ) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for( String line : data.split("\n") ) {
+            String[] fields = line.split("\t", 6 );
+            if( fields.length != 6 || fields[1].length() != 2 ) {
+                continue;
+            }
+            try {
+                long expiresAt = Long.parseLong( fields[3] );
+                if( expiresAt <= now ) {
+                    continue;
+                }
+                HttpCookie cookie = new HttpCookie( fields[4], fields[5] );
+                cookie.setPath( fields[2] );
+                cookie.setSecure( fields[1].charAt( 1 ) == 'S' );
+                cookie.setMaxAge( (expiresAt - now) / 1000 );
+                boolean hostOnly = fields[1].charAt( 0 ) == 'H';
+                if( !hostOnly ) {
+                    cookie.setDomain( fields[0] );
+                }
+                Entry entry = new Entry( cookie, fields[0], hostOnly, expiresAt );
+                entries.put( entry.getKey(), entry );
+            }
+            catch(IllegalArgumentException e) {
+                Log.w( Tag, String.format("Bad cookie in %s: %s", file, line ) );
+            }
+        }
+        version.incrementAndGet();
+        headerCache.clear();
+    }
+
+    /**
+     * Record a change to the cookies for a domain.
+     * Invalidates cached headers for all hosts on the domain.
+     */
+    private void changed(String domain, boolean persistent) {
+        version.incrementAndGet();
+        String suffix = "."+domain;
+        for( Iterator<String> it = headerCache.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            String host = key.substring( key.indexOf("://") + 3 );
+            if( host.equals( domain ) || host.endsWith( suffix ) ) {
+                it.remove();
+            }
+        }
+        if( persistent ) {
+            dirty.set( true );
+        }
+    }
+
+    /** Make the key for a cookie entry. */
+    static String makeKey(String domain, String path, String name) {
+        return domain+'\t'+path+'\t'+name;
+    }
+
+    /** Normalize a host name for comparison. */
+    static String normalizeHost(String host) {
+        return host == null ? null : host.toLowerCase();
+    }
+
+    /** Return the default cookie path for a request path, as per RFC 6265 section 5.1.4. */
+    static String defaultPath(String path) {
+        if( path == null || !path.startsWith("/") ) {
+            return "/";
+        }
+        int idx = path.lastIndexOf('/');
+        return idx > 0 ? path.substring( 0, idx ) : "/";
+    }
+
+    /** Test whether a cookie path matches a request path, as per RFC 6265 section 5.1.4. */
+    static boolean pathMatches(String cookiePath, String path) {
+        if( cookiePath == null || "/".equals( cookiePath ) ) {
+            return true;
+        }
+        if( path == null || path.length() == 0 ) {
+            path = "/";
+        }
+        if( !path.startsWith( cookiePath ) ) {
+            return false;
+        }
+        return path.length() == cookiePath.length()
+            || cookiePath.endsWith("/")
+            || path.charAt( cookiePath.length() ) == '/';
+    }
+}
@@ -33,8 +33,8 @@ public class DataRequest extends Request {
     }
 
     @Override
-    Response readResponse(HttpURLConnection connection) throws IOException {
-        InputStream in = openInputStream( connection );
+    Response readResponse(HttpURLConnection connection, InputStream responseStream) throws IOException {
+        InputStream in = new BufferedInputStream( responseStream, DataBufferSize );
         checkForNetworkSignon( connection );
         byte[] body = new byte[4096];
         int offset = 0;
@@ -36,8 +36,13 @@ public class FileRequest extends Request {
     }
 
     @Override
-    Response readResponse(HttpURLConnection connection) throws IOException {
-        InputStream in = connection.getInputStream();
+    InputStream openResponseStream(HttpURLConnection connection) throws IOException {
+        // Fail on HTTP error responses, rather than writing the error response to the data file.
+        return connection.getInputStream();
+    }
+
+    @Override
+    Response readResponse(HttpURLConnection connection, InputStream in) throws IOException {
         checkForNetworkSignon( connection );
         FileOutputStream out = new FileOutputStream( dataFile );
         byte[] buffer = new byte[DataBufferSize];
@@ -13,13 +13,10 @@
 // limitations under the License
 package com.innerfunction.http;
 
-import android.text.TextUtils;
-
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.CookieStore;
 import java.net.HttpCookie;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
@@ -51,6 +48,10 @@ public abstract class Request {
     private RequestBody body;
     /** Optional additional request headers. */
     private Map<String,Object> headers;
+    /** A flag indicating whether the request has been cancelled. */
+    private volatile boolean cancelled;
+    /** The connection currently being used to send the request, if any. */
+    private volatile HttpURLConnection activeConnection;
 
     public Request(String url, String method) throws MalformedURLException {
         this.url = new URL( url );
@@ -83,10 +84,42 @@ public abstract class Request {
         headers.put( name, value );
     }
 
+    /**
+     * Cancel the request.
+     * If the request is in progress then its connection is disconnected, and the request fails
+     * with a RequestCancelledException; otherwise the request will fail as soon as it is sent.
+     * Cancelling a request which has already completed has no effect.
+     */
+    public void cancel() {
+        cancelled = true;
+        HttpURLConnection connection = activeConnection;
+        if( connection != null ) {
+            // Disconnecting from another thread aborts any blocking read or write on the connection.
+            connection.disconnect();
+        }
+    }
+
+    /** Test whether the request has been cancelled. */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
     /** Connect to the server and send the request data. */
     Response connect(Client client) throws IOException {
+        if( cancelled ) {
+            throw new RequestCancelledException( this );
+        }
+        // NOTE Connection pool settings must be in place before the first connection is opened.
+        ConnectionPool.opened();
         HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        activeConnection = connection;
+        InputStream in = null;
+        boolean ok = false;
         try {
+            // Check for cancellation between the first check and the connection becoming active.
+            if( cancelled ) {
+                throw new RequestCancelledException( this );
+            }
             connection.setRequestMethod( method );
             // TODO Some of these connection settings should be configured via properties on the client.
             connection.setConnectTimeout( ConnectTimeout );
@@ -105,17 +138,54 @@ public abstract class Request {
                 body.write( out );
                 out.flush();
             }
-            Response response = readResponse( connection );
+            in = openResponseStream( connection );
+            Response response = readResponse( connection, in );
             storeCookies( connection );
+            ok = true;
             return response;
         }
+        catch(IOException e) {
+            // Report any I/O error caused by the connection being disconnected as a cancellation.
+            if( cancelled ) {
+                throw new RequestCancelledException( this );
+            }
+            throw e;
+        }
         finally {
-            connection.disconnect();
+            activeConnection = null;
+            // Don't disconnect after a successful request; instead release the connection so
+            // that its socket is returned to the keep-alive pool.
+            if( ok ) {
+                ConnectionPool.release( connection, in );
+            }
+            else {
+                ConnectionPool.disconnect( connection );
+            }
         }
     }
 
-    /** Read the server response. */
-    abstract Response readResponse(HttpURLConnection connection) throws IOException;
+    /**
+     * Read the server response.
+     * @param connection    The HTTP connection.
+     * @param in            The response stream opened on the connection. The stream shouldn't be
+     *                      closed, as it is released with the connection once the response is read.
+     */
+    abstract Response readResponse(HttpURLConnection connection, InputStream in) throws IOException;
+
+    /**
+     * Open the response stream on a connection.
+     * Opens the error stream on a non-2xx HTTP response.
+     * @param connection    The HTTP connection.
+     * @return The unbuffered response stream; may be null if a non-2xx response has no body.
+     * @throws IOException If a non-HTTP connection error occurs.
+     */
+    InputStream openResponseStream(HttpURLConnection connection) throws IOException {
+        int responseCode = connection.getResponseCode();
+        if( responseCode < 400 ) {
+            return connection.getInputStream();
+        }
+        return connection.getErrorStream();
+    }
 
     /**
      * Open an input stream on a connection.
@@ -126,25 +196,17 @@ public abstract class Request {
      * @throws IOException If a non-HTTP connection error occurs.
      */
     protected InputStream openInputStream(HttpURLConnection connection) throws IOException {
-        InputStream in;
-        int responseCode = connection.getResponseCode();
-        if( responseCode < 400 ) {
-            in = connection.getInputStream();
-        }
-        else {
-            in = connection.getErrorStream();
-        }
-        return new BufferedInputStream( in, DataBufferSize );
+        return new BufferedInputStream( openResponseStream( connection ), DataBufferSize );
     }
 
     /**
      * Add cookies to a request connection.
      */
     protected void addCookies(HttpURLConnection connection) {
-        CookieStore cookieStore = Client.CookieManager.getCookieStore();
-        List<HttpCookie> cookies = cookieStore.get( uri );
-        String cookie = TextUtils.join(";", cookies );
-        connection.setRequestProperty("Cookie", cookie );
+        String cookie = Client.CookieJar.getCookieHeader( uri );
+        if( cookie != null ) {
+            connection.setRequestProperty("Cookie", cookie );
+        }
     }
 
     /**
@@ -160,13 +222,19 @@ public abstract class Request {
             cookieHeaders.addAll( headers.get("Set-Cookie2") );
         }
         if( cookieHeaders.size() > 0 ) {
-            CookieStore cookieStore = Client.CookieManager.getCookieStore();
+            CookieJar cookieJar = Client.CookieJar;
             for( String header : cookieHeaders ) {
-                List<HttpCookie> cookies = HttpCookie.parse( header );
-                for( HttpCookie cookie : cookies ) {
-                    cookieStore.add( uri, cookie );
+                try {
+                    List<HttpCookie> cookies = HttpCookie.parse( header );
+                    for( HttpCookie cookie : cookies ) {
+                        cookieJar.add( uri, cookie );
+                    }
+                }
+                catch(IllegalArgumentException e) {
+                    // Invalid cookie header, ignore.
                 }
             }
+            cookieJar.save();
         }
     }
 
@@ -0,0 +1,37 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.http;
+
+import java.io.IOException;
+
+/**
+ * An exception indicating that a request failed because it was cancelled.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class RequestCancelledException extends IOException {
+
+    /** The cancelled request. */
+    private Request request;
+
+    public RequestCancelledException(Request request) {
+        super( String.format("Request cancelled: %s", request.getURL() ) );
+        this.request = request;
+    }
+
+    /** Get the cancelled request. */
+    public Request getRequest() {
+        return request;
+    }
+}
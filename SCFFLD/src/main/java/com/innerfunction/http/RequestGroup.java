@@ -0,0 +1,108 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.http;
+
+import com.innerfunction.q.Q;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A group of requests which can be cancelled together.
+ * Requests sent through a group are tracked until they complete; a call to cancelAll() cancels
+ * every request still in progress. This is typically used to tie the requests made by a view
+ * to the view's lifecycle, so that a view's outstanding requests are cancelled when the view
+ * is stopped or destroyed.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class RequestGroup {
+
+    /** Requests in progress. */
+    private Set<Request> requests = Collections.newSetFromMap( new ConcurrentHashMap<Request,Boolean>() );
+    /** Batches in progress. */
+    private Set<BatchRequest> batches = Collections.newSetFromMap( new ConcurrentHashMap<BatchRequest,Boolean>() );
+
+    /**
+     * Send a request as part of this group.
+     * @param client    The client to send the request with.
+     * @param request   The request to send.
+     * @return A promise resolving to the request's response.
+     */
+    public Q.Promise<Response> send(Client client, final Request request) {
+        final Q.Promise<Response> promise = new Q.Promise<>();
+        requests.add( request );
+        client.send( request )
+            .then(new Q.Promise.Callback<Response, Void>() {
+                @Override
+                public Void result(Response response) {
+                    requests.remove( request );
+                    promise.resolve( response );
+                    return null;
+                }
+            })
+            .error(new Q.Promise.ErrorCallback() {
+                @Override
+                public void error(Exception e) {
+                    requests.remove( request );
+                    promise.reject( e );
+                }
+            });
+        return promise;
+    }
+
+    /**
+     * Send a batch of requests as part of this group.
+     * @param client    The client to send the requests with.
+     * @param requests  The requests to send.
+     * @return The batch.
+     */
+    public BatchRequest batch(Client client, List<Request> requests) {
+        // NOTE The batch's result promise is left for the caller's use, so completed batches are
+        // pruned here instead of through a result callback.
+        for( BatchRequest batch : batches ) {
+            if( batch.isComplete() || batch.isCancelled() ) {
+                batches.remove( batch );
+            }
+        }
+        BatchRequest batch = client.batch( requests );
+        batches.add( batch );
+        return batch;
+    }
+
+    /** Get the number of requests and batches in progress. */
+    public int getPendingCount() {
+        int count = requests.size();
+        for( BatchRequest batch : batches ) {
+            if( !(batch.isComplete() || batch.isCancelled()) ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Cancel all requests in progress. */
+    public void cancelAll() {
+        for( Request request : requests ) {
+            request.cancel();
+        }
+        requests.clear();
+        for( BatchRequest batch : batches ) {
+            batch.cancel();
+        }
+        batches.clear();
+    }
+}
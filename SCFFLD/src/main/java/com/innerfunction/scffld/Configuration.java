@@ -34,6 +34,7 @@ import com.innerfunction.uri.URIHandler;
 import com.innerfunction.util.KeyPath;
 import com.innerfunction.util.Maps;
 import com.innerfunction.util.StringTemplate;
+import com.innerfunction.util.Tracer;
 import com.innerfunction.util.TypeConversions;
 
 /**
@@ -174,8 +175,10 @@ public class Configuration {
         for( String key : params.keySet() ) {
             configData.remove( key );
         }
-        // Add param values to the context.
+        // Add param values to the context. The context may be shared with the parent
+        // configuration, so copy it first to avoid leaking the params into the parent.
         if( params.size() > 0 ) {
+            dataContext = new HashMap<>( dataContext );
             dataContext.putAll( params );
         }
     }
@@ -374,7 +377,27 @@ public class Configuration {
      * null if no value is found.
      */
     public Object getValueAs(String keyPath, Representation representation) {
-        Object value = KeyPath.resolve( keyPath, configData, representation, keyPathModifier );
+        return convertValueAs( resolveValue( keyPath, representation ), representation );
+    }
+
+    /**
+     * Resolve a configuration value, without converting it to a representation.
+     * Applies the value modifiers, i.e. resolves $ parameters, string templates and # references,
+     * and dereferences @ URIs. Use with convertValueAs() where the two steps need to be separated,
+     * e.g. for timing; otherwise use getValueAs().
+     * @param keyPath           A path of keys separated by full stops.
+     * @param representation    The required value representation; used when resolving # references.
+     */
+    public Object resolveValue(String keyPath, Representation representation) {
+        return KeyPath.resolve( keyPath, configData, representation, keyPathModifier );
+    }
+
+    /**
+     * Convert a resolved configuration value to a representation.
+     * @param value             A value returned by resolveValue().
+     * @param representation    The required value representation.
+     */
+    public Object convertValueAs(Object value, Representation representation) {
         // If something other than the raw representation is required then try to convert:
         // * configuration: See the asConfiguration: method;
         // * all other representations are passed to TypeConversions.
@@ -470,6 +493,21 @@ public class Configuration {
         return (Drawable)getValueAs( keyPath, Representation.Image );
     }
 
+    /**
+     * Get a configuration value as an image drawable, downsampled to a target size.
+     * Use when the size of the view displaying the image is known, to avoid decoding the image
+     * at full size. Images resolved from internal URIs are loaded at full size.
+     * @param width     The target width, in pixels; or 0 to load the image at full size.
+     * @param height    The target height, in pixels; or 0 to load the image at full size.
+     */
+    public Drawable getValueAsImage(String keyPath, int width, int height) {
+        Object value = getValueAs( keyPath, Representation.Raw );
+        if( value instanceof Resource ) {
+            return ((Resource)value).asImage();
+        }
+        return conversions.asImage( value, width, height );
+    }
+
     /** Get a configuration value as a colour. */
     public int getValueAsColor(String keyPath) {
         return getValueAsColor( keyPath, "#000000" );
@@ -618,12 +656,15 @@ public class Configuration {
         }
         mixin = getValueAsConfiguration("-mixin");
         if( mixin != null ) {
-            result = mixinConfiguration( mixin );
+            result = result.mixinConfiguration( mixin );
         }
         List<Configuration> mixins = getValueAsConfigurationList("-mixins");
         if( mixins != null ) {
             for( Configuration mxn : mixins ) {
-                result = mixinConfiguration( mxn );
+                // Skip any mixin references which don't resolve.
+                if( mxn != null ) {
+                    result = result.mixinConfiguration( mxn );
+                }
             }
         }
         return result;
@@ -631,29 +672,35 @@ public class Configuration {
 
     /** Normalize this configuration by flattening and resolving configuration extensions. */
     public Configuration normalize() {
-        // Build the extension hierarchy.
-        List<Configuration> hierarchy = new ArrayList<>();
-        Configuration current = flatten();
-        hierarchy.add( current );
-        while( (current = current.getValueAsConfiguration("-extends")) != null ) {
-            current = current.flatten();
-            if( hierarchy.contains( current ) ) {
-                // Extension loop detected, stop building the hierarchy.
-                break;
-            }
+        Tracer.begin("Configuration.normalize");
+        try {
+            // Build the extension hierarchy.
+            List<Configuration> hierarchy = new ArrayList<>();
+            Configuration current = flatten();
             hierarchy.add( current );
+            while( (current = current.getValueAsConfiguration("-extends")) != null ) {
+                current = current.flatten();
+                if( hierarchy.contains( current ) ) {
+                    // Extension loop detected, stop building the hierarchy.
+                    break;
+                }
+                hierarchy.add( current );
+            }
+            // Build a single unified configuration from the hierarchy of configs.
+            Configuration result = new Configuration( androidContext ); // Start with an empty config.
+            // Process hierarchy in reverse order (i.e. from most distant ancestor to current config).
+            Collections.reverse( hierarchy );
+            for( Configuration config : hierarchy ) {
+                result = result.mixinConfiguration( config );
+            }
+            result.sourceData = sourceData;
+            result.topLevelConfig = topLevelConfig;
+            result.uriHandler = uriHandler;
+            return result;
         }
-        // Build a single unified configuration from the hierarchy of configs.
-        Configuration result = new Configuration( androidContext ); // Start with an empty config.
-        // Process hierarchy in reverse order (i.e. from most distant ancestor to current config).
-        Collections.reverse( hierarchy );
-        for( Configuration config : hierarchy ) {
-            result = result.mixinConfiguration( config );
+        finally {
+            Tracer.end("Configuration.normalize");
         }
-        result.sourceData = sourceData;
-        result.topLevelConfig = topLevelConfig;
-        result.uriHandler = uriHandler;
-        return result;
     }
 
     /** Return a copy of the current configuration with the specified top-level keys removed. */
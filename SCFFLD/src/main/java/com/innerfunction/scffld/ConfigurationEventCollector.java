@@ -0,0 +1,182 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * A configuration listener which collects events in memory.
+ * Use to find the slowest objects and properties in a container configuration, e.g.:
+ *
+ *     ConfigurationEventCollector collector = new ConfigurationEventCollector();
+ *     container.setConfigurationListener( collector );
+ *     container.configureWith( configuration );
+ *     List<ConfigurationListener.ObjectEvent> slowest = collector.getSlowestObjectEvents( 10 );
+ *
+ * Collected events can be exported as JSON using ConfigurationTraceExporter. The number of
+ * events collected is bounded; events beyond the limit are counted but discarded. The slowest
+ * events are tracked separately over every event, including discarded events, using bounded
+ * min-heaps ordered by total time.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ConfigurationEventCollector implements ConfigurationListener {
+
+    /** The default maximum number of events of each kind to collect. */
+    public static final int DefaultMaxEvents = 10000;
+    /** The number of slowest events of each kind to track. */
+    public static final int SlowestEventCount = 100;
+
+    /** Orders object events by total time, fastest first. */
+    static final Comparator<ObjectEvent> ObjectEventTimeOrder = new Comparator<ObjectEvent>() {
+        @Override
+        public int compare(ObjectEvent e1, ObjectEvent e2) {
+            return compareTimes( e1.getTotalTime(), e2.getTotalTime() );
+        }
+    };
+
+    /** Orders property events by total time, fastest first. */
+    static final Comparator<PropertyEvent> PropertyEventTimeOrder = new Comparator<PropertyEvent>() {
+        @Override
+        public int compare(PropertyEvent e1, PropertyEvent e2) {
+            return compareTimes( e1.totalTime, e2.totalTime );
+        }
+    };
+
+    /** The maximum number of events of each kind to collect. */
+    private int maxEvents;
+    /** Collected object events. */
+    private List<ObjectEvent> objectEvents = new ArrayList<>();
+    /** Collected property events. */
+    private List<PropertyEvent> propertyEvents = new ArrayList<>();
+    /** The number of events discarded because the limit was reached. */
+    private int discardedCount;
+    /** The slowest object events, with the fastest of them at the head. */
+    private PriorityQueue<ObjectEvent> slowestObjectEvents = new PriorityQueue<>( SlowestEventCount, ObjectEventTimeOrder );
+    /** The slowest property events, with the fastest of them at the head. */
+    private PriorityQueue<PropertyEvent> slowestPropertyEvents = new PriorityQueue<>( SlowestEventCount, PropertyEventTimeOrder );
+
+    public ConfigurationEventCollector() {
+        this( DefaultMaxEvents );
+    }
+
+    public ConfigurationEventCollector(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    @Override
+    public synchronized void onObjectConfigured(ObjectEvent event) {
+        addSlowest( slowestObjectEvents, event, ObjectEventTimeOrder );
+        if( objectEvents.size() < maxEvents ) {
+            objectEvents.add( event );
+        }
+        else {
+            discardedCount++;
+        }
+    }
+
+    @Override
+    public synchronized void onPropertyConfigured(PropertyEvent event) {
+        addSlowest( slowestPropertyEvents, event, PropertyEventTimeOrder );
+        if( propertyEvents.size() < maxEvents ) {
+            propertyEvents.add( event );
+        }
+        else {
+            discardedCount++;
+        }
+    }
+
+    /** Get a copy of the collected object events, in the order they completed. */
+    public synchronized List<ObjectEvent> getObjectEvents() {
+        return new ArrayList<>( objectEvents );
+    }
+
+    /** Get a copy of the collected property events, in the order they completed. */
+    public synchronized List<PropertyEvent> getPropertyEvents() {
+        return new ArrayList<>( propertyEvents );
+    }
+
+    /** Get the number of events discarded because the limit was reached. */
+    public synchronized int getDiscardedCount() {
+        return discardedCount;
+    }
+
+    /**
+     * Get the slowest objects.
+     * Up to SlowestEventCount events are selected from all events, including discarded events;
+     * any more are selected from the collected events.
+     * @param count The maximum number of events to return.
+     * @return Object events ordered by total build time, slowest first.
+     */
+    public synchronized List<ObjectEvent> getSlowestObjectEvents(int count) {
+        return getSlowest( slowestObjectEvents, objectEvents, count, ObjectEventTimeOrder );
+    }
+
+    /**
+     * Get the slowest properties.
+     * Up to SlowestEventCount events are selected from all events, including discarded events;
+     * any more are selected from the collected events.
+     * @param count The maximum number of events to return.
+     * @return Property events ordered by total configuration time, slowest first.
+     */
+    public synchronized List<PropertyEvent> getSlowestPropertyEvents(int count) {
+        return getSlowest( slowestPropertyEvents, propertyEvents, count, PropertyEventTimeOrder );
+    }
+
+    /** Discard all collected events. */
+    public synchronized void clear() {
+        objectEvents.clear();
+        propertyEvents.clear();
+        slowestObjectEvents.clear();
+        slowestPropertyEvents.clear();
+        discardedCount = 0;
+    }
+
+    /** Add an event to a min-heap of the slowest events, if it is slower than the fastest of them. */
+    private static <E> void addSlowest(PriorityQueue<E> slowest, E event, Comparator<E> order) {
+        if( slowest.size() < SlowestEventCount ) {
+            slowest.add( event );
+        }
+        else if( order.compare( event, slowest.peek() ) > 0 ) {
+            slowest.poll();
+            slowest.add( event );
+        }
+    }
+
+    /** Get the slowest events from a min-heap of slowest events and a list of collected events. */
+    private static <E> List<E> getSlowest(PriorityQueue<E> slowest, List<E> collected, int count, Comparator<E> order) {
+        List<E> events = new ArrayList<>( slowest );
+        if( count > events.size() ) {
+            Set<E> included = Collections.newSetFromMap( new IdentityHashMap<E,Boolean>() );
+            included.addAll( events );
+            for( E event : collected ) {
+                if( !included.contains( event ) ) {
+                    events.add( event );
+                }
+            }
+        }
+        Collections.sort( events, Collections.reverseOrder( order ) );
+        return new ArrayList<>( events.subList( 0, Math.min( count, events.size() ) ) );
+    }
+
+    private static int compareTimes(long t1, long t2) {
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+    }
+}
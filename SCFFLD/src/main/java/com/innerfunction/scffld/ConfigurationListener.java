@@ -0,0 +1,105 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+/**
+ * An interface for observing object configuration.
+ * A listener set on a container receives an event for each object the container configures, and
+ * for each property of those objects. Events carry the key path of the object or property, and
+ * a breakdown of where configuration time was spent. All times are in nanoseconds.
+ *
+ * Listeners are called on the thread performing the configuration, and may be called from
+ * multiple threads.
+ *
+ * @see ConfigurationEventCollector
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public interface ConfigurationListener {
+
+    /** An event describing the configuration of an object. */
+    class ObjectEvent {
+        /** The object's key path within the container. */
+        public final String keyPath;
+        /** The object's class. */
+        public final Class<?> objectClass;
+        /**
+         * Time spent instantiating the object; zero if the object wasn't instantiated by the
+         * container (e.g. an in-place value).
+         */
+        public final long instantiationTime;
+        /** Time spent configuring the object, including the configuration of any property values. */
+        public final long configurationTime;
+        /** The number of properties configured. */
+        public final int propertyCount;
+
+        public ObjectEvent(String keyPath, Class<?> objectClass, long instantiationTime, long configurationTime, int propertyCount) {
+            this.keyPath = keyPath;
+            this.objectClass = objectClass;
+            this.instantiationTime = instantiationTime;
+            this.configurationTime = configurationTime;
+            this.propertyCount = propertyCount;
+        }
+
+        /** Get the total time spent building the object. */
+        public long getTotalTime() {
+            return instantiationTime + configurationTime;
+        }
+    }
+
+    /** An event describing the configuration of a single property. */
+    class PropertyEvent {
+        /** The property's key path within the container. */
+        public final String keyPath;
+        /** The class of the object owning the property. */
+        public final Class<?> ownerClass;
+        /** The property name. */
+        public final String propertyName;
+        /** The class of the configured value; or null if no value was resolved. */
+        public final Class<?> valueClass;
+        /**
+         * Time spent resolving the configuration value, including any URI dereference and the
+         * resolution of parameters, templates and # references.
+         */
+        public final long dereferenceTime;
+        /** Time spent converting a standard type value (e.g. a string, number or image) to the property's type. */
+        public final long conversionTime;
+        /** Time spent building an object value, including its instantiation and configuration. */
+        public final long buildTime;
+        /** Time spent injecting the value into the owning object. */
+        public final long injectionTime;
+        /** The total time spent configuring the property. */
+        public final long totalTime;
+
+        public PropertyEvent(String keyPath, Class<?> ownerClass, String propertyName, Class<?> valueClass,
+                             long dereferenceTime, long conversionTime, long buildTime, long injectionTime, long totalTime) {
+            this.keyPath = keyPath;
+            this.ownerClass = ownerClass;
+            this.propertyName = propertyName;
+            this.valueClass = valueClass;
+            this.dereferenceTime = dereferenceTime;
+            this.conversionTime = conversionTime;
+            this.buildTime = buildTime;
+            this.injectionTime = injectionTime;
+            this.totalTime = totalTime;
+        }
+    }
+
+    /** Called after an object has been configured. */
+    void onObjectConfigured(ObjectEvent event);
+
+    /** Called after a property value has been built and injected. */
+    void onPropertyConfigured(PropertyEvent event);
+
+}
@@ -0,0 +1,90 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+import com.innerfunction.util.Files;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+
+/**
+ * Exports the events collected by a ConfigurationEventCollector as JSON.
+ * The exported trace has the following format, with all times in nanoseconds:
+ *
+ *     {
+ *         "objects": [
+ *             { "keyPath": ..., "class": ..., "instantiationTime": ..., "configurationTime": ...,
+ *               "propertyCount": ... }, ...
+ *         ],
+ *         "properties": [
+ *             { "keyPath": ..., "ownerClass": ..., "property": ..., "valueClass": ...,
+ *               "dereferenceTime": ..., "conversionTime": ..., "buildTime": ...,
+ *               "injectionTime": ..., "totalTime": ... }, ...
+ *         ],
+ *         "discardedCount": ...
+ *     }
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("unchecked")
+public class ConfigurationTraceExporter {
+
+    /** Convert the collected events to JSON data. */
+    public static JSONObject toJSONData(ConfigurationEventCollector collector) {
+        JSONArray objects = new JSONArray();
+        for( ConfigurationListener.ObjectEvent event : collector.getObjectEvents() ) {
+            JSONObject item = new JSONObject();
+            item.put("keyPath", event.keyPath );
+            item.put("class", event.objectClass.getName() );
+            item.put("instantiationTime", event.instantiationTime );
+            item.put("configurationTime", event.configurationTime );
+            item.put("propertyCount", event.propertyCount );
+            objects.add( item );
+        }
+        JSONArray properties = new JSONArray();
+        for( ConfigurationListener.PropertyEvent event : collector.getPropertyEvents() ) {
+            JSONObject item = new JSONObject();
+            item.put("keyPath", event.keyPath );
+            item.put("ownerClass", event.ownerClass.getName() );
+            item.put("property", event.propertyName );
+            item.put("valueClass", event.valueClass != null ? event.valueClass.getName() : null );
+            item.put("dereferenceTime", event.dereferenceTime );
+            item.put("conversionTime", event.conversionTime );
+            item.put("buildTime", event.buildTime );
+            item.put("injectionTime", event.injectionTime );
+            item.put("totalTime", event.totalTime );
+            properties.add( item );
+        }
+        JSONObject trace = new JSONObject();
+        trace.put("objects", objects );
+        trace.put("properties", properties );
+        trace.put("discardedCount", collector.getDiscardedCount() );
+        return trace;
+    }
+
+    /** Convert the collected events to a JSON string. */
+    public static String toJSONString(ConfigurationEventCollector collector) {
+        return toJSONData( collector ).toJSONString();
+    }
+
+    /**
+     * Write the collected events to a file as JSON.
+     * @return Returns true if the trace was successfully written.
+     */
+    public static boolean writeJSON(ConfigurationEventCollector collector, File file) {
+        return Files.writeJSON( file, toJSONData( collector ) );
+    }
+}
@@ -19,15 +19,17 @@ import android.util.Log;
 import com.innerfunction.uri.Resource;
 import com.innerfunction.uri.StandardURIHandler;
 import com.innerfunction.util.Property;
+import com.innerfunction.util.Tracer;
 import com.innerfunction.util.TypeConversions;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * A container for named objects and services.
@@ -35,6 +37,8 @@ import java.util.Map;
  * instantiated and configured using an object definition read from a JSON configuration.
  * The object's properties may be configured using other built objects, or using references
  * to named objects contained by the container.
+ * Named objects can be resolved concurrently from multiple threads; each named object is only
+ * built once, with other threads requesting the object waiting for its build to complete.
  *
  * Attached by juliangoacher on 28/03/16.
  */
@@ -85,13 +89,20 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
     private Map<String,Property> containerProperties;
     /**
      * A map of pending object names (i.e. objects in the process of being configured) mapped onto
-     * a list of pending value references (i.e. property value references to other pending objects,
-     * which are caused by circular dependency cycles and which can't be fully resolved until the
-     * referenced value has been fully built).
-     * Used to detect dependency cycles when building the named object graph.
+     * the build of each object. Each build records a list of pending value references (i.e.
+     * property value references to other pending objects, which are caused by circular dependency
+     * cycles and which can't be fully resolved until the referenced value has been fully built).
+     * Used to detect dependency cycles when building the named object graph, and to allow
+     * threads requesting an object being built on another thread to wait for the build.
      * @see PendingNamed
      */
-    private Map<String,List<PendingNamed>> pendingNames;
+    private ConcurrentHashMap<String,NamedBuild> pendingNames;
+    /**
+     * A map of threads waiting for named objects to the builds they are waiting on.
+     * Used to detect dependency cycles between builds on different threads. Access is
+     * synchronized on the map.
+     */
+    private Map<Thread,NamedBuild> namedBuildWaits;
     /**
      * A map of pending property value reference counts, keyed by the property's parent object.
      * Used to manage deferred calls to the IOCConfigurationAware.afterConfig() method.
@@ -109,19 +120,22 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
     private boolean running;
     /** An object configurer for the container. */
     private ObjectConfigurer containerConfigurer;
+    /** Flag indicating whether to warm up the configuration's classes in the background. */
+    private boolean startupWarmUpEnabled = true;
 
     public Container(Context context, StandardURIHandler uriHandler) {
         this.androidContext = context;
         this.uriHandler = uriHandler;
         this.typeConversions = TypeConversions.instanceForContext( context );
-        this.nameds = new HashMap<>();
-        this.services = new ArrayList<>();
+        this.nameds = new ConcurrentHashMap<>();
+        this.services = new CopyOnWriteArrayList<>();
         this.types = makeConfiguration( new HashMap<String,Object>() );
         this.running = false;
         this.containerProperties = Property.getPropertiesForObject( this );
-        this.pendingNames = new HashMap<>();
-        this.pendingValueRefCounts = new HashMap<>();
-        this.pendingValueObjectConfigs = new HashMap<>();
+        this.pendingNames = new ConcurrentHashMap<>();
+        this.namedBuildWaits = new HashMap<>();
+        this.pendingValueRefCounts = new ConcurrentHashMap<>();
+        this.pendingValueObjectConfigs = new ConcurrentHashMap<>();
         this.containerConfigurer = new ObjectConfigurer( this );
     }
 
@@ -141,6 +155,32 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
         }
     }
 
+    public void setStartupWarmUpEnabled(boolean enabled) {
+        this.startupWarmUpEnabled = enabled;
+    }
+
+    /**
+     * Set a listener for the container's object configuration events.
+     * @see ConfigurationEventCollector
+     */
+    public void setConfigurationListener(ConfigurationListener listener) {
+        containerConfigurer.setListener( listener );
+    }
+
+    public ConfigurationListener getConfigurationListener() {
+        return containerConfigurer.getListener();
+    }
+
+    /** Get the number of objects configured by the container. */
+    public int getConfiguredObjectCount() {
+        return containerConfigurer.getConfiguredObjectCount();
+    }
+
+    /** Get the number of object properties configured by the container. */
+    public int getConfiguredPropertyCount() {
+        return containerConfigurer.getConfiguredPropertyCount();
+    }
+
     public void setPriorityNames(String... priorityNames) {
         this.priorityNames = Arrays.asList( priorityNames );
     }
@@ -221,10 +261,13 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
         }
         else {
             // Try instantiating object from type or class info.
+            boolean timed = containerConfigurer.getListener() != null;
+            long start = timed ? System.nanoTime() : 0;
             object = instantiateObjectWithConfiguration( configuration, identifier, quiet );
             if( object != null ) {
+                long instantiationTime = timed ? System.nanoTime() - start : 0;
                 // Configure the resolved object.
-                configureObject( object, configuration, identifier );
+                containerConfigurer.configure( object, null, configuration, identifier, instantiationTime );
             }
         }
         return object;
@@ -302,16 +345,9 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
             // Otherwise continue with class instantiation.
             try {
                 Class objClass = Class.forName( className );
-                // Try constructing with a single android Context argument.
-                instance = constructWithArgument( objClass, Context.class, androidContext );
-                // Try constructing with a single Configuration argument.
-                if( instance == null ) {
-                    instance = constructWithArgument( objClass, Configuration.class, configuration );
-                    // Try constructing with a no-args constructor.
-                    if( instance == null ) {
-                        instance = objClass.newInstance();
-                    }
-                }
+                // Construct with a single android Context argument, a single Configuration
+                // argument or no arguments, whichever the class supports.
+                instance = InstantiationStrategy.forClass( objClass ).newInstance( androidContext, configuration );
             }
             catch(ClassNotFoundException e) {
                 Log.e( Tag, String.format("Class not found: %s", className ) );
@@ -329,32 +365,6 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
         return instance;
     }
 
-    /**
-     * Try instantiating an object by calling a specific constructor.
-     * Looks for a single argument constructor on the specified class, accepting an argument
-     * the same type as the 'arg' parameter.
-     * @param objClass  The class being instantiated.
-     * @param argClass  The class of the constructor method argument.
-     * @param arg       The constructor method argument value.
-     * @return The newly constructed object, or null if the class doesn't have a matching
-     * constructor.
-     * @throws InstantiationException
-     * @throws IllegalAccessException
-     * @throws InvocationTargetException
-     */
-    private Object constructWithArgument(Class objClass, Class argClass, Object arg) throws InstantiationException, IllegalAccessException, InvocationTargetException {
-        try {
-            Constructor constructor = objClass.getConstructor( argClass );
-            if( constructor != null ) {
-                return constructor.newInstance( arg );
-            }
-        }
-        catch(NoSuchMethodException nsme) {
-            // Ignore: Classes not required to have a specific constructor.
-        }
-        return null;
-    }
-
     /**
      * Configure an object using the specified configuration.
      * @param object        The object to configure.
@@ -401,79 +411,131 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
      * </ul>
      */
     public void configureWith(Configuration configuration) {
-        long start = System.currentTimeMillis();
-        containerConfig = configuration;
-        // Build priority names first.
-        for( String name : priorityNames ) {
-            if( !nameds.containsKey( name ) ) {
-                buildNamedObject( name );
-            }
-        }
-        // Iterate over named object configs and build each object.
-        List<String> names = configuration.getValueNames();
-        for( String name : names ) {
-            // Build the object only if it has not already been built and added to named.
-            // (Objects which are dependencies of other objects may be configured via getNamed()
-            // before this loop has iterated around to them; or as priority names).
-            if( !nameds.containsKey( name ) ) {
-                buildNamedObject( name );
-            }
-        }
-        // Calculate and log some performance metrics.
-        long totalConfigurationTime = System.currentTimeMillis() - start;
-        int configuredPropertyCount = containerConfigurer.getConfiguredPropertyCount();
-        int configuredObjectCount = containerConfigurer.getConfiguredObjectCount();
-        float avgPropertiesPerObject = (float)configuredPropertyCount / (float)configuredObjectCount;
-        float msPerProperty = (float)totalConfigurationTime / (float)configuredPropertyCount;
-        float msPerObject = (float)totalConfigurationTime / (float)configuredObjectCount;
-        Log.d(Tag, "Configuration metrics: ================");
-        Log.d(Tag, String.format("\tTotal configuration time=%d ms", totalConfigurationTime ));
-        Log.d(Tag, String.format("\tNumber of configured objects=%d", configuredObjectCount ));
-        Log.d(Tag, String.format("\tNumber of configured properties=%d", configuredPropertyCount ));
-        Log.d(Tag, String.format("\tAverage number of properties per object=%.2f", avgPropertiesPerObject ));
-        Log.d(Tag, String.format("\tms per property=%.2f ms", msPerProperty ));
-        Log.d(Tag, String.format("\tms per object=%.2f ms", msPerObject ));
+        Tracer.begin("Container.configureWith");
+        try {
+            long start = System.currentTimeMillis();
+            containerConfig = configuration;
+            // Start loading the configuration's classes and their metadata in the background.
+            if( startupWarmUpEnabled ) {
+                StartupWarmUp.start( types, configuration );
+            }
+            // Build priority names first.
+            for( String name : priorityNames ) {
+                if( !nameds.containsKey( name ) ) {
+                    buildNamedObject( name );
+                }
+            }
+            // Iterate over named object configs and build each object.
+            List<String> names = configuration.getValueNames();
+            for( String name : names ) {
+                // Build the object only if it has not already been built and added to named.
+                // (Objects which are dependencies of other objects may be configured via getNamed()
+                // before this loop has iterated around to them; or as priority names).
+                if( !nameds.containsKey( name ) ) {
+                    buildNamedObject( name );
+                }
+            }
+            // Startup is complete; snapshot the configuration proxies resolved so far.
+            IOCProxyLookup.takeSnapshot();
+            // Calculate and log some performance metrics.
+            long totalConfigurationTime = System.currentTimeMillis() - start;
+            int configuredPropertyCount = containerConfigurer.getConfiguredPropertyCount();
+            int configuredObjectCount = containerConfigurer.getConfiguredObjectCount();
+            float avgPropertiesPerObject = (float)configuredPropertyCount / (float)Math.max( 1, configuredObjectCount );
+            float msPerProperty = (float)totalConfigurationTime / (float)Math.max( 1, configuredPropertyCount );
+            float msPerObject = (float)totalConfigurationTime / (float)Math.max( 1, configuredObjectCount );
+            Log.d(Tag, "Configuration metrics: ================");
+            Log.d(Tag, String.format("\tTotal configuration time=%d ms", totalConfigurationTime ));
+            Log.d(Tag, String.format("\tNumber of configured objects=%d", configuredObjectCount ));
+            Log.d(Tag, String.format("\tNumber of configured properties=%d", configuredPropertyCount ));
+            Log.d(Tag, String.format("\tAverage number of properties per object=%.2f", avgPropertiesPerObject ));
+            Log.d(Tag, String.format("\tms per property=%.2f ms", msPerProperty ));
+            Log.d(Tag, String.format("\tms per object=%.2f ms", msPerObject ));
+        }
+        finally {
+            Tracer.end("Container.configureWith");
+        }
     }
 
     /**
      * Build a named object from the available configuration and property type info.
+     * If the object is already being built on another thread then waits for that build to
+     * complete and returns its result.
      */
     protected Object buildNamedObject(String name) {
         // Track that we're about to build this name.
-        pendingNames.put( name, new ArrayList<PendingNamed>() );
-        // Build the object.
-        Object object = containerConfigurer.configureNamedProperty( name, containerConfig );
+        NamedBuild build = new NamedBuild();
+        NamedBuild currentBuild = pendingNames.putIfAbsent( name, build );
+        if( currentBuild != null ) {
+            // The name is already being built.
+            return currentBuild.isBuildingThread() ? null : waitForNamedBuild( name, currentBuild );
+        }
+        // Check whether the object was built by another thread before the build was registered.
+        Object object = nameds.get( name );
         if( object != null ) {
-            // Map the named object.
-            nameds.put( name, object );
-        }
-        // Object is configured, notify any pending named references
-        List<PendingNamed> pendings = pendingNames.get( name );
-        for( PendingNamed pending : pendings ) {
-            if( pending.hasWaitingConfigurer() ) {
-                Object value = pending.completeWithValue( object );
-                // Decrement the number of pending value refs for the property object.
-                Object objectKey = pending.getObjectKey();
-                int refCount = pendingValueRefCounts.get( objectKey ) - 1;
-                if( refCount > 0 ) {
-                    pendingValueRefCounts.put( objectKey, refCount );
+            pendingNames.remove( name, build );
+            build.complete( object );
+            return object;
+        }
+        Tracer.begin("Container.buildNamedObject", name );
+        try {
+            // Build the object.
+            object = containerConfigurer.configureNamedProperty( name, containerConfig );
+            if( object != null ) {
+                // Map the named object.
+                nameds.put( name, object );
+            }
+        }
+        finally {
+            Tracer.end("Container.buildNamedObject");
+            // Finished building the current name, remove from list and release any waiting threads.
+            pendingNames.remove( name, build );
+            build.complete( object );
+        }
+        // Object is configured, notify any pending named references. Pendings created by
+        // another thread may not have their property recorded yet; these are completed by that
+        // thread, see ObjectConfigurer.injectPropertyValue().
+        for( PendingNamed pending : build.getPendings() ) {
+            if( pending.resolve( object ) ) {
+                completePendingNamed( pending );
+            }
+        }
+        // Return the configured object.
+        return object;
+    }
+
+    /** Inject the value of a resolved pending named into the property waiting for it. */
+    private void completePendingNamed(PendingNamed pending) {
+        pending.complete();
+        // Decrement the number of pending value refs for the property object.
+        Object objectKey = pending.getObjectKey();
+        Configuration objConfig = null;
+        boolean objectConfigured = false;
+        synchronized( pendingValueRefCounts ) {
+            Integer refCount = pendingValueRefCounts.get( objectKey );
+            if( refCount != null ) {
+                refCount = refCount - 1;
+                objectConfigured = refCount <= 0;
+                if( objectConfigured ) {
+                    pendingValueRefCounts.remove( objectKey );
+                    // Note that the configuration is only recorded once the object's own
+                    // configuration has finished; if not yet recorded then the configurer
+                    // calls afterIOCConfigure() itself.
+                    objConfig = pendingValueObjectConfigs.remove( objectKey );
                 }
                 else {
-                    pendingValueRefCounts.remove( objectKey );
-                    // The property object is now fully configured, invoke its afterConfigure()
-                    // method if it implements IOCConfigurationAware.
-                    Object pendingObj = pending.getObject();
-                    if( pendingObj instanceof IOCConfigurationAware ) {
-                        Configuration objConfig = pendingValueObjectConfigs.remove( objectKey );
-                        ((IOCConfigurationAware)pendingObj).afterIOCConfigure( objConfig );
-                    }
+                    pendingValueRefCounts.put( objectKey, refCount );
                 }
             }
         }
-        // Finished building the current name, remove from list.
-        pendingNames.remove( name );
-        // Return the configured object.
-        return object;
+        if( objectConfigured && objConfig != null ) {
+            // The property object is now fully configured, invoke its afterConfigure()
+            // method if it implements IOCConfigurationAware.
+            Object pendingObj = pending.getObject();
+            if( pendingObj instanceof IOCConfigurationAware ) {
+                ((IOCConfigurationAware)pendingObj).afterIOCConfigure( objConfig );
+            }
+        }
     }
 
     /** Get a named component. */
@@ -483,18 +545,15 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
         if( named == null ) {
             // Check for a dependency cycle. If the requested name exists in pendingNames then the
             // named object is currently being configured.
-            List<PendingNamed> pendings = pendingNames.get( name );
-            if( pendings != null ) {
-                // TODO: Add option to throw exception here, instead of logging the problem.
-                Log.d( Tag, String.format("IDO: Named dependency cycle detected, creating pending entry for %s...",
-                    name ) );
-                // Create a placeholder object and record in the list of placeholders waiting for
-                // the named configuration to complete. Note that the placeholder is returned in
-                // place of the named - code above detects the placeholder and ensures that the
-                // correct value is resolved instead.
-                PendingNamed pending = new PendingNamed();
-                pendings.add( pending );
-                named = pending;
+            NamedBuild build = pendingNames.get( name );
+            if( build != null ) {
+                if( build.isBuildingThread() ) {
+                    named = makePendingNamed( name, build );
+                }
+                else {
+                    // The object is being built on another thread; wait for it.
+                    named = waitForNamedBuild( name, build );
+                }
             }
             else if( containerConfig.hasValue( name ) ) {
                 // The container config contains a configuration for the wanted name, but named
@@ -511,6 +570,54 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
         return named;
     }
 
+    /**
+     * Create a pending named for a named object involved in a dependency cycle.
+     * Returns the named object instead if its build completes first.
+     */
+    private Object makePendingNamed(String name, NamedBuild build) {
+        // TODO: Add option to throw exception here, instead of logging the problem.
+        Log.d( Tag, String.format("IDO: Named dependency cycle detected, creating pending entry for %s...",
+            name ) );
+        // Create a placeholder object and record in the list of placeholders waiting for
+        // the named configuration to complete. Note that the placeholder is returned in
+        // place of the named - code above detects the placeholder and ensures that the
+        // correct value is resolved instead.
+        PendingNamed pending = new PendingNamed();
+        if( build.addPending( pending ) ) {
+            return pending;
+        }
+        return nameds.get( name );
+    }
+
+    /**
+     * Wait for a named object being built on another thread.
+     * If the other thread is itself waiting, directly or indirectly, for an object being built
+     * on the current thread then the dependency cycle is resolved with a pending named instead.
+     */
+    private Object waitForNamedBuild(String name, NamedBuild build) {
+        Thread currentThread = Thread.currentThread();
+        // Check for a cycle and register the wait as a single step; otherwise two threads
+        // waiting on each other's builds could both miss the cycle and wait forever.
+        synchronized( namedBuildWaits ) {
+            NamedBuild waitedOn = build;
+            while( waitedOn != null ) {
+                if( waitedOn.thread == currentThread ) {
+                    return makePendingNamed( name, build );
+                }
+                waitedOn = namedBuildWaits.get( waitedOn.thread );
+            }
+            namedBuildWaits.put( currentThread, build );
+        }
+        try {
+            return build.await();
+        }
+        finally {
+            synchronized( namedBuildWaits ) {
+                namedBuildWaits.remove( currentThread );
+            }
+        }
+    }
+
     /** Configure the container with the specified data. */
     public void configureWithData(Object data) {
         Configuration configuration = new Configuration( data, uriHandler, androidContext );
@@ -551,12 +658,14 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
     /** Increment the number of pending value refs for an object. */
     public void incPendingValueRefCountForPendingObject(PendingNamed pending) {
         Object objectKey = pending.getObjectKey();
-        Integer refCount = pendingValueRefCounts.get( objectKey );
-        if( refCount != null ) {
-            pendingValueRefCounts.put( objectKey, refCount + 1 );
-        }
-        else {
-            pendingValueRefCounts.put( objectKey, 0 );
+        synchronized( pendingValueRefCounts ) {
+            Integer refCount = pendingValueRefCounts.get( objectKey );
+            if( refCount != null ) {
+                pendingValueRefCounts.put( objectKey, refCount + 1 );
+            }
+            else {
+                pendingValueRefCounts.put( objectKey, 1 );
+            }
         }
     }
 
@@ -568,9 +677,18 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
     /**
      * Record the configuration for an object with pending value references.
      * Needed to ensure the the IOCConfigurationAware.afterIOCConfigure method is called correctly.
+     * @return true if the configuration was recorded; false if the object has no pending value
+     * references, e.g. because they were completed on another thread, in which case the caller
+     * should invoke afterIOCConfigure itself.
      */
-    public void recordPendingValueObjectConfiguration(Object objectKey, Configuration configuration) {
-        pendingValueObjectConfigs.put( objectKey, configuration );
+    public boolean recordPendingValueObjectConfiguration(Object objectKey, Configuration configuration) {
+        synchronized( pendingValueRefCounts ) {
+            if( !pendingValueRefCounts.containsKey( objectKey ) ) {
+                return false;
+            }
+            pendingValueObjectConfigs.put( objectKey, configuration );
+            return true;
+        }
     }
 
     /** Test if the container is started. */
@@ -659,4 +777,64 @@ public class Container implements ConfigurationData, Service, MessageReceiver, M
         return false;
     }
 
+    /**
+     * The build of a named object.
+     * Records the thread building the object and any pending references to the object, and
+     * allows other threads to wait for the build's result.
+     */
+    static class NamedBuild {
+
+        /** The thread building the object. */
+        final Thread thread = Thread.currentThread();
+        /** Pending references to the object. */
+        private List<PendingNamed> pendings = new ArrayList<>();
+        /** Flag indicating whether the build has completed. */
+        private boolean isComplete;
+        /** The built object. */
+        private volatile Object result;
+        /** Released when the build completes. */
+        private final CountDownLatch completed = new CountDownLatch( 1 );
+
+        /** Test whether the current thread is the thread building the object. */
+        boolean isBuildingThread() {
+            return thread == Thread.currentThread();
+        }
+
+        /**
+         * Add a pending reference to the object.
+         * @return false if the build has already completed.
+         */
+        synchronized boolean addPending(PendingNamed pending) {
+            if( isComplete ) {
+                return false;
+            }
+            pendings.add( pending );
+            return true;
+        }
+
+        /** Get the pending references to the object. */
+        synchronized List<PendingNamed> getPendings() {
+            return pendings;
+        }
+
+        /** Complete the build with its result. */
+        void complete(Object result) {
+            synchronized( this ) {
+                isComplete = true;
+            }
+            this.result = result;
+            completed.countDown();
+        }
+
+        /** Wait for the build to complete and return its result. */
+        Object await() {
+            try {
+                completed.await();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        }
+    }
 }
@@ -16,13 +16,15 @@ package com.innerfunction.scffld;
 import android.content.Context;
 import android.util.Log;
 
-import java.lang.reflect.Constructor;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Lookup map of configuration proxies keyed by class name.
  * Classes without a registered proxy get an IOCProxyLookup.NullEntry entry.
+ * The lookup is safe to use from multiple threads.
  * Attached by juliangoacher on 29/03/16.
  */
 public class IOCProxyLookup {
@@ -42,19 +44,10 @@ public class IOCProxyLookup {
 
         /** Instantiate a new proxy instance. */
         public IOCProxy instantiateProxy(Context context) {
-            // First check for a constructor accepting a Context arg.
+            // Instantiate using a constructor accepting a Context arg, or otherwise a no-args
+            // constructor.
             try {
-                Constructor constructor = proxyClass.getConstructor( Context.class );
-                return (IOCProxy)constructor.newInstance( context );
-            }
-            catch(NoSuchMethodException e) {
-            }
-            catch(Exception e) {
-                Log.w( Tag, "Error instantiating proxy instance with Context", e );
-            }
-            // Otherwise try instantiating proxy with a no-args constructor.
-            try {
-                return (IOCProxy)proxyClass.newInstance();
+                return (IOCProxy)InstantiationStrategy.forClass( proxyClass ).newInstance( context );
             }
             catch(Exception e) {
                 Log.e( Tag, "Error instantiating proxy instance", e );
@@ -68,15 +61,8 @@ public class IOCProxyLookup {
          */
         public IOCProxy instantiateProxyWithValue(Object value) {
             try {
-                // Try to find a single-arg constructor accepting value as its argument.
-                Constructor<?>[] constructors = proxyClass.getConstructors();
-                Class<?> valueClass = value.getClass();
-                for( Constructor<?> constructor : constructors ) {
-                    Class<?>[] paramTypes = constructor.getParameterTypes();
-                    if( paramTypes.length == 1 && paramTypes[0].isAssignableFrom( valueClass ) ) {
-                        return (IOCProxy)constructor.newInstance( value );
-                    }
-                }
+                // Use a single-arg constructor accepting value as its argument.
+                return (IOCProxy)InstantiationStrategy.forClass( proxyClass ).newInstanceWithValue( value );
             }
             catch(Exception e) {
                 Log.e( Tag, "Error instantiating proxy instance", e );
@@ -92,22 +78,73 @@ public class IOCProxyLookup {
 
     /**
      * The lookup map
-     * Maps the class name of the object being proxied to the proxy class.
+     * Maps the class name of the object being proxied to the proxy class. The map is copy-on-write
+     * and is replaced with a new immutable map on each registration, so reads don't need to lock.
      */
-    static final Map<String,Entry> Proxies = new HashMap<>();
+    static volatile Map<String,Entry> Proxies = Collections.emptyMap();
+
+    /**
+     * A memoized lookup result, stamped with the registration generation it was resolved under.
+     */
+    static class Resolved {
+        /** The resolved entry. */
+        final Entry entry;
+        /** The registration generation the entry was resolved under. */
+        final int generation;
+
+        Resolved(Entry entry, int generation) {
+            this.entry = entry;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The registration generation; incremented each time a proxy class is registered.
+     * Written after Proxies, so a resolver which reads the current generation also sees the
+     * registrations made up to it.
+     */
+    static volatile int Generation;
+
+    /**
+     * Memoized lookup results, keyed by class name.
+     * Records the proxy resolved for each class looked up, and for each of its superclasses; or
+     * NullEntry if no proxy is available. Discarded whenever a new proxy class is registered.
+     * A resolve can race with a registration and memoize its result after the map is cleared, so
+     * results are stamped with the generation they were resolved under, and results from an
+     * earlier generation are ignored and dropped.
+     */
+    static final ConcurrentHashMap<String,Resolved> ResolvedProxies = new ConcurrentHashMap<>();
+
+    /**
+     * An immutable snapshot of the registered and resolved proxies; null if no snapshot has been
+     * taken since the last registration.
+     */
+    static volatile Map<String,Entry> Snapshot;
 
     /**
      * Register a new proxy class.
      * @param proxyClass        The proxy class.
      * @param proxiedClassName  The classname of the object being proxied.
      */
-    public static void registerProxyClass(Class proxyClass, String proxiedClassName) {
+    public static synchronized void registerProxyClass(Class proxyClass, String proxiedClassName) {
+        if( proxiedClassName == null ) {
+            // Anonymous and local classes have no canonical name, and so can't be proxied.
+            Log.w( Tag, String.format("Can't register proxy %s for a class with no canonical name", proxyClass ) );
+            return;
+        }
+        Map<String,Entry> proxies = new HashMap<>( Proxies );
         if( proxyClass == null ) {
-            Proxies.put( proxiedClassName, NullEntry );
+            proxies.put( proxiedClassName, NullEntry );
         }
         else {
-            Proxies.put( proxiedClassName, new Entry( proxyClass ) );
+            proxies.put( proxiedClassName, new Entry( proxyClass ) );
         }
+        Proxies = Collections.unmodifiableMap( proxies );
+        Snapshot = null;
+        // Discard memoized results; the new registration may change how classes resolve. Any
+        // result still being resolved under the previous generation is dropped when memoized.
+        Generation++;
+        ResolvedProxies.clear();
     }
 
     /**
@@ -119,6 +156,25 @@ public class IOCProxyLookup {
         registerProxyClass( proxyClass, proxiedClass.getCanonicalName() );
     }
 
+    /**
+     * Take an immutable snapshot of the registered and resolved proxies.
+     * Intended to be called once startup is complete; lookups of classes resolved by then are
+     * read from the snapshot. Classes not in the snapshot are still resolved and memoized as
+     * normal.
+     */
+    public static synchronized void takeSnapshot() {
+        Map<String,Entry> snapshot = new HashMap<>();
+        int generation = Generation;
+        for( Map.Entry<String,Resolved> resolved : ResolvedProxies.entrySet() ) {
+            Resolved value = resolved.getValue();
+            if( value.generation == generation ) {
+                snapshot.put( resolved.getKey(), value.entry );
+            }
+        }
+        snapshot.putAll( Proxies );
+        Snapshot = Collections.unmodifiableMap( snapshot );
+    }
+
     /**
      * Lookup the proxy for an object's class.
      * @param object    An object.
@@ -138,9 +194,19 @@ public class IOCProxyLookup {
      * the object's class.
      */
     static Entry lookupConfigurationProxyForClassName(String className) {
+        if( className == null ) {
+            return null;
+        }
+        // Check for a registered or previously resolved result before loading the class.
+        int generation = Generation;
+        Entry entry = findEntry( className, generation );
+        if( entry != null ) {
+            return entry == NullEntry ? null : entry;
+        }
         try {
             Class objClass = Class.forName( className );
-            return lookupConfigurationProxy( objClass, className );
+            entry = resolveConfigurationProxy( objClass, className, generation );
+            return entry == NullEntry ? null : entry;
         }
         catch(ClassNotFoundException e) {
             Log.w( Tag, String.format("Class not found: %s", className ) );
@@ -156,31 +222,74 @@ public class IOCProxyLookup {
      * the object's class.
      */
     static Entry lookupConfigurationProxy(Class objClass, String className) {
-        // First check for an entry under the current object's specific class name.
-        Entry entry = Proxies.get( className );
-        if( entry != null ) {
-            // NullEntry at this stage indicates no proxy available for the specific object class.
-            return entry == NullEntry ? null : entry;
+        Entry entry = resolveConfigurationProxy( objClass, className, Generation );
+        // NullEntry indicates no proxy available for the object class.
+        return entry == NullEntry ? null : entry;
+    }
+
+    /**
+     * Resolve the proxy entry for a class.
+     * Checks for an entry under the class' specific name and otherwise resolves the closest
+     * superclass proxy, memoizing the result for the class and each superclass visited.
+     * @param generation    The registration generation read before the resolve started.
+     * @return The resolved entry, or NullEntry if no proxy is available.
+     */
+    private static Entry resolveConfigurationProxy(Class objClass, String className, int generation) {
+        // Note that the canonical name is null for anonymous and local classes; these are
+        // resolved without memoization.
+        Entry entry = findEntry( className, generation );
+        if( entry == null ) {
+            // No entry found for the specific class, resolve the closest superclass proxy.
+            Class superclass = objClass.getSuperclass();
+            entry = superclass != null ? resolveConfigurationProxy( superclass, superclass.getCanonicalName(), generation ) : NullEntry;
+            if( className != null ) {
+                memoize( className, entry, generation );
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Memoize a resolved entry. The entry is dropped if a proxy class has been registered since
+     * the resolve started, as the result may no longer be valid.
+     */
+    private static void memoize(String className, Entry entry, int generation) {
+        if( generation != Generation ) {
+            return;
+        }
+        Resolved resolved = new Resolved( entry, generation );
+        ResolvedProxies.put( className, resolved );
+        // Check again in case a registration cleared the map before the put; remove only this
+        // stale result, not one memoized under the new generation.
+        if( generation != Generation ) {
+            ResolvedProxies.remove( className, resolved );
+        }
+    }
+
+    /**
+     * Find the registered or memoized entry for a class name; returns null if not found, or if the
+     * class name is null (i.e. for anonymous and local classes). Memoized entries from a generation
+     * other than the specified generation are ignored.
+     */
+    private static Entry findEntry(String className, int generation) {
+        if( className == null ) {
+            return null;
         }
-        // No entry found for the specific class, search for the closest superclass proxy.
-        String specificClassName = className;
-        objClass = objClass.getSuperclass();
-        while( objClass != null ) {
-            className = objClass.getCanonicalName();
-            entry = Proxies.get( className );
+        Map<String,Entry> snapshot = Snapshot;
+        if( snapshot != null ) {
+            Entry entry = snapshot.get( className );
             if( entry != null ) {
-                // Proxy found, record the same proxy for the specific class and return the result.
-                Proxies.put( specificClassName, entry );
-                return entry == NullEntry ? null : entry;
+                return entry;
             }
-            // Nothing found yet, continue to the next superclass.
-            objClass = objClass.getSuperclass();
         }
-        // If we get to here then there is no registered proxy available for the object's class or
-        // any of its superclasses; register an NullEntry in the map so that future lookups can
-        // complete quicker.
-        Proxies.put( specificClassName, NullEntry );
-        return null;
+        Entry entry = Proxies.get( className );
+        if( entry == null ) {
+            Resolved resolved = ResolvedProxies.get( className );
+            if( resolved != null && resolved.generation == generation ) {
+                entry = resolved.entry;
+            }
+        }
+        return entry;
     }
 
     /**
@@ -0,0 +1,146 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+import android.content.Context;
+
+import com.innerfunction.util.ClassCache;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A strategy for instantiating a class.
+ * Records which of the constructor forms supported by the container a class provides, so that
+ * instances can be created by calling the resolved constructor directly, without repeating
+ * constructor lookups or handling the exceptions thrown by failed lookups. Strategies are
+ * resolved once per class and cached.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+class InstantiationStrategy {
+
+    /** A cache of instantiation strategies by class. */
+    static final ClassCache<InstantiationStrategy> StrategiesByClass = new ClassCache<InstantiationStrategy>() {
+        @Override
+        protected InstantiationStrategy computeValue(Class<?> clss) {
+            return new InstantiationStrategy( clss );
+        }
+    };
+
+    /** A placeholder recording that a class has no constructor for a value type. */
+    static final Object NoConstructor = new Object();
+
+    /** The class being instantiated. */
+    private final Class<?> clss;
+    /** The class' public constructor taking a single Context argument; or null. */
+    private final Constructor<?> contextConstructor;
+    /** The class' public constructor taking a single Configuration argument; or null. */
+    private final Constructor<?> configurationConstructor;
+    /** The class' public no-args constructor; or null. */
+    private final Constructor<?> noArgsConstructor;
+    /** Single argument constructors, keyed by the class of the value passed to them. */
+    private final ConcurrentHashMap<Class<?>,Object> valueConstructors = new ConcurrentHashMap<>();
+
+    private InstantiationStrategy(Class<?> clss) {
+        this.clss = clss;
+        Constructor<?> contextConstructor = null;
+        Constructor<?> configurationConstructor = null;
+        Constructor<?> noArgsConstructor = null;
+        for( Constructor<?> constructor : clss.getConstructors() ) {
+            Class<?>[] paramTypes = constructor.getParameterTypes();
+            if( paramTypes.length == 0 ) {
+                noArgsConstructor = constructor;
+            }
+            else if( paramTypes.length == 1 ) {
+                if( paramTypes[0] == Context.class ) {
+                    contextConstructor = constructor;
+                }
+                else if( paramTypes[0] == Configuration.class ) {
+                    configurationConstructor = constructor;
+                }
+            }
+        }
+        this.contextConstructor = contextConstructor;
+        this.configurationConstructor = configurationConstructor;
+        this.noArgsConstructor = noArgsConstructor;
+    }
+
+    /** Get the instantiation strategy for a class. */
+    static InstantiationStrategy forClass(Class<?> clss) {
+        return StrategiesByClass.get( clss );
+    }
+
+    /**
+     * Create a new instance of the class.
+     * Uses, in order of preference, the class' Context, Configuration or no-args constructor.
+     * @param context       An Android context.
+     * @param configuration The instance's configuration.
+     * @throws InstantiationException If the class has none of the supported constructors, or is
+     * abstract.
+     */
+    Object newInstance(Context context, Configuration configuration) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if( contextConstructor != null ) {
+            return contextConstructor.newInstance( context );
+        }
+        if( configurationConstructor != null ) {
+            return configurationConstructor.newInstance( configuration );
+        }
+        if( noArgsConstructor != null ) {
+            return noArgsConstructor.newInstance();
+        }
+        throw new InstantiationException( String.format("No supported constructor found for %s", clss.getName() ) );
+    }
+
+    /**
+     * Create a new instance of the class.
+     * Uses, in order of preference, the class' Context or no-args constructor.
+     * @param context       An Android context.
+     */
+    Object newInstance(Context context) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if( contextConstructor != null ) {
+            return contextConstructor.newInstance( context );
+        }
+        if( noArgsConstructor != null ) {
+            return noArgsConstructor.newInstance();
+        }
+        throw new InstantiationException( String.format("No supported constructor found for %s", clss.getName() ) );
+    }
+
+    /**
+     * Create a new instance of the class using a single argument constructor accepting a value.
+     * @param value The constructor argument.
+     * @return A new instance, or null if the class has no constructor accepting the value.
+     */
+    Object newInstanceWithValue(Object value) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        Class<?> valueClass = value.getClass();
+        Object constructor = valueConstructors.get( valueClass );
+        if( constructor == null ) {
+            constructor = NoConstructor;
+            for( Constructor<?> candidate : clss.getConstructors() ) {
+                Class<?>[] paramTypes = candidate.getParameterTypes();
+                if( paramTypes.length == 1 && paramTypes[0].isAssignableFrom( valueClass ) ) {
+                    constructor = candidate;
+                    break;
+                }
+            }
+            valueConstructors.put( valueClass, constructor );
+        }
+        if( constructor == NoConstructor ) {
+            return null;
+        }
+        return ((Constructor<?>)constructor).newInstance( value );
+    }
+}
@@ -15,18 +15,23 @@ package com.innerfunction.scffld;
 
 import android.graphics.drawable.Drawable;
 import android.util.Log;
-import android.util.LruCache;
 
+import com.innerfunction.scffld.Configuration.Representation;
+import com.innerfunction.util.ClassCache;
 import com.innerfunction.util.Property;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A class responsible for object configuration.
@@ -44,9 +49,11 @@ public class ObjectConfigurer {
     /** The container's properties. */
     private Properties containerProperties;
     /** Internal metrics: Number of properties (objects and primitives) configured. */
-    private int configuredPropertyCount = 0;
+    private AtomicInteger configuredPropertyCount = new AtomicInteger();
     /** Internal metrics: Number of objects (i.e non-primitives) configured. */
-    private int configuredObjectCount = 1;
+    private AtomicInteger configuredObjectCount = new AtomicInteger();
+    /** An optional configuration listener. */
+    private volatile ConfigurationListener listener;
 
     /**
      * Initialize a configurer with its container.
@@ -57,6 +64,14 @@ public class ObjectConfigurer {
         this.containerProperties = new ContainerProperties( container );
     }
 
+    public void setListener(ConfigurationListener listener) {
+        this.listener = listener;
+    }
+
+    public ConfigurationListener getListener() {
+        return listener;
+    }
+
     /** Perform the container configuration. */
     public void configureWith(Configuration configuration) {
         configure( container, null, configuration, "" );
@@ -85,6 +100,23 @@ public class ObjectConfigurer {
      *                      being configured. Used for logging purposes.
      */
     public void configure(Object object, Class<?> memberType, Configuration configuration, String kpPrefix) {
+        configure( object, memberType, configuration, kpPrefix, 0 );
+    }
+
+    /**
+     * Configure an object.
+     * @param object            The object to configure.
+     * @param memberType        Default type for collection members. Can be null for non-collections.
+     * @param configuration     The object configuration.
+     * @param kpPrefix          Key path prefix, i.e. the key path within the container to the
+     *                          object being configured. Used for logging purposes.
+     * @param instantiationTime The time, in nanoseconds, spent instantiating the object; reported
+     *                          to the configuration listener, if any.
+     */
+    public void configure(Object object, Class<?> memberType, Configuration configuration, String kpPrefix, long instantiationTime) {
+        ConfigurationListener listener = this.listener;
+        long start = listener != null ? System.nanoTime() : 0;
+        int propertyCount = 0;
         // Start the object configuration.
         if( object instanceof IOCConfigurationAware ) {
             ((IOCConfigurationAware)object).beforeIOCConfigure( configuration );
@@ -96,33 +128,93 @@ public class ObjectConfigurer {
         else {
             // Resolve a property set for the object about to be configured.
             Properties properties = getObjectProperties( object, memberType );
-            // Iterate over the each property named in the configuration and try building and then
-            // injecting a property value into the object being configured.
-            for( String name : configuration.getValueNames() ) {
-                String propName = normalizePropertyName( name ); // Check for reserved names.
-                if( propName != null ) {
-                    // Build a property value from the configuration.
-                    Object value = buildPropertyValue( propName, properties, configuration, kpPrefix );
-                    // If property value then inject into the object property.
-                    if( value != null ) {
-                        injectPropertyValue( propName, properties, value );
+            List<String> names = configuration.getValueNames();
+            if( properties.getClass() == ObjectProperties.class ) {
+                // Execute the configuration plan for the object's class and the configuration's
+                // shape.
+                ConfigurationPlan plan = getConfigurationPlan( object.getClass(), names, properties );
+                for( ConfigurationPlan.Step step : plan.steps ) {
+                    configureProperty( step.propName, step.propType, step.reader, properties, configuration, kpPrefix );
+                }
+                propertyCount = plan.propertyCount;
+            }
+            else {
+                // Iterate over the each property named in the configuration and try building and
+                // then injecting a property value into the object being configured.
+                for( String name : names ) {
+                    String propName = normalizePropertyName( name ); // Check for reserved names.
+                    if( propName != null ) {
+                        // If no property type info then can't process the property any further.
+                        Class<?> propType = properties.getPropertyType( propName );
+                        if( propType != null ) {
+                            configureProperty( propName, propType, ValueReader.forType( propType ), properties, configuration, kpPrefix );
+                        }
+                        propertyCount++;
                     }
-                    configuredPropertyCount++;
                 }
             }
         }
-        configuredObjectCount++;
+        configuredPropertyCount.addAndGet( propertyCount );
+        configuredObjectCount.incrementAndGet();
         // Post configuration.
         if( object instanceof IOCConfigurationAware ) {
             Object objectKey = new ObjectKey( object );
-            if( container.hasPendingValueRefsForObjectKey( objectKey ) ) {
-                container.recordPendingValueObjectConfiguration( objectKey, configuration );
-            }
-            else {
+            if( !container.recordPendingValueObjectConfiguration( objectKey, configuration ) ) {
                 ((IOCConfigurationAware)object).afterIOCConfigure( configuration );
             }
         }
         container.doPostConfiguration( object );
+        if( listener != null ) {
+            long configurationTime = System.nanoTime() - start;
+            listener.onObjectConfigured( new ConfigurationListener.ObjectEvent( kpPrefix, object.getClass(), instantiationTime, configurationTime, propertyCount ) );
+        }
+    }
+
+    /** Timings for the configuration of a property; see ConfigurationListener.PropertyEvent. */
+    static class PropertyTimings {
+        long dereferenceTime;
+        long conversionTime;
+        long buildTime;
+    }
+
+    /**
+     * Configure a property of an object.
+     * Builds the property value from its configuration and then injects it into the object.
+     * @param propName      The name of the property being configured.
+     * @param propType      The property's type.
+     * @param reader        A reader for the property's standard type; or null if the property
+     *                      isn't of a standard type.
+     * @param properties    The set of properties of the object being configured.
+     * @param configuration The object configuration.
+     * @param kpPrefix      The key path of the object being configured.
+     */
+    private void configureProperty(String propName, Class<?> propType, ValueReader reader, Properties properties, Configuration configuration, String kpPrefix) {
+        ConfigurationListener listener = this.listener;
+        if( listener == null ) {
+            Object value = buildPropertyValue( propName, propType, reader, properties, configuration, kpPrefix, null );
+            if( value != null ) {
+                injectPropertyValue( propName, propType, properties, value );
+            }
+            return;
+        }
+        PropertyTimings timings = new PropertyTimings();
+        long start = System.nanoTime();
+        Object value = buildPropertyValue( propName, propType, reader, properties, configuration, kpPrefix, timings );
+        long injectionStart = System.nanoTime();
+        if( value != null ) {
+            injectPropertyValue( propName, propType, properties, value );
+        }
+        long end = System.nanoTime();
+        listener.onPropertyConfigured( new ConfigurationListener.PropertyEvent(
+            getKeyPath( kpPrefix, propName ),
+            properties.getPropertyOwner().getClass(),
+            propName,
+            value != null ? value.getClass() : null,
+            timings.dereferenceTime,
+            timings.conversionTime,
+            timings.buildTime,
+            end - injectionStart,
+            end - start ) );
     }
 
     /**
@@ -136,56 +228,51 @@ public class ObjectConfigurer {
      * @return The property value built from the configuration, or null if no value can be resolved.
      */
     private Object buildPropertyValue(String propName, Properties properties, Configuration configuration, String kpPrefix) {
-        Object value = null;
-
         Class<?> propType = properties.getPropertyType( propName );
         // If no property type info then can't process any further, return empty handed.
         if( propType == null ) {
             return null;
         }
+        return buildPropertyValue( propName, propType, ValueReader.forType( propType ), properties, configuration, kpPrefix, null );
+    }
+
+    /**
+     * Try to build a property value from its configuration.
+     * @param propName      The name of the property being built.
+     * @param propType      The property's type.
+     * @param reader        A reader for the property's standard type; or null if the property
+     *                      isn't of a standard type.
+     * @param properties    The set of properties of the object being configured.
+     * @param configuration The object configuration.
+     * @param kpPrefix      The key path of the object being configured.
+     * @param timings       Records where time was spent building the value; null if timings
+     *                      aren't needed.
+     * @return The property value built from the configuration, or null if no value can be resolved.
+     */
+    private Object buildPropertyValue(String propName, Class<?> propType, ValueReader reader, Properties properties, Configuration configuration, String kpPrefix, PropertyTimings timings) {
+        Object value = null;
+        long time = timings != null ? System.nanoTime() : 0;
 
         // First, check to see if the property belongs to one of the standard types used to
         // represent primitive configurable values. These values are different to other
         // non-primitive types, in that (1) it's generally possible to convert values between them,
         // and (2) the code won't recursively perform any additional configuration on the values.
-        switch( getStandardTypeForClass( propType ) ) {
-        case Boolean:
-            value = configuration.getValueAsBoolean( propName );
-            break;
-        case Number:
-            Number number = configuration.getValueAsNumber( propName );
-            if( propType == int.class || propType == Integer.class ) {
-                value = number.intValue();
-            }
-            else if( propType == float.class || propType == Float.class ) {
-                value = number.floatValue();
-            }
-            else if( propType == double.class || propType == Double.class ) {
-                value = number.doubleValue();
+        if( reader != null ) {
+            if( timings != null ) {
+                // Resolve and convert the value as separate steps, so that the time spent
+                // dereferencing URI values is recorded apart from the type conversion.
+                Object resolved = configuration.resolveValue( propName, reader.representation );
+                long now = System.nanoTime();
+                timings.dereferenceTime = now - time;
+                time = now;
+                value = reader.convert( configuration, resolved );
+                now = System.nanoTime();
+                timings.conversionTime = now - time;
+                time = now;
             }
             else {
-                value = number;
+                value = reader.read( configuration, propName );
             }
-            break;
-        case String:
-            value = configuration.getValueAsString( propName );
-            break;
-        case Date:
-            value = configuration.getValueAsDate( propName );
-            break;
-        case Drawable:
-            value = configuration.getValueAsImage( propName );
-            break;
-        case Configuration:
-            value = configuration.getValueAsConfiguration( propName );
-            break;
-        case JSONData:
-            // Properties which require raw JSON should be declared using the JSONObject
-            // or JSONArray types, as appropriate. This is intended as an optimization -
-            // particularly when initializing a property with a large-ish data set - as
-            // the configurer will not attempt to further process the configuration data.
-            value = configuration.getValueAsJSONData( propName );
-            break;
         }
 
         // If value is still nil then the property is not a primitive or JSON data type. Try to
@@ -207,6 +294,11 @@ public class ObjectConfigurer {
             Object rawValue = configuration.getRawValue( propName );
             // Try converting the raw value to a configuration object.
             Configuration valueConfig = configuration.asConfiguration( rawValue );
+            if( timings != null ) {
+                long now = System.nanoTime();
+                timings.dereferenceTime += now - time;
+                time = now;
+            }
             // If this works the try using it to resolve an actual property value.
             if( valueConfig != null ) {
                 // Try asking the container to build a new object using the configuration. This
@@ -214,6 +306,7 @@ public class ObjectConfigurer {
                 // -factory etc.) and will return a non-null, fully-configured object if successful.
                 value = container.buildObjectWithConfiguration( valueConfig, getKeyPath( kpPrefix, propName ), true );
                 if( value == null ) {
+                    long instantiationTime = 0;
                     // Couldn't build a value, so see if the object already has a value in-place.
                     value = properties.getPropertyValue( propName );
                     if( value != null ) {
@@ -226,12 +319,16 @@ public class ObjectConfigurer {
                         // (Note that the container method will return a configuration proxy for
                         // those classes which require one.)
                         String className = propType.getName();
+                        long instantiationStart = timings != null ? System.nanoTime() : 0;
                         try {
                             value = container.newInstanceForClassNameAndConfiguration( className, valueConfig );
                         }
                         catch(Exception e) {
                             Log.e( Tag, String.format("Error creating new instance of inferred type %s", className ), e );
                         }
+                        if( timings != null ) {
+                            instantiationTime = System.nanoTime() - instantiationStart;
+                        }
                     }
                     // If we now have either an in-place or inferred type value by this point, then
                     // continue by configuring the object with its configuration.
@@ -248,9 +345,12 @@ public class ObjectConfigurer {
                             memberType = properties.getMapPropertyValueTypeParameter( propName );
                         }
                         // Recursively configure the value.
-                        configure( value, memberType, valueConfig, getKeyPath( kpPrefix, propName ) );
+                        configure( value, memberType, valueConfig, getKeyPath( kpPrefix, propName ), instantiationTime );
                     }
                 }
+                if( timings != null ) {
+                    timings.buildTime = System.nanoTime() - time;
+                }
             }
             if( value == null ) {
                 // If still no value at this point then the config either contains a realised value,
@@ -271,6 +371,18 @@ public class ObjectConfigurer {
      * @return Returns the value injected into the object property.
      */
     public Object injectPropertyValue(String propName, Properties properties, Object value) {
+        return injectPropertyValue( propName, properties.getPropertyType( propName ), properties, value );
+    }
+
+    /**
+     * Inject a value into an object property.
+     * @param propName      The name of the property being configured.
+     * @param propType      The property's type; or null if the property has no type information.
+     * @param properties    Information about the properties of the object being configured.
+     * @param value         The value to inject.
+     * @return Returns the value injected into the object property.
+     */
+    private Object injectPropertyValue(String propName, Class<?> propType, Properties properties, Object value) {
         Object object = properties.getPropertyOwner();
         // Notify object aware values that they are about to be injected into the object under the
         // current property name.
@@ -289,17 +401,21 @@ public class ObjectConfigurer {
         if( value instanceof PendingNamed ) {
             // Record the current property and object info, but skip further processing. The
             // property value will be set once the named reference is fully configured, see
-            // Container.buildNamedObject()
+            // Container.buildNamedObject(). The named may have been built on another thread
+            // since the pending was created, in which case its value is injected now.
             PendingNamed pending = (PendingNamed)value;
-            pending.setKey( propName );
-            pending.setConfigurationContext( properties, this );
-            container.incPendingValueRefCountForPendingObject( pending );
+            synchronized( pending ) {
+                if( pending.setConfigurationContext( propName, properties, this ) ) {
+                    container.incPendingValueRefCountForPendingObject( pending );
+                    return pending;
+                }
+            }
+            return injectPropertyValue( propName, propType, properties, pending.getValue() );
         }
         else if( value != null ) {
             // Set the object property. Note that the Property instance returned by
             // getPropertyInfo() also handles setting of member items when object is a
             // collection.
-            Class<?> propType = properties.getPropertyType( propName );
             if( propType != null ) {
                 boolean isAssignableBoolean = (propType == boolean.class);
                 boolean isAssignableNumeric = false;
@@ -338,7 +454,7 @@ public class ObjectConfigurer {
      * Normalize a property name by removing any -and: prefix.
      * Returns null for reserved names (e.g. -type etc.)
      */
-    private String normalizePropertyName(String propName) {
+    private static String normalizePropertyName(String propName) {
         if( propName.charAt( 0 ) == '-' ) {
             if( propName.startsWith("-and:") ) {
                 // Strip -and prefix from names
@@ -369,7 +485,12 @@ public class ObjectConfigurer {
      * A cache of classes to standard types.
      * Used to cache the results of getStandardTypeForClass(..).
      */
-    static final LruCache<Class,StandardTypes> StandardTypesByClass = new LruCache<>( 50 );
+    static final ClassCache<StandardTypes> StandardTypesByClass = new ClassCache<StandardTypes>() {
+        @Override
+        protected StandardTypes computeValue(Class<?> clss) {
+            return readStandardTypeForClass( clss );
+        }
+    };
 
     /** Enumeration of standard configuration types. */
     public enum StandardTypes { Boolean, Number, String, Date, Drawable, Configuration, JSONData, Other };
@@ -385,51 +506,241 @@ public class ObjectConfigurer {
      * readability.
      */
     static final StandardTypes getStandardTypeForClass(Class<?> clss) {
-        StandardTypes stdType = StandardTypesByClass.get( clss );
-        if( stdType == null ) {
-            if( clss == Object.class ) {
-                stdType = StandardTypes.Other;
-            }
-            else if( clss == boolean.class || clss.isAssignableFrom( Boolean.class ) ) {
-                stdType = StandardTypes.Boolean;
+        return StandardTypesByClass.get( clss );
+    }
+
+    /** Resolve the standard type value for a class. */
+    private static StandardTypes readStandardTypeForClass(Class<?> clss) {
+        if( clss == Object.class ) {
+            return StandardTypes.Other;
+        }
+        if( clss == boolean.class || clss.isAssignableFrom( Boolean.class ) ) {
+            return StandardTypes.Boolean;
+        }
+        if( Number.class.isAssignableFrom( clss )
+            || clss == int.class
+            || clss == double.class
+            || clss == float.class) {
+            return StandardTypes.Number;
+        }
+        if( clss.isAssignableFrom( String.class ) ) {
+            return StandardTypes.String;
+        }
+        if( clss.isAssignableFrom( Date.class ) ) {
+            return StandardTypes.Date;
+        }
+        if( clss.isAssignableFrom( Drawable.class ) ) {
+            return StandardTypes.Drawable;
+        }
+        if( clss.isAssignableFrom( Configuration.class ) ) {
+            return StandardTypes.Configuration;
+        }
+        if( clss == JSONObject.class || clss == JSONArray.class ) {
+            return StandardTypes.JSONData;
+        }
+        return StandardTypes.Other;
+    }
+
+    /**
+     * Preload the configuration metadata for a class.
+     * Reads the class' configurable properties and resolves the standard type of each property,
+     * so that the first configuration of an instance of the class doesn't have to.
+     */
+    public static void preloadClassMetadata(Class<?> clss) {
+        for( Property property : Property.getPropertiesForClass( clss ).values() ) {
+            getStandardTypeForClass( property.getType() );
+        }
+    }
+
+    /**
+     * A reader for values of a standard configuration type.
+     * Reads a configuration value in the representation required by a property's type.
+     */
+    enum ValueReader {
+        BooleanValue( Representation.Boolean ) {
+            @Override
+            Object convert(Configuration configuration, Object value) {
+                Boolean bool = (Boolean)configuration.convertValueAs( value, representation );
+                return bool != null ? bool : Boolean.FALSE;
             }
-            else if( Number.class.isAssignableFrom( clss )
-                || clss == int.class
-                || clss == double.class
-                || clss == float.class) {
-                stdType = StandardTypes.Number;
+        },
+        IntValue( Representation.Number ) {
+            @Override
+            Object convert(Configuration configuration, Object value) {
+                Number number = (Number)configuration.convertValueAs( value, representation );
+                return number != null ? number.intValue() : null;
             }
-            else if( clss.isAssignableFrom( String.class ) ) {
-                stdType = StandardTypes.String;
+        },
+        FloatValue( Representation.Number ) {
+            @Override
+            Object convert(Configuration configuration, Object value) {
+                Number number = (Number)configuration.convertValueAs( value, representation );
+                return number != null ? number.floatValue() : null;
             }
-            else if( clss.isAssignableFrom( Date.class ) ) {
-                stdType = StandardTypes.Date;
+        },
+        DoubleValue( Representation.Number ) {
+            @Override
+            Object convert(Configuration configuration, Object value) {
+                Number number = (Number)configuration.convertValueAs( value, representation );
+                return number != null ? number.doubleValue() : null;
             }
-            else if( clss.isAssignableFrom( Drawable.class ) ) {
-                stdType = StandardTypes.Drawable;
+        },
+        NumberValue( Representation.Number ),
+        StringValue( Representation.String ),
+        DateValue( Representation.Date ),
+        DrawableValue( Representation.Image ),
+        ConfigurationValue( Representation.Configuration ) {
+            @Override
+            Object convert(Configuration configuration, Object value) {
+                Configuration valueConfig = (Configuration)configuration.convertValueAs( value, representation );
+                return valueConfig != null ? valueConfig.normalize() : null;
             }
-            else if( clss.isAssignableFrom( Configuration.class ) ) {
-                stdType = StandardTypes.Configuration;
+        },
+        // Properties which require raw JSON should be declared using the JSONObject
+        // or JSONArray types, as appropriate. This is intended as an optimization -
+        // particularly when initializing a property with a large-ish data set - as
+        // the configurer will not attempt to further process the configuration data.
+        JSONDataValue( Representation.JSONData );
+
+        /** The configuration representation the reader reads values in. */
+        final Representation representation;
+
+        ValueReader(Representation representation) {
+            this.representation = representation;
+        }
+
+        /** Read a property value from a configuration. */
+        Object read(Configuration configuration, String propName) {
+            return convert( configuration, configuration.resolveValue( propName, representation ) );
+        }
+
+        /**
+         * Convert a resolved configuration value to the property's representation.
+         * @param configuration The configuration the value was resolved from.
+         * @param value         The resolved value; see Configuration.resolveValue().
+         */
+        Object convert(Configuration configuration, Object value) {
+            return configuration.convertValueAs( value, representation );
+        }
+
+        /** Get the reader for a property type; returns null if the type isn't a standard type. */
+        static ValueReader forType(Class<?> propType) {
+            switch( getStandardTypeForClass( propType ) ) {
+            case Boolean:
+                return BooleanValue;
+            case Number:
+                if( propType == int.class || propType == Integer.class ) {
+                    return IntValue;
+                }
+                if( propType == float.class || propType == Float.class ) {
+                    return FloatValue;
+                }
+                if( propType == double.class || propType == Double.class ) {
+                    return DoubleValue;
+                }
+                return NumberValue;
+            case String:
+                return StringValue;
+            case Date:
+                return DateValue;
+            case Drawable:
+                return DrawableValue;
+            case Configuration:
+                return ConfigurationValue;
+            case JSONData:
+                return JSONDataValue;
+            default:
+                return null;
             }
-            else if( clss == JSONObject.class || clss == JSONArray.class ) {
-                stdType = StandardTypes.JSONData;
+        }
+    }
+
+    /**
+     * A plan for configuring instances of a class.
+     * A plan is compiled for a class and a configuration shape (i.e. the list of the
+     * configuration's value names), and records the properties to configure, together with each
+     * property's type and value reader. Configuring further objects of the same class with
+     * configurations of the same shape then executes the plan, without having to resolve the
+     * names, types and conversions of each property again.
+     */
+    static class ConfigurationPlan {
+
+        /** A configuration step, i.e. a property to be configured. */
+        static class Step {
+            /** The property name. */
+            final String propName;
+            /** The property type. */
+            final Class<?> propType;
+            /** The property's value reader; null for non-standard types. */
+            final ValueReader reader;
+
+            Step(String propName, Class<?> propType) {
+                this.propName = propName;
+                this.propType = propType;
+                this.reader = ValueReader.forType( propType );
             }
-            else {
-                stdType = StandardTypes.Other;
+        }
+
+        /** The configuration steps, one for each configurable property named in the configuration. */
+        final Step[] steps;
+        /** The number of non-reserved names in the configuration; used for metrics. */
+        final int propertyCount;
+
+        ConfigurationPlan(List<String> names, Properties properties) {
+            List<Step> steps = new ArrayList<>( names.size() );
+            int propertyCount = 0;
+            for( String name : names ) {
+                String propName = normalizePropertyName( name );
+                if( propName != null ) {
+                    Class<?> propType = properties.getPropertyType( propName );
+                    if( propType != null ) {
+                        steps.add( new Step( propName, propType ) );
+                    }
+                    propertyCount++;
+                }
             }
-            synchronized( StandardTypesByClass ) {
-                StandardTypesByClass.put( clss, stdType );
+            this.steps = steps.toArray( new Step[steps.size()] );
+            this.propertyCount = propertyCount;
+        }
+    }
+
+    /** The maximum number of configuration plans cached per class. */
+    static final int MaxPlansPerClass = 16;
+
+    /** A cache of configuration plans, keyed by class and then by configuration shape. */
+    static final ClassCache<ConcurrentMap<List<String>,ConfigurationPlan>> ConfigurationPlansByClass = new ClassCache<ConcurrentMap<List<String>,ConfigurationPlan>>() {
+        @Override
+        protected ConcurrentMap<List<String>,ConfigurationPlan> computeValue(Class<?> clss) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Get a configuration plan for an object's class and a configuration shape.
+     * Plans are only cached for the first few shapes seen for each class; plans for any further
+     * shapes are compiled each time.
+     * @param objClass      The class of the object being configured.
+     * @param names         The value names of the configuration.
+     * @param properties    The properties of the object being configured.
+     */
+    static ConfigurationPlan getConfigurationPlan(Class<?> objClass, List<String> names, Properties properties) {
+        ConcurrentMap<List<String>,ConfigurationPlan> plans = ConfigurationPlansByClass.get( objClass );
+        ConfigurationPlan plan = plans.get( names );
+        if( plan == null ) {
+            plan = new ConfigurationPlan( names, properties );
+            if( plans.size() < MaxPlansPerClass ) {
+                plans.put( names, plan );
             }
         }
-        return stdType;
+        return plan;
     }
 
     public int getConfiguredPropertyCount() {
-        return configuredPropertyCount;
+        return configuredPropertyCount.get();
     }
 
     public int getConfiguredObjectCount() {
-        return configuredObjectCount;
+        return configuredObjectCount.get();
     }
 
     /**
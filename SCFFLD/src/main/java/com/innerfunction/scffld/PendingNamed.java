@@ -38,16 +38,30 @@ public class PendingNamed {
     private Properties properties;
     /** The object configurer waiting for the pending value. */
     private ObjectConfigurer configurer;
+    /** Flag indicating whether the named object's build has completed. */
+    private boolean isResolved;
+    /** The named object. */
+    private Object named;
 
     /**
      * Provide information to the pending named needed to complete the named's configuration.
-     * @param properties    Properties of the
-     * @param configurer
+     * The pending may be resolved on a different thread to the one configuring the property; if
+     * it has already been resolved then the context isn't recorded, and the caller should inject
+     * the resolved value instead.
+     * @param key           The property key.
+     * @param properties    Properties of the object the value is being injected into.
+     * @param configurer    The configurer injecting the value.
+     * @return true if the context was recorded; false if the pending is already resolved.
      */
-    public void setConfigurationContext(Properties properties, ObjectConfigurer configurer) {
+    public synchronized boolean setConfigurationContext(String key, Properties properties, ObjectConfigurer configurer) {
+        if( isResolved ) {
+            return false;
+        }
+        this.key = key;
         this.properties = properties;
         this.configurer = configurer;
         this.objectKey = new ObjectKey( properties.getPropertyOwner() );
+        return true;
     }
 
     /**
@@ -55,33 +69,57 @@ public class PendingNamed {
      * Not all pendings are used - some are discarded (e.g. when attempting to resolve a
      * configuration) and so don't need to be completed when resolved.
      */
-    public boolean hasWaitingConfigurer() {
+    public synchronized boolean hasWaitingConfigurer() {
         return configurer != null;
     }
 
-    /** Complete the pending by notifying the waiting configurer of the value result. */
-    public Object completeWithValue(Object value) {
+    /**
+     * Resolve the pending with the built named object.
+     * @return true if a configurer is waiting for the value, and the pending should be completed.
+     */
+    public synchronized boolean resolve(Object named) {
+        this.named = named;
+        this.isResolved = true;
+        return configurer != null;
+    }
+
+    /** Test whether the pending has been resolved. */
+    public synchronized boolean isResolved() {
+        return isResolved;
+    }
+
+    /** Get the resolved value of the pending. */
+    public synchronized Object getValue() {
         // If a reference path is set then use it to fully resolve the pending value on the named
         // object.
         if( referencePath != null ) {
-            value = KeyPath.resolve( referencePath, value );
+            return KeyPath.resolve( referencePath, named );
         }
-        return configurer.injectPropertyValue( key, properties, value );
+        return named;
     }
 
-    public Object getObjectKey() {
-        return objectKey;
+    /** Complete the pending by notifying the waiting configurer of the value result. */
+    public Object complete() {
+        ObjectConfigurer configurer;
+        String key;
+        Properties properties;
+        synchronized( this ) {
+            configurer = this.configurer;
+            key = this.key;
+            properties = this.properties;
+        }
+        return configurer.injectPropertyValue( key, properties, getValue() );
     }
 
-    public Object getObject() {
-        return properties.getPropertyOwner();
+    public synchronized Object getObjectKey() {
+        return objectKey;
     }
 
-    public void setKey(String key) {
-        this.key = key;
+    public synchronized Object getObject() {
+        return properties.getPropertyOwner();
     }
 
-    public void setReferencePath(String referencePath) {
+    public synchronized void setReferencePath(String referencePath) {
         this.referencePath = referencePath;
     }
 
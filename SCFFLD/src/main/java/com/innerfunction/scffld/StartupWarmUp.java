@@ -0,0 +1,164 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the classes used by a container configuration.
+ * Loading a class, looking up its configuration proxy and reading its configurable properties
+ * the first time an instance of the class is built are all relatively expensive, and happen one
+ * class at a time on the thread configuring the container. The warm-up collects the names of
+ * the classes named in the container's type map and by the -class and -and-class values of its
+ * configuration, and then loads those classes, proxies and property metadata in parallel on
+ * background threads, ahead of the configuring thread.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class StartupWarmUp {
+
+    static final String Tag = StartupWarmUp.class.getSimpleName();
+
+    /** The maximum number of warm-up threads. */
+    static final int MaxThreadCount = 4;
+
+    /** The configuration keys whose values name classes. */
+    static final String[] ClassNameKeys = { "-class", "-and-class", "-and:class" };
+
+    /** The names of classes which have already been warmed up. */
+    static final Set<String> WarmedClassNames = Collections.newSetFromMap( new ConcurrentHashMap<String,Boolean>() );
+
+    /**
+     * Start warming up the classes used by a container configuration.
+     * Class names are collected on the calling thread; classes are then warmed up in the
+     * background, and this method returns immediately.
+     * @param types         The container's type map.
+     * @param configuration The container's configuration.
+     */
+    public static void start(Configuration types, Configuration configuration) {
+        final List<String> classNames = new ArrayList<>();
+        for( String className : collectClassNames( types, configuration ) ) {
+            if( !WarmedClassNames.contains( className ) ) {
+                classNames.add( className );
+            }
+        }
+        if( classNames.isEmpty() ) {
+            return;
+        }
+        int threadCount = Math.min( MaxThreadCount, Runtime.getRuntime().availableProcessors() - 1 );
+        threadCount = Math.max( 1, Math.min( threadCount, classNames.size() ) );
+        final long start = System.currentTimeMillis();
+        // Each thread takes the next class name from the list until all names are processed.
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final AtomicInteger runningCount = new AtomicInteger( threadCount );
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority( Process.THREAD_PRIORITY_BACKGROUND );
+                int index;
+                while( (index = nextIndex.getAndIncrement()) < classNames.size() ) {
+                    warmUpClass( classNames.get( index ) );
+                }
+                if( runningCount.decrementAndGet() == 0 ) {
+                    Log.d( Tag, String.format("Warmed up %d classes in %d ms", classNames.size(), System.currentTimeMillis() - start ) );
+                }
+            }
+        };
+        for( int i = 0; i < threadCount; i++ ) {
+            Thread thread = new Thread( worker, String.format("%s-%d", Tag, i ) );
+            thread.setDaemon( true );
+            thread.start();
+        }
+    }
+
+    /**
+     * Collect the names of the classes used by a container configuration.
+     * Classes named in the configuration are listed first, in configuration order, followed by
+     * the classes named in the type map.
+     */
+    public static Set<String> collectClassNames(Configuration types, Configuration configuration) {
+        Set<String> classNames = new LinkedHashSet<>();
+        collectClassNames( configuration.getData(), classNames );
+        for( String typeName : types.getValueNames() ) {
+            String className = types.getValueAsString( typeName );
+            if( className != null ) {
+                classNames.add( className );
+            }
+        }
+        return classNames;
+    }
+
+    /** Collect class names from raw configuration data. */
+    @SuppressWarnings("rawtypes")
+    private static void collectClassNames(Object data, Set<String> classNames) {
+        if( data instanceof Configuration ) {
+            data = ((Configuration)data).getData();
+        }
+        if( data instanceof Map ) {
+            Map map = (Map)data;
+            for( String key : ClassNameKeys ) {
+                Object className = map.get( key );
+                if( className instanceof String ) {
+                    classNames.add( (String)className );
+                }
+            }
+            for( Object value : map.values() ) {
+                collectClassNames( value, classNames );
+            }
+        }
+        else if( data instanceof List ) {
+            for( Object item : (List)data ) {
+                collectClassNames( item, classNames );
+            }
+        }
+    }
+
+    /**
+     * Warm up a class.
+     * Loads the class, looks up its configuration proxy and resolves the constructor and the
+     * configurable properties of the class or its proxy. The class isn't initialized, so its
+     * static initializers still run on the configuring thread, when the class is first used.
+     */
+    static void warmUpClass(String className) {
+        if( !WarmedClassNames.add( className ) ) {
+            return;
+        }
+        try {
+            Class<?> clss = Class.forName( className, false, StartupWarmUp.class.getClassLoader() );
+            IOCProxyLookup.Entry proxyEntry = IOCProxyLookup.lookupConfigurationProxy( clss, className );
+            Class<?> configuredClass = proxyEntry != null ? proxyEntry.proxyClass : clss;
+            InstantiationStrategy.forClass( configuredClass );
+            ObjectConfigurer.preloadClassMetadata( configuredClass );
+        }
+        catch(ClassNotFoundException e) {
+            // Reported when the class is instantiated.
+        }
+        catch(LinkageError e) {
+            Log.w( Tag, String.format("Warming up class %s", className ), e );
+        }
+        catch(RuntimeException e) {
+            Log.w( Tag, String.format("Warming up class %s", className ), e );
+        }
+    }
+}
@@ -45,6 +45,7 @@ import com.innerfunction.uri.StandardURIHandler;
 import com.innerfunction.uri.URIScheme;
 import com.innerfunction.uri.URIValueFormatter;
 import com.innerfunction.util.I18nMap;
+import com.innerfunction.util.Tracer;
 import com.innerfunction.util.UserDefaults;
 
 import java.net.URISyntaxException;
@@ -162,6 +163,7 @@ public class AppContainer extends Container {
      * Load the app configuration.
      */
     public void loadConfiguration(Object configSource) {
+        Tracer.begin("AppContainer.loadConfiguration");
         try {
             Configuration configuration = null;
             if( configSource instanceof Configuration ) {
@@ -216,6 +218,9 @@ public class AppContainer extends Container {
             startFailure = true;
             throw e;
         }
+        finally {
+            Tracer.end("AppContainer.loadConfiguration");
+        }
     }
 
     @Override
@@ -16,11 +16,16 @@ package com.innerfunction.scffld.app;
 import android.app.Application;
 import android.content.pm.ApplicationInfo;
 import android.os.Build;
+import android.os.Handler;
 import android.util.Log;
 import android.webkit.WebView;
 
+import com.innerfunction.util.Tracer;
+
 import static com.innerfunction.util.DataLiterals.*;
 
+import java.io.File;
+
 /**
  * Standard SCFFLD application class.
  *
@@ -31,14 +36,36 @@ public class SCFFLDApplication extends Application {
     static final String Tag = SCFFLDApplication.class.getSimpleName();
 
     static final boolean WaitForDebugger = false;
-    static final boolean TraceEnabled = false;
+
+    /** The name of the file, in the app's cache directory, that startup traces are written to. */
+    static final String StartupTraceFilename = "scffld-trace.json";
+
+    /**
+     * The number of milliseconds after startup to trace for.
+     * When greater than zero, startup is traced and the trace is written to the app's cache
+     * directory once the duration has elapsed. Can be set using a manifest meta-data item named
+     * "<application class name>.startupTraceDuration".
+     */
+    private Integer startupTraceDuration = 0;
 
     public SCFFLDApplication() {}
 
+    public void setStartupTraceDuration(Integer duration) {
+        this.startupTraceDuration = duration;
+    }
+
+    public Integer getStartupTraceDuration() {
+        return startupTraceDuration;
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
         ManifestMetaData.applyTo( this );
+        if( startupTraceDuration > 0 ) {
+            // Keep the start of the trace if the buffer fills before the trace is written.
+            Tracer.enable( Tracer.DefaultCapacity, true );
+        }
         try {
             // Enable debugging of webviews via titleBarState.
             // Taken from https://developer.chrome.com/devtools/docs/remote-debugging#debugging-webviews
@@ -50,9 +77,6 @@ public class SCFFLDApplication extends Application {
             if( WaitForDebugger ) {
                 android.os.Debug.waitForDebugger();
             }
-            if( TraceEnabled) {
-                android.os.Debug.startMethodTracing("scffld-trace");
-            }
             // Configure and start the app container.
             Object configuration = m(
                 kv("types",     "@app:/SCFFLD/types.json"),
@@ -61,13 +85,39 @@ public class SCFFLDApplication extends Application {
                 kv("nameds",    "@dirmap:/SCFFLD/nameds")
             );
             AppContainer appContainer = AppContainer.initialize( getApplicationContext(), configuration );
-            if( TraceEnabled ) {
-                android.os.Debug.stopMethodTracing();
-            }
             appContainer.startService();
+            if( startupTraceDuration > 0 ) {
+                writeStartupTraceAfter( startupTraceDuration );
+            }
         }
         catch(Exception e) {
             Log.e(Tag, "Application startup failure", e );
         }
     }
+
+    /**
+     * Write the startup trace to the cache directory after a delay, and then disable tracing.
+     * The trace is written on a background thread, so that the main thread isn't blocked.
+     */
+    private void writeStartupTraceAfter(int delay) {
+        final File traceFile = new File( getCacheDir(), StartupTraceFilename );
+        final Runnable writeTrace = new Runnable() {
+            @Override
+            public void run() {
+                if( Tracer.writeChromeTrace( traceFile ) ) {
+                    Log.i( Tag, String.format("Startup trace written to %s", traceFile ) );
+                }
+                else {
+                    Log.w( Tag, String.format("Failed to write startup trace to %s", traceFile ) );
+                }
+                Tracer.disable();
+            }
+        };
+        new Handler().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                new Thread( writeTrace, "Tracer.write").start();
+            }
+        }, delay );
+    }
 }
@@ -23,12 +23,14 @@ import android.view.View;
 import android.widget.FrameLayout;
 import android.widget.Toast;
 
+import com.innerfunction.http.RequestGroup;
 import com.innerfunction.scffld.Container;
 import com.innerfunction.scffld.IOCContainerAware;
 import com.innerfunction.scffld.Message;
 import com.innerfunction.scffld.MessageReceiver;
 import com.innerfunction.scffld.MessageRouter;
 import com.innerfunction.util.KeyPath;
+import com.innerfunction.util.Tracer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -82,6 +84,8 @@ public class ViewController extends FrameLayout implements MessageReceiver, Mess
     private List<ViewControllerBehaviour> behaviours = new ArrayList<>();
     /** The container that instantiated this view. */
     protected Container iocContainer;
+    /** Requests made on behalf of this view; cancelled when the view is stopped or destroyed. */
+    private RequestGroup requestGroup;
 
     public ViewController(Context context) {
         super( context );
@@ -180,6 +184,7 @@ public class ViewController extends FrameLayout implements MessageReceiver, Mess
                 for( ViewController child : childViewControllers ) {
                     child.changeState( State.Stopped );
                 }
+                cancelRequests();
                 onStop();
                 state = State.Stopped;
             }
@@ -195,6 +200,7 @@ public class ViewController extends FrameLayout implements MessageReceiver, Mess
                 for( ViewController child : childViewControllers ) {
                     child.changeState( State.Destroyed );
                 }
+                cancelRequests();
                 onDestroy();
                 state = State.Destroyed;
             }
@@ -208,7 +214,13 @@ public class ViewController extends FrameLayout implements MessageReceiver, Mess
     public void onAttach(Activity activity) {
         this.activity = activity;
         if( state == State.Instantiated ) {
-            this.view = onCreateView( activity );
+            Tracer.begin("ViewController.onCreateView", getClass().getName() );
+            try {
+                this.view = onCreateView( activity );
+            }
+            finally {
+                Tracer.end("ViewController.onCreateView");
+            }
             for( ViewController child : childViewControllers ) {
                 child.onAttach( activity );
             }
@@ -289,6 +301,25 @@ public class ViewController extends FrameLayout implements MessageReceiver, Mess
         super.onDetachedFromWindow();
     }
 
+    /**
+     * Get the view's request group.
+     * HTTP requests sent through the group are bound to the view's lifecycle, and are
+     * automatically cancelled when the view is stopped or destroyed.
+     */
+    public synchronized RequestGroup getRequestGroup() {
+        if( requestGroup == null ) {
+            requestGroup = new RequestGroup();
+        }
+        return requestGroup;
+    }
+
+    /** Cancel any requests in progress on behalf of this view. */
+    protected synchronized void cancelRequests() {
+        if( requestGroup != null ) {
+            requestGroup.cancelAll();
+        }
+    }
+
     public void onStart() {}
 
     public void onResume() {
@@ -22,6 +22,7 @@ import android.view.ViewGroup;
 import com.innerfunction.scffld.Message;
 import com.innerfunction.scffld.MessageReceiver;
 import com.innerfunction.scffld.MessageRouter;
+import com.innerfunction.util.Tracer;
 
 import java.util.Map;
 
@@ -73,10 +74,16 @@ public class ViewFragment extends Fragment implements ActivityViewFragment, Mess
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         //View view = super.onCreateView( inflater, container, savedInstanceState );
-        // If the fragment has a layout setting then inflate it and extract any view components.
-        View view = layoutManager.inflate( inflater, container );
-        view.setBackgroundColor( backgroundColor );
-        return view;
+        Tracer.begin("ViewFragment.onCreateView", getClass().getName() );
+        try {
+            // If the fragment has a layout setting then inflate it and extract any view components.
+            View view = layoutManager.inflate( inflater, container );
+            view.setBackgroundColor( backgroundColor );
+            return view;
+        }
+        finally {
+            Tracer.end("ViewFragment.onCreateView");
+        }
     }
 
     @Override
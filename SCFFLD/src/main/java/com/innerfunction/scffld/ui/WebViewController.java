@@ -18,6 +18,7 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
@@ -36,7 +37,8 @@ import com.innerfunction.scffld.app.ViewController;
 import com.innerfunction.q.Q;
 import com.innerfunction.uri.FileResource;
 import com.innerfunction.uri.Resource;
-import com.innerfunction.util.Images;
+import com.innerfunction.util.Display;
+import com.innerfunction.util.ImagePipeline;
 import com.innerfunction.util.Paths;
 
 import java.lang.reflect.Field;
@@ -236,7 +238,10 @@ public class WebViewController extends ViewController {
      */
     public void showImageAtURL(String url) {
         if( imagePreviewContainer != null && imagePreview != null && imagePreviewControl != null ) {
-            Images.loadImageFromURL( url, getContext() )
+            // Load the image downsampled to the display size.
+            DisplayMetrics displayMetrics = Display.getDisplayMetrics();
+            ImagePipeline.getInstance( getContext() )
+                .loadImageAsync( url, displayMetrics.widthPixels, displayMetrics.heightPixels )
                 .then( new Q.Promise.Callback<Drawable, Void>() {
                     @Override
                     public Void result(final Drawable image) {
@@ -0,0 +1,241 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.ImageView;
+
+import com.innerfunction.util.ImagePipeline;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * A class for loading table cell images off the UI thread.
+ * When a cell is bound to a row whose image isn't in the image cache, the cell's image view is
+ * given a placeholder image and the row image is resolved and decoded on the image pipeline's
+ * loader threads. The loaded image is only bound to the image view if the view hasn't since been
+ * rebound to a different row. Loads are cancelled when a cell is rebound, or when the cell
+ * scrolls off screen.
+ *
+ * The bitmaps of images bound to image views are acquired from the image pipeline for display,
+ * and are released when the view is rebound or recycled; the pipeline can then reuse a bitmap's
+ * memory once it's also been evicted from the image cache.
+ *
+ * All methods of this class should be called on the UI thread.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class CellImageLoader {
+
+    static final String Tag = CellImageLoader.class.getSimpleName();
+
+    /** A pending image load. */
+    private class Load implements Runnable {
+
+        /** The image view the image is loaded into. */
+        final ImageView imageView;
+        /** The row data containing the image reference. */
+        final TableRowData row;
+        /** The name of the row data value containing the image reference. */
+        final String dataName;
+        /** The image cache key. */
+        final String cacheKey;
+        /** The corner radius applied to the image. */
+        final float radius;
+        /** The size, in pixels, the image is downsampled to. */
+        final int width, height;
+        /** The image to display if the row image can't be loaded. */
+        final Drawable defaultImage;
+        /** The load task's future, used to cancel the task. */
+        Future<?> future;
+        /** A flag indicating whether the load has been cancelled. */
+        volatile boolean cancelled;
+
+        Load(ImageView imageView, TableRowData row, String dataName, String cacheKey, float radius, int width, int height, Drawable defaultImage) {
+            this.imageView = imageView;
+            this.row = row;
+            this.dataName = dataName;
+            this.cacheKey = cacheKey;
+            this.radius = radius;
+            this.width = width;
+            this.height = height;
+            this.defaultImage = defaultImage;
+        }
+
+        @Override
+        public void run() {
+            if( cancelled ) {
+                return;
+            }
+            Drawable image = null;
+            try {
+                image = tableData.resolveImageWithRowData( row.asConfiguration(), dataName, cacheKey, radius, width, height );
+            }
+            catch(Exception e) {
+                Log.w( Tag, String.format("Loading cell image %s", cacheKey ), e );
+            }
+            final Drawable result = image != null ? image : defaultImage;
+            uiHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    // Only bind the image if the view is still waiting for this load.
+                    if( loads.get( imageView ) == Load.this ) {
+                        loads.remove( imageView );
+                        display( imageView, result );
+                        imageView.setImageDrawable( result );
+                    }
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            if( future != null ) {
+                future.cancel( false );
+            }
+        }
+    }
+
+    /** The table data the cell images are loaded from. */
+    private TableData tableData;
+    /** The image pipeline, which provides the threads images are loaded on. */
+    private ImagePipeline imagePipeline;
+    /** A handler for posting loaded images back to the UI thread. */
+    private Handler uiHandler = new Handler( Looper.getMainLooper() );
+    /** Pending loads, keyed by the image view being loaded into. */
+    private Map<ImageView,Load> loads = new WeakHashMap<>();
+    /** The bitmaps acquired for display, keyed by the image view displaying them. */
+    private Map<ImageView,Bitmap> displayed = new WeakHashMap<>();
+
+    public CellImageLoader(Context context, TableData tableData) {
+        this.tableData = tableData;
+        this.imagePipeline = ImagePipeline.getInstance( context );
+    }
+
+    /**
+     * Load a row image into an image view.
+     * Any load previously started for the image view is cancelled. If the image is in the image
+     * cache then it is returned immediately; otherwise a load is started and the placeholder is
+     * returned. Callers should set the returned drawable on the image view.
+     * @param imageView     The image view to load the image into.
+     * @param row           The row data, as returned by TableData.getRowForIndexPath().
+     * @param dataName      The name of the row data value containing the image reference.
+     * @param placeholder   An image to display whilst the row image loads, and if it can't be
+     *                      loaded. May be null.
+     * @param radius        A corner radius to apply to the image, or 0.
+     * @param width         The width, in pixels, of the image view; the image is downsampled to
+     *                      this size. Or 0 to load the image at full size.
+     * @param height        The height, in pixels, of the image view; or 0.
+     * @return The image to display immediately; or null if the row has no image.
+     */
+    public Drawable loadImage(ImageView imageView, TableRowData row, String dataName, Drawable placeholder, float radius, int width, int height) {
+        cancel( imageView );
+        // The view is being rebound, so release the image it currently displays.
+        release( imageView );
+        String cacheKey = tableData.getImageCacheKey( row, dataName, radius, width, height );
+        if( cacheKey == null ) {
+            return null;
+        }
+        Drawable image = tableData.getCachedImage( cacheKey );
+        if( image != null ) {
+            display( imageView, image );
+            return image;
+        }
+        if( tableData.isKnownImageMiss( cacheKey ) ) {
+            return placeholder;
+        }
+        Load load = new Load( imageView, row, dataName, cacheKey, radius, width, height, placeholder );
+        loads.put( imageView, load );
+        load.future = imagePipeline.submit( load );
+        return placeholder;
+    }
+
+    /** Test whether an image load is pending for an image view. */
+    public boolean isLoading(ImageView imageView) {
+        return loads.containsKey( imageView );
+    }
+
+    /** Cancel any pending image load for an image view. */
+    public void cancel(ImageView imageView) {
+        Load load = loads.remove( imageView );
+        if( load != null ) {
+            load.cancel();
+        }
+    }
+
+    /**
+     * Recycle an image view, e.g. when its cell scrolls off screen.
+     * Cancels any pending load, and releases and clears the image displayed by the view.
+     */
+    public void recycle(ImageView imageView) {
+        cancel( imageView );
+        if( displayed.containsKey( imageView ) ) {
+            release( imageView );
+            imageView.setImageDrawable( null );
+        }
+    }
+
+    /**
+     * Release and clear the images displayed by all image views.
+     * Call when the table's views are destroyed.
+     */
+    public void releaseAll() {
+        for( Map.Entry<ImageView,Bitmap> entry : displayed.entrySet() ) {
+            entry.getKey().setImageDrawable( null );
+            imagePipeline.releaseBitmap( entry.getValue() );
+        }
+        displayed.clear();
+    }
+
+    /** Acquire the bitmap of an image displayed by an image view. */
+    private void display(ImageView imageView, Drawable image) {
+        if( image instanceof BitmapDrawable ) {
+            Bitmap bitmap = ((BitmapDrawable)image).getBitmap();
+            if( bitmap != null ) {
+                imagePipeline.acquireBitmap( bitmap );
+                displayed.put( imageView, bitmap );
+            }
+        }
+    }
+
+    /** Release the bitmap displayed by an image view, if any. */
+    private void release(ImageView imageView) {
+        Bitmap bitmap = displayed.remove( imageView );
+        if( bitmap != null ) {
+            imagePipeline.releaseBitmap( bitmap );
+        }
+    }
+
+    /** Cancel all pending image loads. */
+    public void cancelAll() {
+        for( Load load : new ArrayList<>( loads.values() ) ) {
+            load.cancel();
+        }
+        loads.clear();
+    }
+
+    /** Get the number of pending image loads. */
+    public int getPendingCount() {
+        return loads.size();
+    }
+}
@@ -0,0 +1,180 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import com.innerfunction.q.Q;
+import com.innerfunction.util.RunQueue;
+
+import org.json.simple.JSONValue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A paged data source which reads rows from a file.
+ * The file must contain one row per line, with each row encoded as a JSON object. The file is
+ * scanned once to find the offset of each line; pages of rows are then read and parsed as they
+ * are requested, so the file is never held in memory in full.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class FilePagedDataSource implements PagedDataSource {
+
+    /** A queue for reading files, shared by all file data sources. */
+    static final RunQueue FileQueue = new RunQueue( FilePagedDataSource.class.getSimpleName() );
+
+    /** The file rows are read from. */
+    private File file;
+    /** The offset of each line in the file, plus the offset of the end of the file; null until scanned. */
+    private long[] lineOffsets;
+
+    public FilePagedDataSource() {}
+
+    public FilePagedDataSource(File file) {
+        this.file = file;
+    }
+
+    public void setFile(File file) {
+        this.file = file;
+        this.lineOffsets = null;
+    }
+
+    public void setPath(String path) {
+        setFile( new File( path ) );
+    }
+
+    @Override
+    public Q.Promise<Integer> loadRowCount() {
+        final Q.Promise<Integer> promise = new Q.Promise<>();
+        FileQueue.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Rescan the file, in case it has changed since last read.
+                    lineOffsets = scanLineOffsets( file );
+                    promise.resolve( lineOffsets.length - 1 );
+                }
+                catch(IOException e) {
+                    promise.reject( e );
+                }
+            }
+        });
+        return promise;
+    }
+
+    @Override
+    public Q.Promise<List<Map>> loadRows(final int offset, final int count) {
+        final Q.Promise<List<Map>> promise = new Q.Promise<>();
+        FileQueue.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if( lineOffsets == null ) {
+                        lineOffsets = scanLineOffsets( file );
+                    }
+                    promise.resolve( readRows( offset, count ) );
+                }
+                catch(IOException e) {
+                    promise.reject( e );
+                }
+            }
+        });
+        return promise;
+    }
+
+    /** Read and parse a range of rows. Must be called on the file queue. */
+    private List<Map> readRows(int offset, int count) throws IOException {
+        int lineCount = lineOffsets.length - 1;
+        int end = Math.min( offset + count, lineCount );
+        List<Map> rows = new ArrayList<>( Math.max( 0, end - offset ) );
+        if( offset >= end ) {
+            return rows;
+        }
+        long start = lineOffsets[offset];
+        byte[] bytes = new byte[(int)(lineOffsets[end] - start)];
+        RandomAccessFile in = new RandomAccessFile( file, "r");
+        try {
+            in.seek( start );
+            in.readFully( bytes );
+        }
+        finally {
+            in.close();
+        }
+        for( int line = offset; line < end; line++ ) {
+            int from = (int)(lineOffsets[line] - start);
+            int to = (int)(lineOffsets[line + 1] - start);
+            String json = new String( bytes, from, to - from, "UTF-8");
+            Object row = JSONValue.parse( json );
+            // Unparseable lines are returned as empty rows, so that row positions are preserved.
+            rows.add( row instanceof Map ? (Map)row : new HashMap() );
+        }
+        return rows;
+    }
+
+    /**
+     * Scan a file for the offsets of its non-empty lines.
+     * @return The offset of the start of each line, followed by the offset of the end of the file.
+     */
+    static long[] scanLineOffsets(File file) throws IOException {
+        long[] offsets = new long[1024];
+        int count = 0;
+        InputStream in = new BufferedInputStream( new FileInputStream( file ), 64 * 1024 );
+        try {
+            long position = 0;
+            long lineStart = 0;
+            boolean lineEmpty = true;
+            int b;
+            while( (b = in.read()) != -1 ) {
+                position++;
+                if( b == '\n' ) {
+                    if( !lineEmpty ) {
+                        if( count == offsets.length ) {
+                            offsets = Arrays.copyOf( offsets, count * 2 );
+                        }
+                        offsets[count++] = lineStart;
+                    }
+                    lineStart = position;
+                    lineEmpty = true;
+                }
+                else if( b != '\r' && b != ' ' && b != '\t' ) {
+                    lineEmpty = false;
+                }
+            }
+            if( !lineEmpty ) {
+                if( count == offsets.length ) {
+                    offsets = Arrays.copyOf( offsets, count + 1 );
+                }
+                offsets[count++] = lineStart;
+            }
+            // NOTE Each line is read up to the start of the next non-empty line; blank lines
+            // between rows are harmless whitespace to the JSON parser.
+            offsets = Arrays.copyOf( offsets, count + 1 );
+            offsets[count] = position;
+        }
+        finally {
+            in.close();
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,130 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import android.content.Context;
+
+import com.innerfunction.http.Client;
+import com.innerfunction.http.Response;
+import com.innerfunction.q.Q;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A paged data source which loads rows from an HTTP endpoint.
+ * Pages are requested with offset and limit query parameters; the endpoint should respond with
+ * a JSON object containing the total number of rows and the requested rows, e.g.
+ *
+ *     { "total": 12000, "rows": [ ... ] }
+ *
+ * The names of the parameters and response properties are configurable.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class HTTPPagedDataSource implements PagedDataSource {
+
+    /** The HTTP client. */
+    private Client client;
+    /** The endpoint URL. */
+    private String url;
+    /** The name of the query parameter specifying the offset of the first requested row. */
+    private String offsetParamName = "offset";
+    /** The name of the query parameter specifying the number of requested rows. */
+    private String limitParamName = "limit";
+    /** The name of the response property containing the total number of rows. */
+    private String totalPropertyName = "total";
+    /** The name of the response property containing the requested rows. */
+    private String rowsPropertyName = "rows";
+
+    public HTTPPagedDataSource(Context context) {
+        this.client = new Client( context );
+    }
+
+    public void setURL(String url) {
+        this.url = url;
+    }
+
+    public void setOffsetParamName(String name) {
+        this.offsetParamName = name;
+    }
+
+    public void setLimitParamName(String name) {
+        this.limitParamName = name;
+    }
+
+    public void setTotalPropertyName(String name) {
+        this.totalPropertyName = name;
+    }
+
+    public void setRowsPropertyName(String name) {
+        this.rowsPropertyName = name;
+    }
+
+    @Override
+    public Q.Promise<Integer> loadRowCount() {
+        // Request an empty page; only the total is needed.
+        return request( 0, 0 ).then(new Q.Promise.Callback<Map,Integer>() {
+            @Override
+            public Integer result(Map body) {
+                Object total = body.get( totalPropertyName );
+                if( total instanceof Number ) {
+                    return ((Number)total).intValue();
+                }
+                throw new IllegalStateException( String.format("No '%s' property in response from %s", totalPropertyName, url ) );
+            }
+        });
+    }
+
+    @Override
+    public Q.Promise<List<Map>> loadRows(int offset, int count) {
+        return request( offset, count ).then(new Q.Promise.Callback<Map,List<Map>>() {
+            @Override
+            public List<Map> result(Map body) {
+                List<Map> rows = new ArrayList<>();
+                Object rowsData = body.get( rowsPropertyName );
+                if( rowsData instanceof List ) {
+                    for( Object row : (List)rowsData ) {
+                        rows.add( row instanceof Map ? (Map)row : new HashMap() );
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+
+    /** Request a range of rows from the endpoint. */
+    private Q.Promise<Map> request(int offset, int count) {
+        Map<String,Object> params = new HashMap<>();
+        params.put( offsetParamName, offset );
+        params.put( limitParamName, count );
+        return client.get( url, params ).then(new Q.Promise.Callback<Response,Map>() {
+            @Override
+            public Map result(Response response) {
+                int statusCode = response.getStatusCode();
+                if( statusCode != 200 ) {
+                    throw new IllegalStateException( String.format("HTTP %d loading rows from %s", statusCode, url ) );
+                }
+                Object body = response.parseBodyData();
+                if( !(body instanceof Map) ) {
+                    throw new IllegalStateException( String.format("Bad response loading rows from %s", url ) );
+                }
+                return (Map)body;
+            }
+        });
+    }
+}
@@ -0,0 +1,242 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.AbsListView;
+
+import com.nakardo.atableview.foundation.NSIndexPath;
+import com.nakardo.atableview.internal.ATableViewAdapter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A scroll listener which prefetches the images of table rows about to scroll into view.
+ * The prefetcher tracks the table's visible range and scroll direction, and warms the image cache
+ * with the images of the next rows in the direction of scrolling. Prefetches are throttled, are
+ * suspended whilst the table is flung quickly (when the prefetched rows would scroll past before
+ * they are displayed), and run on a single background priority thread so that they don't compete
+ * with the loading of on-screen images.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ImagePrefetcher implements AbsListView.OnScrollListener {
+
+    static final String Tag = ImagePrefetcher.class.getSimpleName();
+
+    /** The default number of rows to prefetch ahead of the visible range. */
+    static final int DefaultPrefetchCount = 10;
+    /** The minimum interval, in milliseconds, between prefetch passes. */
+    static final long ThrottleInterval = 150;
+    /** The scroll speed, in rows per second, above which prefetching is suspended. */
+    static final float MaxPrefetchSpeed = 40.0f;
+
+    /** The thread used to prefetch images, shared by all prefetchers. */
+    static final ExecutorService PrefetchExecutor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority( Process.THREAD_PRIORITY_BACKGROUND );
+                    runnable.run();
+                }
+            }, Tag );
+            thread.setDaemon( true );
+            thread.setPriority( Thread.MIN_PRIORITY );
+            return thread;
+        }
+    });
+
+    /** The table view controller whose rows are prefetched. */
+    private TableViewController controller;
+    /** The number of rows to prefetch ahead of the visible range. */
+    private int prefetchCount = DefaultPrefetchCount;
+    /** The first visible list position at the last scroll event. */
+    private int firstVisiblePosition = -1;
+    /** The number of visible list positions at the last scroll event. */
+    private int visibleCount;
+    /** The scroll direction; 1 when scrolling down the list, -1 when scrolling up. */
+    private int direction = 1;
+    /** The time of the last scroll event which changed the visible range. */
+    private long lastScrollTime;
+    /** The current scroll speed, in rows per second. */
+    private float scrollSpeed;
+    /** The list's current scroll state. */
+    private int scrollState = SCROLL_STATE_IDLE;
+    /** The time of the last prefetch pass. */
+    private long lastPrefetchTime;
+    /** A flag indicating whether a prefetch pass is scheduled. */
+    private boolean prefetchScheduled;
+    /** Pending prefetches, keyed by image cache key. */
+    private Map<String,Future<?>> pending = new HashMap<>();
+    /** A handler used to schedule prefetch passes. */
+    private Handler handler = new Handler( Looper.getMainLooper() );
+    /** A prefetch pass. */
+    private Runnable prefetchPass = new Runnable() {
+        @Override
+        public void run() {
+            prefetchScheduled = false;
+            prefetch();
+        }
+    };
+
+    public ImagePrefetcher(TableViewController controller) {
+        this.controller = controller;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = prefetchCount;
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+        this.scrollState = scrollState;
+        if( scrollState == SCROLL_STATE_IDLE ) {
+            scrollSpeed = 0;
+        }
+        schedulePrefetch();
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if( firstVisibleItem == firstVisiblePosition && visibleItemCount == visibleCount ) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if( firstVisiblePosition > -1 && firstVisibleItem != firstVisiblePosition ) {
+            int delta = firstVisibleItem - firstVisiblePosition;
+            int newDirection = delta > 0 ? 1 : -1;
+            if( newDirection != direction ) {
+                // Rows prefetched for the previous direction are no longer needed.
+                cancelPending();
+                direction = newDirection;
+            }
+            long elapsed = Math.max( 1, now - lastScrollTime );
+            scrollSpeed = Math.abs( delta ) * 1000.0f / elapsed;
+        }
+        firstVisiblePosition = firstVisibleItem;
+        visibleCount = visibleItemCount;
+        lastScrollTime = now;
+        schedulePrefetch();
+    }
+
+    /** Cancel all pending prefetches and reset the prefetcher's state. */
+    public void reset() {
+        handler.removeCallbacks( prefetchPass );
+        prefetchScheduled = false;
+        cancelPending();
+        firstVisiblePosition = -1;
+        visibleCount = 0;
+        scrollSpeed = 0;
+    }
+
+    /** Test whether the table is being scrolled too quickly for prefetching to be useful. */
+    private boolean isScrollingFast() {
+        return scrollState == SCROLL_STATE_FLING && scrollSpeed > MaxPrefetchSpeed;
+    }
+
+    /** Schedule a prefetch pass, subject to the throttle interval. */
+    private void schedulePrefetch() {
+        if( prefetchScheduled ) {
+            return;
+        }
+        if( isScrollingFast() ) {
+            // Back off until the fling slows; prefetched rows would be scrolled past before display.
+            cancelPending();
+            return;
+        }
+        long delay = Math.max( 0, lastPrefetchTime + ThrottleInterval - SystemClock.uptimeMillis() );
+        prefetchScheduled = true;
+        handler.postDelayed( prefetchPass, delay );
+    }
+
+    /** Prefetch images for the rows following the visible range in the scroll direction. */
+    private void prefetch() {
+        lastPrefetchTime = SystemClock.uptimeMillis();
+        ATableView tableView = controller.getTableView();
+        if( tableView == null || firstVisiblePosition < 0 || isScrollingFast() ) {
+            return;
+        }
+        ATableViewAdapter adapter = tableView.getInternalAdapter();
+        if( adapter == null ) {
+            return;
+        }
+        TableData tableData = controller.tableData;
+        int count = adapter.getCount();
+        int position = direction > 0 ? firstVisiblePosition + visibleCount : firstVisiblePosition - 1;
+        for( int rows = 0; rows < prefetchCount && position >= 0 && position < count; position += direction ) {
+            if( adapter.isHeaderRow( position ) || adapter.isFooterRow( position ) ) {
+                continue;
+            }
+            rows++;
+            NSIndexPath indexPath = adapter.getIndexPath( position );
+            TableRowData row = tableData.getRowForIndexPath( indexPath );
+            TableViewCellFactory factory = controller.getCellFactoryForIndexPath( indexPath );
+            String cacheKey = factory.getImageCacheKey( row );
+            if( cacheKey == null || pending.containsKey( cacheKey ) ) {
+                continue;
+            }
+            if( tableData.getCachedImage( cacheKey ) != null || tableData.isKnownImageMiss( cacheKey ) ) {
+                continue;
+            }
+            int width = (int)factory.convertToRealPixels( factory.getImageWidth( row ) );
+            int height = (int)factory.convertToRealPixels( factory.getImageHeight( row ) );
+            submit( cacheKey, tableData, row, factory.getImageDataName(), width, height );
+        }
+    }
+
+    /** Submit a prefetch to the prefetch thread. */
+    private void submit(final String cacheKey, final TableData tableData, final TableRowData row, final String dataName,
+                        final int width, final int height) {
+        Future<?> future = PrefetchExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Skip the decode if the image was loaded whilst the prefetch was queued.
+                    if( tableData.getCachedImage( cacheKey ) == null ) {
+                        tableData.resolveImageWithRowData( row.asConfiguration(), dataName, cacheKey, 0.0f, width, height );
+                    }
+                }
+                catch(Exception e) {
+                    Log.w( Tag, String.format("Prefetching %s", cacheKey ), e );
+                }
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        pending.remove( cacheKey );
+                    }
+                });
+            }
+        });
+        pending.put( cacheKey, future );
+    }
+
+    /** Cancel pending prefetches which haven't yet started. */
+    private void cancelPending() {
+        for( Future<?> future : pending.values() ) {
+            future.cancel( false );
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import com.innerfunction.q.Q;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A source of table rows which loads rows on demand, a page at a time.
+ * Used to display tables with too many rows to hold in memory at once; see PagedRowList.
+ * Paged data is always ungrouped.
+ *
+ * Methods are called on the UI thread, and implementations should load data asynchronously;
+ * promises may be resolved on any thread.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public interface PagedDataSource {
+
+    /** Load the total number of rows in the data source. */
+    Q.Promise<Integer> loadRowCount();
+
+    /**
+     * Load a range of rows.
+     * @param offset    The index of the first row to load.
+     * @param count     The number of rows to load.
+     * @return A promise resolving to the loaded rows. Fewer rows than requested may be returned
+     * at the end of the data.
+     */
+    Q.Promise<List<Map>> loadRows(int offset, int count);
+
+}
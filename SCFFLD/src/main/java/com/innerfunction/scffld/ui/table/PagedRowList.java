@@ -0,0 +1,271 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.innerfunction.q.Q;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A list of table rows backed by a paged data source.
+ * The list reports the data source's total row count as its size, but only holds a window of
+ * resident pages in memory. Rows which aren't resident are returned as null; call request() to
+ * load a row's page. When more than the maximum number of pages are resident, the least recently
+ * requested pages are discarded.
+ *
+ * All methods of this class should be called on the UI thread.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class PagedRowList extends AbstractList<Map> {
+
+    static final String Tag = PagedRowList.class.getSimpleName();
+
+    /** The default number of rows in a page. */
+    public static final int DefaultPageSize = 50;
+    /** The default maximum number of resident pages. */
+    public static final int DefaultMaxResidentPages = 8;
+
+    /** An interface for observing the list's loads. */
+    public interface Listener {
+        /**
+         * Format a page of rows before it becomes resident.
+         * Must return one row for each row in the page.
+         */
+        List<Map> formatPage(List<Map> rows);
+        /** Called when the list's row count is loaded. */
+        void onRowCountLoaded(PagedRowList rows);
+        /** Called when a page of rows becomes resident. */
+        void onPageLoaded(PagedRowList rows, int offset, int count);
+    }
+
+    /** The data source rows are loaded from. */
+    private PagedDataSource source;
+    /** The number of rows in a page. */
+    private int pageSize;
+    /** The maximum number of resident pages. */
+    private int maxResidentPages;
+    /** The total number of rows. */
+    private int rowCount;
+    /** Resident pages, keyed by page number, in least recently requested order. */
+    private LinkedHashMap<Integer,List<Map>> pages = new LinkedHashMap<>();
+    /** The numbers of pages currently being loaded. */
+    private Set<Integer> loadingPages = new HashSet<>();
+    /** A count of list reloads. Used to discard loads started before a reload. */
+    private int generation;
+    /** An optional listener. */
+    private Listener listener;
+    /** A handler for posting load results back to the UI thread. */
+    private Handler uiHandler = new Handler( Looper.getMainLooper() );
+
+    public PagedRowList(PagedDataSource source) {
+        this( source, DefaultPageSize, DefaultMaxResidentPages );
+    }
+
+    public PagedRowList(PagedDataSource source, int pageSize, int maxResidentPages) {
+        this.source = source;
+        this.pageSize = Math.max( 1, pageSize );
+        this.maxResidentPages = Math.max( 1, maxResidentPages );
+    }
+
+    public PagedDataSource getSource() {
+        return source;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /** Get the number of resident pages. */
+    public int getResidentPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Reload the list.
+     * Discards all resident pages and loads the data source's row count. Rows are then loaded as
+     * they are requested.
+     */
+    public void reload() {
+        final int loadGeneration = ++generation;
+        pages.clear();
+        loadingPages.clear();
+        source.loadRowCount()
+            .then(new Q.Promise.Callback<Integer,Object>() {
+                @Override
+                public Object result(final Integer count) {
+                    uiHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if( loadGeneration == generation ) {
+                                rowCount = count != null ? Math.max( 0, count ) : 0;
+                                modCount++;
+                                if( listener != null ) {
+                                    listener.onRowCountLoaded( PagedRowList.this );
+                                }
+                            }
+                        }
+                    });
+                    return null;
+                }
+            })
+            .error(new Q.Promise.ErrorCallback() {
+                @Override
+                public void error(Exception e) {
+                    Log.e( Tag, "Loading row count", e );
+                }
+            });
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Get a row.
+     * Doesn't load the row or affect which pages are resident.
+     * @return The row, or null if the row's page isn't resident.
+     */
+    @Override
+    public Map get(int index) {
+        if( index < 0 || index >= rowCount ) {
+            throw new IndexOutOfBoundsException( String.format("Index %d, size %d", index, rowCount ) );
+        }
+        List<Map> page = pages.get( index / pageSize );
+        int pageIndex = index % pageSize;
+        return page != null && pageIndex < page.size() ? page.get( pageIndex ) : null;
+    }
+
+    /** Test whether a row's page is resident. */
+    public boolean isLoaded(int index) {
+        return index >= 0 && index < rowCount && pages.containsKey( index / pageSize );
+    }
+
+    /**
+     * Request a row.
+     * Loads the row's page if it isn't resident, and marks the page as recently requested. The
+     * neighbouring page is also requested when the row is near the start or end of its page.
+     */
+    public void request(int index) {
+        if( index < 0 || index >= rowCount ) {
+            return;
+        }
+        int page = index / pageSize;
+        requestPage( page );
+        int pageIndex = index % pageSize;
+        if( pageIndex >= pageSize - pageSize / 4 ) {
+            requestPage( page + 1 );
+        }
+        else if( pageIndex < pageSize / 4 ) {
+            requestPage( page - 1 );
+        }
+    }
+
+    /** Request a page, loading it if it isn't resident. */
+    private void requestPage(final int page) {
+        final int offset = page * pageSize;
+        if( page < 0 || offset >= rowCount ) {
+            return;
+        }
+        List<Map> rows = pages.remove( page );
+        if( rows != null ) {
+            // Move the page to the most recently requested position.
+            pages.put( page, rows );
+            return;
+        }
+        if( !loadingPages.add( page ) ) {
+            return;
+        }
+        final int loadGeneration = generation;
+        final int count = Math.min( pageSize, rowCount - offset );
+        source.loadRows( offset, count )
+            .then(new Q.Promise.Callback<List<Map>,Object>() {
+                @Override
+                public Object result(final List<Map> rows) {
+                    uiHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            pageLoaded( loadGeneration, page, rows );
+                        }
+                    });
+                    return null;
+                }
+            })
+            .error(new Q.Promise.ErrorCallback() {
+                @Override
+                public void error(Exception e) {
+                    Log.e( Tag, String.format("Loading rows %d-%d", offset, offset + count ), e );
+                    uiHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            // Allow the page to be requested again.
+                            if( loadGeneration == generation ) {
+                                loadingPages.remove( page );
+                            }
+                        }
+                    });
+                }
+            });
+    }
+
+    /** Make a loaded page resident. */
+    @SuppressWarnings("unchecked")
+    private void pageLoaded(int loadGeneration, int page, List<Map> rows) {
+        if( loadGeneration != generation ) {
+            return;
+        }
+        loadingPages.remove( page );
+        if( rows == null ) {
+            return;
+        }
+        if( rows.size() > pageSize ) {
+            rows = rows.subList( 0, pageSize );
+        }
+        if( listener != null ) {
+            List<Map> formatted = listener.formatPage( rows );
+            if( formatted != null && formatted.size() == rows.size() ) {
+                rows = formatted;
+            }
+            else {
+                Log.w( Tag, String.format("Page formatting changed the number of rows in page %d; ignoring", page ) );
+            }
+        }
+        pages.put( page, rows );
+        // Discard the least recently requested pages.
+        Iterator<Integer> pageNumbers = pages.keySet().iterator();
+        while( pages.size() > maxResidentPages && pageNumbers.hasNext() ) {
+            pageNumbers.next();
+            pageNumbers.remove();
+        }
+        if( listener != null ) {
+            listener.onPageLoaded( this, page * pageSize, rows.size() );
+        }
+    }
+}
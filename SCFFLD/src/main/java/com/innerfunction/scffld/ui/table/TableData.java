@@ -22,17 +22,19 @@ import java.util.Map;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.ShapeDrawable;
 import android.util.Log;
-import android.util.LruCache;
 
 import com.innerfunction.scffld.Configuration;
 import com.innerfunction.uri.Resource;
-import com.innerfunction.util.Images;
+import com.innerfunction.util.ImagePipeline;
+import com.innerfunction.util.ImageTransform;
 
 import com.innerfunction.util.Null;
+import com.innerfunction.util.RunQueue;
+import com.innerfunction.util.TypeConversions;
 import com.nakardo.atableview.foundation.NSIndexPath;
 
 /**
@@ -45,27 +47,14 @@ public class TableData {
 
     static final String Tag = TableData.class.getSimpleName();
 
-    /** The image cache size, in MB. */
-    static final int CacheSize = 2 * 1024 * 1024;
     /**
-     * A shared cache of table row images.
-     * Note on thread safety: All image operations which access the cache will be performed from the
-     * UI thread (i.e. as a table row is being created); this is effectively single-threaded
-     * operation, so no synchronization is necessary before calling cache methods.
+     * The version of paged rows which haven't loaded.
+     * Distinct from the version of any loaded row, which always has its top bit set.
      */
-    static final LruCache<Object,Drawable> ImageCache = new LruCache<Object,Drawable>( CacheSize ) {
-        @Override
-        protected int sizeOf(Object key, Drawable image) {
-            // NOTE Drawable doesn't provide any method for getting the image size, so instead
-            // estimate the size assuming a 32 bit (4 byte) pixel depth.
-            return image.getIntrinsicWidth() * image.getIntrinsicHeight() * 4;
-        }
-    };
+    public static final long PlaceholderRowVersion = 1;
 
-    /**
-     * An object used to represent misses in the image cache.
-     */
-    static final Drawable NullImage = new ShapeDrawable();
+    /** A queue for building search indexes off the UI thread. */
+    static final RunQueue SearchIndexQueue = new RunQueue("TableData.searchIndex");
 
     /** Interface for wrapping table data filter predicates. */
     public interface FilterPredicate {
@@ -73,7 +62,7 @@ public class TableData {
     }
 
     /** The table data. May represent either grouped or non-grouped data. */
-    private List data;
+    private volatile List data;
     /** The visible table data, i.e. after a filter has been applied. */
     private List visibleData;
     /** A list of the section tables, for grouped data. */
@@ -81,16 +70,32 @@ public class TableData {
     /** A flag indicating whether the data is grouped or not. */
     private boolean grouped;
     /** A list of data fields to check when filtering by a search term. */
-    private List<String> searchFieldNames;
-    /** An empty configuration object. Used as the rows config when loading data from a list. */
-    private Configuration emptyConfiguration;
+    private volatile List<String> searchFieldNames;
+    /** The names of fields with row lookup indexes. */
+    private List<String> indexedFieldNames = Arrays.asList("id");
     /**
-     * A configuration object used to return row data.
-     * This is used to allow any URI references within data to resolve correctly.
+     * Row lookup indexes over the visible data, keyed by field name. Each index maps a field
+     * value to the index path of the first visible row with that value.
      */
-    private Configuration currentRowData;
+    private Map<String,Map<Object,NSIndexPath>> fieldIndexes = new HashMap<>();
+    /** An index of the table data's search fields; null until built. */
+    private volatile TableSearchIndex searchIndex;
+    /** The name of the data field which identifies rows. Used when diffing table data. */
+    private String idFieldName = TableDataDiff.DefaultIDFieldName;
+    /** An empty configuration object. Used as the rows config when loading data from a list. */
+    private Configuration emptyConfiguration;
+    /** The configuration used as the parent of row data configurations. */
+    private Configuration rowsConfiguration;
+    /** Type conversions, used by row data to read values in other representations. */
+    private TypeConversions conversions;
     /** A delegate object for modifying resolved data values. */
     private TableDataDelegate delegate;
+    /** The image pipeline, used to cache row images. */
+    private ImagePipeline imagePipeline;
+    /** Previously visible rows, held while the table view is updated; or null. See holdDisplayedRows(). */
+    private TableSections heldSections;
+    /** The section titles of the held rows. */
+    private List<String> heldSectionTitles;
 
     public TableData(Context context) {
         data = new ArrayList();
@@ -99,6 +104,9 @@ public class TableData {
         grouped = false;
         searchFieldNames = Arrays.asList("title", "description");
         emptyConfiguration = new Configuration( context );
+        rowsConfiguration = emptyConfiguration;
+        conversions = TypeConversions.instanceForContext( context );
+        imagePipeline = ImagePipeline.getInstance( context );
     }
 
     public void reset() {
@@ -111,7 +119,7 @@ public class TableData {
     }
 
     public void setRowsConfiguration(Configuration rowsConfiguration) {
-        this.currentRowData = new Configuration( Collections.EMPTY_MAP, rowsConfiguration );
+        this.rowsConfiguration = rowsConfiguration;
         List rowsData;
         Object sourceData = rowsConfiguration.getSourceData();
         if( sourceData instanceof List ) {
@@ -124,10 +132,48 @@ public class TableData {
     }
 
     public void setRowsData(List rowsData) {
-        this.currentRowData = new Configuration( Collections.EMPTY_MAP, emptyConfiguration );
+        this.rowsConfiguration = emptyConfiguration;
         _setRowsData( rowsData );
     }
 
+    /**
+     * Set the table row data to a list of rows loaded on demand from a paged data source.
+     * Paged data is ungrouped. Rows which aren't resident are displayed as placeholders (see
+     * isRowLoaded()); filtering, searching and row lookups only see resident rows.
+     */
+    public void setPagedRowsData(PagedRowList rows) {
+        this.rowsConfiguration = emptyConfiguration;
+        grouped = false;
+        sectionTitles = new ArrayList<>();
+        data = rows;
+        setVisibleData( data );
+        buildSearchIndex();
+    }
+
+    /** Test whether the visible data is a list of paged rows. */
+    public boolean isPaged() {
+        return visibleData instanceof PagedRowList;
+    }
+
+    /**
+     * Test whether the row at an index path has loaded.
+     * Always true, unless the visible data is a list of paged rows.
+     */
+    public boolean isRowLoaded(NSIndexPath indexPath) {
+        return !isPaged() || getRowMapForIndexPath( indexPath ) != null;
+    }
+
+    /**
+     * Load the rows around an index path, if the visible data is a list of paged rows.
+     * Should be called whenever a row is displayed, so that rows are loaded ahead of scrolling
+     * and the displayed pages are kept resident.
+     */
+    public void loadRowsNear(NSIndexPath indexPath) {
+        if( isPaged() && indexPath.getSection() == 0 ) {
+            ((PagedRowList)visibleData).request( indexPath.getRow() );
+        }
+    }
+
     /**
      * Set the table row data.
      *
@@ -210,17 +256,121 @@ public class TableData {
             grouped = false;
             data = new ArrayList();
         }
-        visibleData = data;
+        setVisibleData( data );
+        buildFieldIndexes();
+        buildSearchIndex();
+    }
+
+    /**
+     * Build a search index for the current table data.
+     * The index is built on a background thread; searches made before the index is ready fall
+     * back to scanning the table data.
+     */
+    private void buildSearchIndex() {
+        final List indexData = data;
+        final boolean indexGrouped = grouped;
+        final List<String> indexFieldNames = searchFieldNames;
+        searchIndex = null;
+        if( indexData instanceof PagedRowList ) {
+            // Paged rows aren't resident, so can't be indexed.
+            return;
+        }
+        SearchIndexQueue.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                // Skip the build if the data or search fields have changed since it was requested.
+                if( indexData != data || indexFieldNames != searchFieldNames ) {
+                    return;
+                }
+                TableSearchIndex index = new TableSearchIndex( indexData, indexGrouped, indexFieldNames );
+                if( indexData == data && indexFieldNames == searchFieldNames ) {
+                    searchIndex = index;
+                }
+            }
+        });
     }
 
     /**
      * Get row data for an index path.
+     * Prefer getRowForIndexPath() when only plain row values are read.
      */
     public Configuration getRowDataForIndexPath(NSIndexPath indexPath) {
+        return getRowForIndexPath( indexPath ).asConfiguration();
+    }
+
+    /**
+     * Get a lightweight view of the row at an index path.
+     * The result is immutable, so can be held after other rows are read, or passed to another thread.
+     * @return The row's data; an empty row if there is no row at the index path.
+     */
+    public TableRowData getRowForIndexPath(NSIndexPath indexPath) {
+        Map rowData = getRowMapForIndexPath( indexPath );
+        if( rowData == null ) {
+            rowData = Collections.EMPTY_MAP;
+        }
+        return new TableRowData( rowData, rowsConfiguration, conversions );
+    }
+
+    /**
+     * Get a stamp identifying the version of a row's data.
+     * The stamp is a hash of the row's content, so it changes when the data at an index path is
+     * replaced with different data, or when a row's data is modified in place. Paged rows which
+     * haven't loaded all share the same placeholder version, so that their height is only
+     * requested once.
+     * @return A non-zero version stamp; or 0 if there is no row at the index path.
+     */
+    public long getRowVersionForIndexPath(NSIndexPath indexPath) {
+        if( heldSections != null ) {
+            // Use the content hash recorded when the held rows were displayed, as the rows may
+            // have since been modified in place.
+            int section = indexPath.getSection();
+            int row = indexPath.getRow();
+            if( section < heldSections.size() && row < heldSections.get( section ).size() ) {
+                return Long.MIN_VALUE | heldSections.getContentHash( section, row );
+            }
+            return 0;
+        }
+        Map rowData = getRowMapForIndexPath( indexPath );
+        if( rowData == null ) {
+            return isPaged() && indexPath.getRow() < getSectionSize( indexPath.getSection() ) ? PlaceholderRowVersion : 0;
+        }
+        return Long.MIN_VALUE | contentHash( rowData );
+    }
+
+    /**
+     * Make a 64 bit hash of a row's content.
+     * Entries are hashed independently and then summed, so that the result doesn't depend on the
+     * order the row's entries are iterated in.
+     */
+    static long contentHash(Map rowData) {
+        long hash = 0;
+        for( Object item : rowData.entrySet() ) {
+            Map.Entry entry = (Map.Entry)item;
+            Object key = entry.getKey();
+            Object value = entry.getValue();
+            long entryHash = ((long)(key != null ? key.hashCode() : 0) << 32) | ((value != null ? value.hashCode() : 0) & 0xffffffffL);
+            // Mix the entry hash using the MurmurHash3 finalizer.
+            entryHash ^= entryHash >>> 33;
+            entryHash *= 0xff51afd7ed558ccdL;
+            entryHash ^= entryHash >>> 33;
+            entryHash *= 0xc4ceb53a5d1b0b3bL;
+            entryHash ^= entryHash >>> 33;
+            hash += entryHash;
+        }
+        return hash;
+    }
+
+    /** Get the data map of the row at an index path, or null if there is no such row. */
+    private Map getRowMapForIndexPath(NSIndexPath indexPath) {
         Map rowData = null;
         int section = indexPath.getSection();
         int row = indexPath.getRow();
-        if( visibleData.size() > 0 ) {
+        if( heldSections != null ) {
+            if( section < heldSections.size() && row < heldSections.get( section ).size() ) {
+                rowData = heldSections.get( section ).get( row );
+            }
+        }
+        else if( visibleData.size() > 0 ) {
             if( grouped ) {
                 if( visibleData.size() > section ) {
                     List sectionData = (List)visibleData.get( section );
@@ -233,20 +383,24 @@ public class TableData {
                 rowData = (Map)visibleData.get( row );
             }
         }
-        if( rowData == null ) {
-            rowData = Collections.EMPTY_MAP;
-        }
-        currentRowData.setData( rowData );
-        return currentRowData;
+        return rowData;
     }
 
     /**
      * Find the index path of the first row with the specified value in the specified field.
+     * Lookups on indexed fields (see setIndexedFieldNames()) use a hash index of the visible data;
+     * lookups on other fields scan the visible data.
      * @param value     The value being looked for.
      * @param fieldName The name of the field containing the required value.
      * @return The index path of the first matching row, or null if no row is found.
      */
     public NSIndexPath getIndexPathForFirstRowWithFieldValue(Object value, String fieldName) {
+        if( value == null ) {
+            return null;
+        }
+        if( indexedFieldNames.contains( fieldName ) && !isPaged() ) {
+            return getFieldIndex( fieldName ).get( value );
+        }
         if( grouped ) {
             for( int s = 0; s < visibleData.size(); s++ ) {
                 List sectionData = (List)visibleData.get( s );
@@ -260,15 +414,121 @@ public class TableData {
             }
         }
         else for( int r = 0; r < visibleData.size(); r++ ) {
+            // NOTE Rows of paged data which aren't resident are null.
             Map rowData = (Map)visibleData.get( r );
-            Object fieldValue = rowData.get( fieldName );
+            Object fieldValue = rowData != null ? rowData.get( fieldName ) : null;
             if( fieldValue != null && fieldValue.equals( value ) ) {
-                return NSIndexPath.indexPathForRowInSection( r, 1 );
+                return NSIndexPath.indexPathForRowInSection( r, 0 );
             }
         }
         return null;
     }
 
+    /**
+     * Set the names of the fields to maintain row lookup indexes for.
+     * The "id" field is indexed by default.
+     */
+    public void setIndexedFieldNames(String... fieldNames) {
+        this.indexedFieldNames = Arrays.asList( fieldNames );
+        fieldIndexes.clear();
+        buildFieldIndexes();
+    }
+
+    /** Set the visible data, invalidating the row lookup indexes. */
+    private void setVisibleData(List visibleData) {
+        this.visibleData = visibleData;
+        fieldIndexes.clear();
+    }
+
+    /** Build the row lookup indexes for all indexed fields. */
+    private void buildFieldIndexes() {
+        if( isPaged() ) {
+            // Lookups on paged data scan the resident rows.
+            return;
+        }
+        for( String fieldName : indexedFieldNames ) {
+            getFieldIndex( fieldName );
+        }
+    }
+
+    /** Get the row lookup index for a field, building the index if necessary. */
+    private Map<Object,NSIndexPath> getFieldIndex(String fieldName) {
+        Map<Object,NSIndexPath> index = fieldIndexes.get( fieldName );
+        if( index == null ) {
+            index = new HashMap<>();
+            if( grouped ) {
+                for( int s = 0; s < visibleData.size(); s++ ) {
+                    List sectionData = (List)visibleData.get( s );
+                    for( int r = 0; r < sectionData.size(); r++ ) {
+                        addToFieldIndex( index, (Map)sectionData.get( r ), fieldName, r, s );
+                    }
+                }
+            }
+            else for( int r = 0; r < visibleData.size(); r++ ) {
+                addToFieldIndex( index, (Map)visibleData.get( r ), fieldName, r, 0 );
+            }
+            fieldIndexes.put( fieldName, index );
+        }
+        return index;
+    }
+
+    /** Add a row to a row lookup index, unless an earlier row has the same value. */
+    private void addToFieldIndex(Map<Object,NSIndexPath> index, Map rowData, String fieldName, int row, int section) {
+        Object fieldValue = rowData.get( fieldName );
+        if( fieldValue != null && !index.containsKey( fieldValue ) ) {
+            index.put( fieldValue, NSIndexPath.indexPathForRowInSection( row, section ) );
+        }
+    }
+
+    /**
+     * Get a snapshot of the visible rows, as a list of sections.
+     * The snapshot isn't affected by later changes to the table data, and so can be used to
+     * diff the table data off the UI thread. Row data maps are shared with the table data, but
+     * each row's content hash is recorded so that rows later modified in place can be detected.
+     */
+    public TableSections getVisibleSections() {
+        TableSections sections = new TableSections();
+        if( visibleData.size() > 0 ) {
+            if( grouped ) {
+                for( Object section : visibleData ) {
+                    sections.addSection( (List)section );
+                }
+            }
+            else {
+                sections.addSection( visibleData );
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Hold the rows displayed by the table view.
+     * Until releaseDisplayedRows() is called, the section counts, sizes, titles and rows returned
+     * by index path are read from the held rows instead of the visible data. Used to keep the table
+     * view's rows consistent with its row counts while the changes to the visible data are
+     * calculated off the UI thread. Must be called on the UI thread.
+     * @param sections  A snapshot of previously visible rows, see getVisibleSections().
+     * @param titles    The section titles of the previously visible rows.
+     */
+    public void holdDisplayedRows(TableSections sections, List<String> titles) {
+        heldSections = sections;
+        heldSectionTitles = titles;
+    }
+
+    /** Release the held rows; the visible data is used again. Must be called on the UI thread. */
+    public void releaseDisplayedRows() {
+        heldSections = null;
+        heldSectionTitles = null;
+    }
+
+    public void setIDFieldName(String idFieldName) {
+        this.idFieldName = idFieldName;
+    }
+
+    public String getIDFieldName() {
+        return idFieldName;
+    }
+
     public boolean isEmpty() {
         return data.size() == 0;
     }
@@ -279,6 +539,9 @@ public class TableData {
      * @return
      */
     public int getSectionCount() {
+        if( heldSections != null ) {
+            return heldSections.size();
+        }
         if( visibleData.size() > 0 ) {
             return grouped ? visibleData.size() : 1;
         }
@@ -292,6 +555,9 @@ public class TableData {
      * @return
      */
     public int getSectionSize(int section) {
+        if( heldSections != null ) {
+            return section < heldSections.size() ? heldSections.get( section ).size() : 0;
+        }
         int size = 0;
         if( visibleData.size() > 0 ) {
             if( grouped ) {
@@ -325,12 +591,13 @@ public class TableData {
             }
         }
         else for( Object rowObj : data ) {
+            // NOTE Rows of paged data which aren't resident are null, and are excluded.
             Map row = (Map)rowObj;
-            if( predicate.testRow( row ) ) {
+            if( row != null && predicate.testRow( row ) ) {
                 result.add( row );
             }
         }
-        this.visibleData = result;
+        setVisibleData( result );
     }
 
     public void filterBy(String searchTerm) {
@@ -338,6 +605,15 @@ public class TableData {
     }
 
     public void filterBy(String searchTerm, String scope) {
+        TableSearchIndex index = searchIndex;
+        if( index != null && index.getData() == data ) {
+            List result = index.filter( searchTerm, scope );
+            if( result != null ) {
+                setVisibleData( result );
+                return;
+            }
+            // Else the scope field isn't indexed, so fall through to a scan of the data.
+        }
         // Convert search term to lower case (for a case insensitive match).
         final String lcSearchTerm = searchTerm.toLowerCase();
         // The list of data fields to include in the search.
@@ -360,24 +636,31 @@ public class TableData {
     }
 
     public void clearFilter() {
-        visibleData = data;
+        setVisibleData( data );
     }
 
     public void setSearchFieldNames(List<String> searchFieldNames) {
         this.searchFieldNames = searchFieldNames;
+        buildSearchIndex();
     }
 
     public void setSearchFieldNames(String... searchFieldNames) {
-        this.searchFieldNames = Arrays.asList( searchFieldNames );
+        setSearchFieldNames( Arrays.asList( searchFieldNames ) );
     }
 
     public String getSectionTitle(int section) {
-        if( section < sectionTitles.size() ) {
-            return sectionTitles.get( section );
+        List<String> titles = heldSections != null ? heldSectionTitles : sectionTitles;
+        if( section < titles.size() ) {
+            return titles.get( section );
         }
         return null;
     }
 
+    /** Get the section titles of the visible data. */
+    public List<String> getSectionTitles() {
+        return Collections.unmodifiableList( sectionTitles );
+    }
+
     // Image handlers.
 
     public Drawable loadImageWithRowData(Configuration rowData, String dataName) {
@@ -389,27 +672,136 @@ public class TableData {
 
     public Drawable loadImageWithRowData(Configuration rowData, String dataName, Drawable defaultImage, float radius) {
         Drawable result = null;
-        Object imageRef = rowData.getUnmodifiedValue( dataName );
-        if( imageRef != null ) {
-            if( radius > 0.0f ) {
-                imageRef = String.format( "%s.radius:%f", imageRef, radius );
+        String cacheKey = getImageCacheKey( rowData, dataName, radius );
+        if( cacheKey != null ) {
+            result = getCachedImage( cacheKey );
+            if( result == null && !imagePipeline.isKnownMiss( cacheKey ) ) {
+                result = resolveImageWithRowData( rowData, dataName, cacheKey, radius );
             }
-            result = ImageCache.get( imageRef );
             if( result == null ) {
-                result = rowData.getValueAsImage( dataName );
-                if( result == null ) {
-                    result = defaultImage;
-                }
-                if( result == null ) {
-                    result = NullImage;
-                }
-                else if( radius > 0.0f && result instanceof BitmapDrawable ) {
-                    result = Images.toRoundedCorner( (BitmapDrawable)result, radius );
-                }
+                result = defaultImage;
             }
-            ImageCache.put( imageRef, result );
         }
-        return result == NullImage ? null : result;
+        return result;
+    }
+
+    public Drawable loadImageWithRowData(TableRowData row, String dataName) {
+        return loadImageWithRowData( row, dataName, null, 0.0f );
+    }
+    public Drawable loadImageWithRowData(TableRowData row, String dataName, Drawable defaultImage) {
+        return loadImageWithRowData( row, dataName, defaultImage, 0.0f );
+    }
+
+    public Drawable loadImageWithRowData(TableRowData row, String dataName, Drawable defaultImage, float radius) {
+        return loadImageWithRowData( row, dataName, defaultImage, radius, 0, 0 );
+    }
+
+    /**
+     * Load a row image, downsampled to the size of the view displaying it.
+     * @param width     The target width, in pixels; or 0 to load the image at full size.
+     * @param height    The target height, in pixels; or 0 to load the image at full size.
+     */
+    public Drawable loadImageWithRowData(TableRowData row, String dataName, Drawable defaultImage, float radius, int width, int height) {
+        Drawable result = null;
+        String cacheKey = getImageCacheKey( row, dataName, radius, width, height );
+        if( cacheKey != null ) {
+            result = getCachedImage( cacheKey );
+            if( result == null && !imagePipeline.isKnownMiss( cacheKey ) ) {
+                // The row's configuration is only needed when the image isn't already cached.
+                result = resolveImageWithRowData( row.asConfiguration(), dataName, cacheKey, radius, width, height );
+            }
+            if( result == null ) {
+                result = defaultImage;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the key used to cache a row image.
+     * @return The cache key, or null if the row has no value for the image.
+     */
+    public String getImageCacheKey(Configuration rowData, String dataName, float radius) {
+        return makeImageCacheKey( rowData.getUnmodifiedValue( dataName ), radius, 0, 0 );
+    }
+
+    /**
+     * Get the key used to cache a row image.
+     * @return The cache key, or null if the row has no value for the image.
+     */
+    public String getImageCacheKey(TableRowData row, String dataName, float radius) {
+        return makeImageCacheKey( row.getUnmodifiedValue( dataName ), radius, 0, 0 );
+    }
+
+    /**
+     * Get the key used to cache a row image loaded at a target size.
+     * @return The cache key, or null if the row has no value for the image.
+     */
+    public String getImageCacheKey(TableRowData row, String dataName, float radius, int width, int height) {
+        return makeImageCacheKey( row.getUnmodifiedValue( dataName ), radius, width, height );
+    }
+
+    /** Make an image cache key from an unresolved image reference. */
+    private String makeImageCacheKey(Object imageRef, float radius, int width, int height) {
+        if( imageRef == null ) {
+            return null;
+        }
+        String cacheKey = ImagePipeline.makeCacheKey( imageRef.toString(), width, height );
+        if( radius > 0.0f ) {
+            cacheKey = ImagePipeline.makeDerivedCacheKey( cacheKey, ImageTransform.roundedCorners( radius ) );
+        }
+        return cacheKey;
+    }
+
+    /**
+     * Get a row image from the image cache.
+     * @return The cached image, or null if the image isn't in the cache.
+     */
+    public Drawable getCachedImage(String cacheKey) {
+        Bitmap bitmap = imagePipeline.getCachedBitmap( cacheKey );
+        return bitmap != null ? imagePipeline.toDrawable( bitmap ) : null;
+    }
+
+    /** Test whether a row image is known not to be loadable. */
+    public boolean isKnownImageMiss(String cacheKey) {
+        return imagePipeline.isKnownMiss( cacheKey );
+    }
+
+    /**
+     * Resolve and decode a row image, and add the result to the image cache.
+     * This method can be called from a background thread, provided that the row data isn't shared
+     * with other threads (e.g. the configuration of a row returned by getRowForIndexPath()).
+     * @return The image, or null if the image can't be loaded.
+     */
+    public Drawable resolveImageWithRowData(Configuration rowData, String dataName, String cacheKey, float radius) {
+        return resolveImageWithRowData( rowData, dataName, cacheKey, radius, 0, 0 );
+    }
+
+    /**
+     * Resolve and decode a row image, downsampled to a target size, and add the result to the
+     * image cache. The cache key should be the key returned by getImageCacheKey() for the same
+     * target size.
+     * @param width     The target width, in pixels; or 0 to load the image at full size.
+     * @param height    The target height, in pixels; or 0 to load the image at full size.
+     * @return The image, or null if the image can't be loaded.
+     */
+    public Drawable resolveImageWithRowData(Configuration rowData, String dataName, String cacheKey, float radius, int width, int height) {
+        Drawable result = rowData.getValueAsImage( dataName, width, height );
+        if( result instanceof BitmapDrawable ) {
+            Bitmap bitmap = ((BitmapDrawable)result).getBitmap();
+            if( radius > 0.0f ) {
+                // The pipeline caches the rounded bitmap separately from its source image.
+                bitmap = imagePipeline.transformBitmap( cacheKey, bitmap, ImageTransform.roundedCorners( radius ) );
+                result = imagePipeline.toDrawable( bitmap );
+            }
+            else {
+                imagePipeline.putCachedBitmap( cacheKey, bitmap );
+            }
+        }
+        else if( result == null ) {
+            imagePipeline.recordMiss( cacheKey );
+        }
+        return result;
     }
 
-}
\ No newline at end of file
+}
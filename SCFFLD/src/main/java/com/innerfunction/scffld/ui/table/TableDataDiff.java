@@ -0,0 +1,254 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import com.innerfunction.util.RunQueue;
+
+import com.nakardo.atableview.foundation.NSIndexPath;
+import com.nakardo.atableview.protocol.ATableViewRowMapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The differences between two versions of a table's visible rows.
+ * Rows are matched between the two versions using a row identity field (by default, "id"); rows
+ * without an identity are matched by position. The diff lists the rows deleted from the old
+ * version, the rows inserted into the new version, the matched rows which have moved relative to
+ * the other matched rows, and the matched rows whose data has changed.
+ *
+ * A diff can only describe changes to rows within sections; if the number of sections differs
+ * between the two versions then the diff instead indicates that the whole table must be reloaded.
+ *
+ * A diff is also a row mapping for the table view, so that the cached heights of unchanged rows
+ * are moved to the rows' new index paths when the diff is applied.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class TableDataDiff implements ATableViewRowMapping {
+
+    /** The default name of the row identity field. */
+    public static final String DefaultIDFieldName = "id";
+    /** The number of rows above which diffs should be calculated off the UI thread. */
+    public static final int BackgroundDiffThreshold = 500;
+    /** A queue for calculating large diffs on a background thread. */
+    public static final RunQueue DiffQueue = new RunQueue( TableDataDiff.class.getSimpleName() );
+
+    /** A flag indicating that the table must be reloaded, i.e. the diff can't describe the changes. */
+    private boolean reload;
+    /** The index paths, in the old version, of deleted rows. */
+    private List<NSIndexPath> deleted = new ArrayList<>();
+    /** The index paths, in the new version, of inserted rows. */
+    private List<NSIndexPath> inserted = new ArrayList<>();
+    /** The index paths, in the new version, of moved rows. */
+    private List<NSIndexPath> moved = new ArrayList<>();
+    /** The index paths, in the new version, of rows whose data has changed. */
+    private List<NSIndexPath> changed = new ArrayList<>();
+    /** The old index paths of matched rows, mapped to the rows' new index paths. */
+    private Map<String,NSIndexPath> matches = new HashMap<>();
+    /** The old index paths of unchanged rows, by new section and row; null for inserted or changed rows. */
+    private List<NSIndexPath[]> unchangedOldIndexPaths = new ArrayList<>();
+
+    private TableDataDiff() {}
+
+    /** Test whether the table must be reloaded, instead of having the diff applied. */
+    public boolean requiresReload() {
+        return reload;
+    }
+
+    /** Test whether the diff contains no changes. */
+    public boolean isEmpty() {
+        return !reload && deleted.isEmpty() && inserted.isEmpty() && moved.isEmpty() && changed.isEmpty();
+    }
+
+    /** Test whether the diff contains insertions, deletions or moves. */
+    public boolean hasStructuralChanges() {
+        return reload || !(deleted.isEmpty() && inserted.isEmpty() && moved.isEmpty());
+    }
+
+    public List<NSIndexPath> getDeleted() {
+        return deleted;
+    }
+
+    public List<NSIndexPath> getInserted() {
+        return inserted;
+    }
+
+    public List<NSIndexPath> getMoved() {
+        return moved;
+    }
+
+    public List<NSIndexPath> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Get the new index path of a row.
+     * @param indexPath The row's index path in the old version.
+     * @return The row's index path in the new version, or null if the row was deleted.
+     */
+    public NSIndexPath getNewIndexPath(NSIndexPath indexPath) {
+        return matches.get( indexPathKey( indexPath.getSection(), indexPath.getRow() ) );
+    }
+
+    /**
+     * Get the old index path of an unchanged row.
+     * @param indexPath The row's index path in the new version.
+     * @return The row's index path in the old version, or null if the row was inserted or its
+     * data has changed.
+     */
+    @Override
+    public NSIndexPath previousIndexPathForRowAtIndexPath(NSIndexPath indexPath) {
+        int section = indexPath.getSection();
+        int row = indexPath.getRow();
+        if( section < 0 || section >= unchangedOldIndexPaths.size() ) {
+            return null;
+        }
+        NSIndexPath[] oldIndexPaths = unchangedOldIndexPaths.get( section );
+        return row >= 0 && row < oldIndexPaths.length ? oldIndexPaths[row] : null;
+    }
+
+    @Override
+    public String toString() {
+        if( reload ) {
+            return "TableDataDiff[reload]";
+        }
+        return String.format("TableDataDiff[deleted=%d inserted=%d moved=%d changed=%d]",
+            deleted.size(), inserted.size(), moved.size(), changed.size() );
+    }
+
+    /**
+     * Calculate the differences between two versions of a table's rows.
+     * This method can be called off the UI thread. Rows are compared using the content hashes
+     * recorded in each snapshot, so a row whose data was modified in place between the two
+     * snapshots is reported as changed, even though both snapshots share its data map.
+     * @param oldSections   The old version of the table rows.
+     * @param newSections   The new version of the table rows.
+     * @param idFieldName   The name of the row identity field.
+     */
+    public static TableDataDiff calculate(TableSections oldSections, TableSections newSections, String idFieldName) {
+        TableDataDiff diff = new TableDataDiff();
+        if( oldSections.size() != newSections.size() ) {
+            diff.reload = true;
+            return diff;
+        }
+        // Index the old rows by identity.
+        Map<Object,int[]> oldRowsByID = new HashMap<>();
+        List<int[]> oldPositions = new ArrayList<>();
+        for( int s = 0; s < oldSections.size(); s++ ) {
+            List<Map> section = oldSections.get( s );
+            for( int r = 0; r < section.size(); r++ ) {
+                int[] position = new int[]{ s, r, oldPositions.size(), 0 };
+                oldPositions.add( position );
+                oldRowsByID.put( rowIdentity( section.get( r ), idFieldName, s, r ), position );
+            }
+        }
+        // Match the new rows to the old rows. The old flat index of each matched row is recorded,
+        // in new row order, so that moved rows can be found.
+        List<Integer> matchedOldIndexes = new ArrayList<>();
+        List<NSIndexPath> matchedNewIndexPaths = new ArrayList<>();
+        for( int s = 0; s < newSections.size(); s++ ) {
+            List<Map> section = newSections.get( s );
+            NSIndexPath[] unchanged = new NSIndexPath[section.size()];
+            diff.unchangedOldIndexPaths.add( unchanged );
+            for( int r = 0; r < section.size(); r++ ) {
+                Map newRow = section.get( r );
+                int[] position = oldRowsByID.get( rowIdentity( newRow, idFieldName, s, r ) );
+                NSIndexPath newIndexPath = NSIndexPath.indexPathForRowInSection( r, s );
+                if( position == null || position[3] != 0 ) {
+                    diff.inserted.add( newIndexPath );
+                    continue;
+                }
+                // Mark the old row as matched.
+                position[3] = 1;
+                diff.matches.put( indexPathKey( position[0], position[1] ), newIndexPath );
+                matchedOldIndexes.add( position[2] );
+                matchedNewIndexPaths.add( newIndexPath );
+                long oldHash = oldSections.getContentHash( position[0], position[1] );
+                if( oldHash != newSections.getContentHash( s, r ) ) {
+                    diff.changed.add( newIndexPath );
+                }
+                else {
+                    unchanged[r] = NSIndexPath.indexPathForRowInSection( position[1], position[0] );
+                }
+            }
+        }
+        for( int[] position : oldPositions ) {
+            if( position[3] == 0 ) {
+                diff.deleted.add( NSIndexPath.indexPathForRowInSection( position[1], position[0] ) );
+            }
+        }
+        // Matched rows which aren't part of the longest increasing run of old indexes have moved.
+        boolean[] stationary = longestIncreasingSubsequence( matchedOldIndexes );
+        for( int i = 0; i < stationary.length; i++ ) {
+            if( !stationary[i] ) {
+                diff.moved.add( matchedNewIndexPaths.get( i ) );
+            }
+        }
+        return diff;
+    }
+
+    /** Get a row's identity. Rows without an identity field are identified by their position. */
+    static Object rowIdentity(Map row, String idFieldName, int section, int rowIndex) {
+        Object id = row.get( idFieldName );
+        if( id != null ) {
+            return id;
+        }
+        return Arrays.asList( section, rowIndex );
+    }
+
+    /** Make a key for an index path. */
+    static String indexPathKey(int section, int row) {
+        return section+":"+row;
+    }
+
+    /**
+     * Find the longest increasing subsequence of a list of integers.
+     * @return An array of flags indicating which list items are in the subsequence.
+     */
+    static boolean[] longestIncreasingSubsequence(List<Integer> values) {
+        int count = values.size();
+        boolean[] result = new boolean[count];
+        // tails[k] is the index of the smallest value ending an increasing subsequence of length k+1.
+        int[] tails = new int[count];
+        int[] previous = new int[count];
+        int length = 0;
+        for( int i = 0; i < count; i++ ) {
+            int value = values.get( i );
+            int low = 0, high = length;
+            while( low < high ) {
+                int mid = (low + high) >>> 1;
+                if( values.get( tails[mid] ) < value ) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if( low == length ) {
+                length++;
+            }
+        }
+        for( int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i] ) {
+            result[i] = true;
+        }
+        return result;
+    }
+}
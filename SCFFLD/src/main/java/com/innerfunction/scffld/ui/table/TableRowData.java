@@ -0,0 +1,128 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import com.innerfunction.scffld.Configuration;
+import com.innerfunction.util.TypeConversions;
+
+import java.util.Map;
+
+/**
+ * A lightweight, read-only view of a table row's data.
+ * Row values which are plain strings or numbers are read directly from the row's data, without
+ * the cost of key path resolution and value modifiers. Values which need resolving (i.e. strings
+ * with a $, ?, >, @, # or ` prefix) are read through a full configuration, which is only created
+ * when first needed. Row data instances are immutable and can be used from any thread, and any
+ * number of rows can be held at once.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class TableRowData {
+
+    /** Prefixes of string values which are modified when read through a configuration. */
+    static final String ValuePrefixes = "$?>@#`";
+
+    /** The row's data. */
+    private final Map data;
+    /** The parent of the row's configuration. */
+    private final Configuration parent;
+    /** Type conversions, for reading values in other representations. */
+    private final TypeConversions conversions;
+    /** The row's configuration; created when first needed. */
+    private volatile Configuration configuration;
+
+    TableRowData(Map data, Configuration parent, TypeConversions conversions) {
+        this.data = data;
+        this.parent = parent;
+        this.conversions = conversions;
+    }
+
+    /** Get the row's raw data. */
+    public Map getData() {
+        return data;
+    }
+
+    /** Get the row's title. */
+    public String getTitle() {
+        return getString("title", null );
+    }
+
+    /** Get the row's description. */
+    public String getDescription() {
+        return getString("description", null );
+    }
+
+    /** Get the row's unresolved image reference. */
+    public Object getImageRef() {
+        return data.get("image");
+    }
+
+    /** Get the row's height. */
+    public Number getHeight(Number defaultValue) {
+        return getNumber("height", defaultValue );
+    }
+
+    /** Get the unresolved value of a row field. */
+    public Object getUnmodifiedValue(String name) {
+        return data.get( name );
+    }
+
+    /** Get a row value as a string. */
+    public String getString(String name, String defaultValue) {
+        Object value = data.get( name );
+        if( value == null ) {
+            return defaultValue;
+        }
+        if( value instanceof String && !needsResolving( (String)value ) ) {
+            return (String)value;
+        }
+        return asConfiguration().getValueAsString( name, defaultValue );
+    }
+
+    /** Get a row value as a number. */
+    public Number getNumber(String name, Number defaultValue) {
+        Object value = data.get( name );
+        if( value == null ) {
+            return defaultValue;
+        }
+        if( value instanceof Number ) {
+            return (Number)value;
+        }
+        return asConfiguration().getValueAsNumber( name, defaultValue );
+    }
+
+    /** Get a row value as a colour. */
+    public int getColor(String name, String defaultValue) {
+        return conversions.asColor( getString( name, defaultValue ) );
+    }
+
+    /**
+     * Get the row's data as a configuration.
+     * Use the configuration to read values in representations not supported by this class.
+     */
+    public Configuration asConfiguration() {
+        Configuration result = configuration;
+        if( result == null ) {
+            result = new Configuration( data, parent );
+            configuration = result;
+        }
+        return result;
+    }
+
+    /** Test whether a string value needs resolving through a configuration. */
+    static boolean needsResolving(String value) {
+        return value.length() > 1 && ValuePrefixes.indexOf( value.charAt( 0 ) ) > -1;
+    }
+}
@@ -0,0 +1,324 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A search index over a table's row data.
+ * The index holds a lower case copy of each row's searchable fields, and an inverted index from
+ * each trigram (three character sequence) in those fields to the rows containing it. A search
+ * for a term of three or more characters only examines the rows containing every trigram of the
+ * term. When a search term narrows a previous term (i.e. contains it, as typically happens when
+ * a search term is typed) then only the rows matched by the previous search are examined.
+ *
+ * Indexes are immutable once built, other than the record of the last search, and can be built
+ * off the UI thread. The class has no Android dependencies.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class TableSearchIndex {
+
+    /** The length of the character sequences indexed. */
+    static final int GramSize = 3;
+
+    /** A growable list of row numbers. */
+    static class Postings {
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row) {
+            // Rows are added in order, so only the last entry needs checking for duplicates.
+            if( size > 0 && rows[size - 1] == row ) {
+                return;
+            }
+            if( size == rows.length ) {
+                rows = Arrays.copyOf( rows, size * 2 );
+            }
+            rows[size++] = row;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf( rows, size );
+        }
+    }
+
+    /** The table data the index was built from. */
+    private List data;
+    /** A flag indicating whether the data is grouped into sections. */
+    private boolean grouped;
+    /** The names of the indexed fields. */
+    private List<String> fieldNames;
+    /** The rows, in table order. */
+    private Map[] rows;
+    /** The section number of each row. */
+    private int[] rowSections;
+    /** The number of sections. */
+    private int sectionCount;
+    /** The lower case value of each indexed field of each row; indexed by field then row. */
+    private String[][] texts;
+    /** The rows containing each trigram, in ascending order; keyed by packed trigram. */
+    private Map<Long,int[]> postings;
+    /** The term of the last search. */
+    private String lastTerm;
+    /** The scope of the last search. */
+    private String lastScope;
+    /** The rows matched by the last search. */
+    private int[] lastResult;
+
+    /**
+     * Build a search index.
+     * @param data          The table data; either a list of rows, or a list of sections when grouped.
+     * @param grouped       Whether the table data is grouped into sections.
+     * @param fieldNames    The names of the row fields to index.
+     */
+    public TableSearchIndex(List data, boolean grouped, List<String> fieldNames) {
+        this.data = data;
+        this.grouped = grouped;
+        this.fieldNames = new ArrayList<>( fieldNames );
+        // Flatten the rows.
+        List<Map> rowList = new ArrayList<>();
+        List<Integer> sectionList = new ArrayList<>();
+        if( grouped ) {
+            sectionCount = data.size();
+            for( int s = 0; s < sectionCount; s++ ) {
+                for( Object row : (List)data.get( s ) ) {
+                    rowList.add( (Map)row );
+                    sectionList.add( s );
+                }
+            }
+        }
+        else {
+            sectionCount = 1;
+            for( Object row : data ) {
+                rowList.add( (Map)row );
+                sectionList.add( 0 );
+            }
+        }
+        rows = rowList.toArray( new Map[rowList.size()] );
+        rowSections = new int[rows.length];
+        for( int i = 0; i < rows.length; i++ ) {
+            rowSections[i] = sectionList.get( i );
+        }
+        // Extract the field values and index their trigrams.
+        Map<Long,Postings> builders = new HashMap<>();
+        texts = new String[this.fieldNames.size()][rows.length];
+        for( int f = 0; f < texts.length; f++ ) {
+            String fieldName = this.fieldNames.get( f );
+            for( int r = 0; r < rows.length; r++ ) {
+                Object value = rows[r] != null ? rows[r].get( fieldName ) : null;
+                if( value instanceof String ) {
+                    String text = ((String)value).toLowerCase();
+                    texts[f][r] = text;
+                    for( int i = 0; i + GramSize <= text.length(); i++ ) {
+                        Long gram = packGram( text, i );
+                        Postings p = builders.get( gram );
+                        if( p == null ) {
+                            p = new Postings();
+                            builders.put( gram, p );
+                        }
+                        p.add( r );
+                    }
+                }
+            }
+        }
+        // NOTE Rows are visited once per field, so postings can be out of order when more than
+        // one field is indexed; they are sorted when frozen.
+        postings = new HashMap<>( builders.size() );
+        for( Map.Entry<Long,Postings> entry : builders.entrySet() ) {
+            int[] rowNumbers = entry.getValue().toArray();
+            if( texts.length > 1 ) {
+                rowNumbers = sortUnique( rowNumbers );
+            }
+            postings.put( entry.getKey(), rowNumbers );
+        }
+    }
+
+    /** Get the table data the index was built from. */
+    public List getData() {
+        return data;
+    }
+
+    /** Get the names of the indexed fields. */
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /** Test whether a field is indexed. */
+    public boolean isIndexed(String fieldName) {
+        return fieldNames.contains( fieldName );
+    }
+
+    /**
+     * Search the index.
+     * @param searchTerm    The search term; matched case insensitively.
+     * @param scope         The name of a single field to search, or null to search all indexed fields.
+     * @return The numbers of the matching rows, in table order; or null if the scope isn't indexed.
+     */
+    public synchronized int[] search(String searchTerm, String scope) {
+        int field = -1;
+        if( scope != null ) {
+            field = fieldNames.indexOf( scope );
+            if( field < 0 ) {
+                return null;
+            }
+        }
+        String term = searchTerm.toLowerCase();
+        int[] candidates;
+        if( lastResult != null && term.contains( lastTerm ) && equal( scope, lastScope ) ) {
+            // The term narrows the last search, so only rows matched by that search can match.
+            candidates = lastResult;
+        }
+        else if( term.length() >= GramSize ) {
+            candidates = candidatesForTerm( term );
+        }
+        else {
+            candidates = null;
+        }
+        int[] result = new int[candidates != null ? candidates.length : rows.length];
+        int count = 0;
+        if( candidates != null ) {
+            for( int row : candidates ) {
+                if( matches( row, term, field ) ) {
+                    result[count++] = row;
+                }
+            }
+        }
+        else for( int row = 0; row < rows.length; row++ ) {
+            if( matches( row, term, field ) ) {
+                result[count++] = row;
+            }
+        }
+        lastTerm = term;
+        lastScope = scope;
+        lastResult = Arrays.copyOf( result, count );
+        return lastResult;
+    }
+
+    /**
+     * Filter the table data by a search term.
+     * @return The filtered table data, in the same format (grouped or ungrouped) as the indexed
+     * data; or null if the scope isn't indexed. When grouped, every section is included in the
+     * result, even if it has no matching rows.
+     */
+    @SuppressWarnings("unchecked")
+    public List filter(String searchTerm, String scope) {
+        int[] matched = search( searchTerm, scope );
+        if( matched == null ) {
+            return null;
+        }
+        if( !grouped ) {
+            List result = new ArrayList( matched.length );
+            for( int row : matched ) {
+                result.add( rows[row] );
+            }
+            return result;
+        }
+        List<List<Map>> sections = new ArrayList<>( sectionCount );
+        for( int s = 0; s < sectionCount; s++ ) {
+            sections.add( new ArrayList<Map>() );
+        }
+        for( int row : matched ) {
+            sections.get( rowSections[row] ).add( rows[row] );
+        }
+        return sections;
+    }
+
+    /** Get the rows which contain every trigram of a search term. */
+    private int[] candidatesForTerm(String term) {
+        List<int[]> lists = new ArrayList<>();
+        for( int i = 0; i + GramSize <= term.length(); i++ ) {
+            int[] list = postings.get( packGram( term, i ) );
+            if( list == null ) {
+                return new int[0];
+            }
+            lists.add( list );
+        }
+        // Intersect the shortest lists first.
+        Collections.sort( lists, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] l1, int[] l2) {
+                return l1.length - l2.length;
+            }
+        });
+        int[] result = lists.get( 0 );
+        for( int i = 1; i < lists.size() && result.length > 0; i++ ) {
+            result = intersect( result, lists.get( i ) );
+        }
+        return result;
+    }
+
+    /** Test whether a row matches a search term. */
+    private boolean matches(int row, String term, int field) {
+        if( field > -1 ) {
+            String text = texts[field][row];
+            return text != null && text.contains( term );
+        }
+        for( String[] fieldTexts : texts ) {
+            String text = fieldTexts[row];
+            if( text != null && text.contains( term ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Pack the three characters at a position in a string into a single value. */
+    static Long packGram(String text, int idx) {
+        return ((long)text.charAt( idx ) << 32) | ((long)text.charAt( idx + 1 ) << 16) | (long)text.charAt( idx + 2 );
+    }
+
+    /** Intersect two ascending lists of row numbers. */
+    static int[] intersect(int[] l1, int[] l2) {
+        int[] result = new int[Math.min( l1.length, l2.length )];
+        int i = 0, j = 0, count = 0;
+        while( i < l1.length && j < l2.length ) {
+            if( l1[i] < l2[j] ) {
+                i++;
+            }
+            else if( l1[i] > l2[j] ) {
+                j++;
+            }
+            else {
+                result[count++] = l1[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf( result, count );
+    }
+
+    /** Sort a list of row numbers and remove duplicates. */
+    static int[] sortUnique(int[] values) {
+        Arrays.sort( values );
+        int count = 0;
+        for( int i = 0; i < values.length; i++ ) {
+            if( count == 0 || values[count - 1] != values[i] ) {
+                values[count++] = values[i];
+            }
+        }
+        return Arrays.copyOf( values, count );
+    }
+
+    static boolean equal(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals( s2 );
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of a table's visible rows, as a list of sections.
+ * The snapshot copies the section lists but shares the row data maps with the table data, so the
+ * content hash of each row is recorded when the snapshot is taken. Comparing the hashes of two
+ * snapshots detects rows whose data was modified in place between them.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("rawtypes")
+public class TableSections {
+
+    /** The rows in each section. */
+    private final List<List<Map>> sections = new ArrayList<>();
+    /** The content hash of each row, by section and row. */
+    private final List<long[]> contentHashes = new ArrayList<>();
+    /** The total number of rows. */
+    private int rowCount;
+
+    TableSections() {}
+
+    /** Add a copy of a section's rows to the snapshot. */
+    @SuppressWarnings("unchecked")
+    void addSection(List rows) {
+        List<Map> section = new ArrayList<Map>( rows );
+        long[] hashes = new long[section.size()];
+        for( int i = 0; i < hashes.length; i++ ) {
+            hashes[i] = TableData.contentHash( section.get( i ) );
+        }
+        sections.add( section );
+        contentHashes.add( hashes );
+        rowCount += hashes.length;
+    }
+
+    /** Get the number of sections. */
+    public int size() {
+        return sections.size();
+    }
+
+    /** Get the rows in a section. */
+    public List<Map> get(int section) {
+        return sections.get( section );
+    }
+
+    /** Get the content hash of a row, as it was when the snapshot was taken. */
+    public long getContentHash(int section, int row) {
+        return contentHashes.get( section )[row];
+    }
+
+    /** Get the total number of rows in all sections. */
+    public int getRowCount() {
+        return rowCount;
+    }
+}
@@ -48,6 +48,8 @@ public class TableViewCellFactory implements IOCContextAware {
     static final int DefaultImageHeight = 50;
     static final int DefaultImageWidth = 50;
     static final String BackgroundImageViewTag = "BackgroundImageView";
+    /** The name of the row data value containing the cell's image. */
+    static final String ImageDataName = "image";
     static final String Black = "#000000";
     static final String White = "#FFFFFF";
 
@@ -174,14 +176,14 @@ public class TableViewCellFactory implements IOCContextAware {
     @SuppressLint("DefaultLocale")
     public ATableViewCell resolveCellForTable(ATableView tableView, NSIndexPath indexPath, ATableViewDataSource dataSource) {
 
-        Configuration rowData = tableData.getRowDataForIndexPath( indexPath );
+        TableRowData row = tableData.getRowForIndexPath( indexPath );
 
         // Read title and description.
-        String title = rowData.getValueAsString("title");
-        String description = rowData.getValueAsString("description");
+        String title = row.getTitle();
+        String description = row.getDescription();
 
         // Resolve a style identifier for the row.
-        String style = rowData.getValueAsString("style", this.style );
+        String style = row.getString("style", this.style );
         if( style == null ) {
             // If no style identifier and a description is provided then choose a style that will
             // display the description.
@@ -205,48 +207,50 @@ public class TableViewCellFactory implements IOCContextAware {
             else if( "Subtitle".equals( style ) ) {
                 cellStyle = ATableViewCellStyle.Subtitle;
             }
-            cell = new ATableViewCell( cellStyle, style, parent.getActivity() );
+            // Reuse a cell released by another table, if available.
+            cell = TableViewCellPool.getInstance().obtainCell( parent.getActivity(), cellStyle, style );
         }
 
         TextView textLabel = cell.getTextLabel();
         textLabel.setText( title );
-        textLabel.setTextColor( rowData.getValueAsColor("textColor", textColor ) );
+        textLabel.setTextColor( row.getColor("textColor", textColor ) );
         // TODO: android TextView only has setHighlightColor, not highlightedTextColor
-        textLabel.setHighlightColor( rowData.getValueAsColor("selectedTextColor", selectedTextColor ) );
+        textLabel.setHighlightColor( row.getColor("selectedTextColor", selectedTextColor ) );
         textLabel.setBackgroundColor( Color.TRANSPARENT );
 
         TextView detailTextLabel = cell.getDetailTextLabel();
         if( description != null && detailTextLabel != null ) {
             detailTextLabel.setText( description );
-            detailTextLabel.setTextColor( rowData.getValueAsColor("detailTextColor", detailTextColor ) );
-            detailTextLabel.setHighlightColor( rowData.getValueAsColor("detailSelectedTextColor", selectedDetailTextColor ) );
+            detailTextLabel.setTextColor( row.getColor("detailTextColor", detailTextColor ) );
+            detailTextLabel.setHighlightColor( row.getColor("detailSelectedTextColor", selectedDetailTextColor ) );
             detailTextLabel.setBackgroundColor( Color.TRANSPARENT );
         }
 
-        cell.setBackgroundColor( rowData.getValueAsColor( "backgroundColor", backgroundColor ) );
+        cell.setBackgroundColor( row.getColor("backgroundColor", backgroundColor ) );
 
-        Number imageHeight = rowData.getValueAsNumber( "imageHeight", this.imageHeight );
-        if( imageHeight == null ) {
-            imageHeight = rowData.getValueAsNumber( "height", height );
-        }
-        if( imageHeight.intValue() == 0 ) {
-            imageHeight = DefaultImageHeight;
-        }
-        Number imageWidth = rowData.getValueAsNumber( "imageWidth", this.imageWidth );
-        if( imageWidth.intValue() == 0 ) {
-            imageHeight = DefaultImageWidth;
-        }
+        Number imageHeight = getImageHeight( row );
+        Number imageWidth = getImageWidth( row );
+        // The image is downsampled to the size of the image view.
+        int imageViewWidth = (int)convertToRealPixels( imageWidth );
+        int imageViewHeight = (int)convertToRealPixels( imageHeight );
 
         /* TODO Rexamine how to support rounded images.
         float radius = imageHeight.floatValue() * pixelRatio * 4;
-        Drawable image = tableData.loadImageWithRowData( rowData, "image", null, radius );
+        Drawable image = tableData.loadImageWithRowData( row, "image", null, radius );
         */
-        Drawable image = tableData.loadImageWithRowData( rowData, "image" );
         ImageView imageView = cell.getImageView();
-        if( image != null ) {
-            imageWidth = convertToRealPixels( imageWidth );
-            imageHeight = convertToRealPixels( imageHeight );
-            LayoutParams params = new ATableViewCellContainerView.LayoutParams( imageWidth.intValue(), imageHeight.intValue() );
+        Drawable image;
+        CellImageLoader imageLoader = parent != null ? parent.getCellImageLoader() : null;
+        if( imageLoader != null ) {
+            // Load the image off the UI thread; the cell's default image is displayed until the
+            // row image is loaded.
+            image = imageLoader.loadImage( imageView, row, ImageDataName, this.image, 0.0f, imageViewWidth, imageViewHeight );
+        }
+        else {
+            image = tableData.loadImageWithRowData( row, ImageDataName, null, 0.0f, imageViewWidth, imageViewHeight );
+        }
+        if( image != null || (imageLoader != null && imageLoader.isLoading( imageView )) ) {
+            LayoutParams params = new ATableViewCellContainerView.LayoutParams( imageViewWidth, imageViewHeight );
             // Set margins and crop the image to fit the available space
             params.setMargins( 20, 0, 0, 0 );
             imageView.setLayoutParams( params );
@@ -256,7 +260,7 @@ public class TableViewCellFactory implements IOCContextAware {
         imageView.setImageDrawable( image );
 
         // Accessory
-        String accessory = rowData.getValueAsString("accessory", this.accessory );
+        String accessory = row.getString("accessory", this.accessory );
         if("None".equals( accessory ) ) {
             cell.setAccessoryType( ATableViewCellAccessoryType.None );
         }
@@ -271,8 +275,8 @@ public class TableViewCellFactory implements IOCContextAware {
         }
 
         // Background image
-        Drawable backgroundImage = tableData.loadImageWithRowData( rowData, "backgroundImage", this.backgroundImage );
-        Drawable selectedImage = tableData.loadImageWithRowData( rowData, "selectedBackgroundImage", this.selectedBackgroundImage );
+        Drawable backgroundImage = tableData.loadImageWithRowData( row, "backgroundImage", this.backgroundImage );
+        Drawable selectedImage = tableData.loadImageWithRowData( row, "selectedBackgroundImage", this.selectedBackgroundImage );
 
         StateListDrawable stateListDrawable = new StateListDrawable();
         if( backgroundImage != null ) {
@@ -301,15 +305,51 @@ public class TableViewCellFactory implements IOCContextAware {
 
         // Decorate the cell if a decorator is specified.
         if( decorator != null ) {
-            decorator.decorateCell( cell, rowData, this );
+            decorator.decorateCell( cell, row.asConfiguration(), this );
         }
 
         return cell;
     }
 
+    /** Get the name of the row data value containing the cell's image. */
+    public String getImageDataName() {
+        return ImageDataName;
+    }
+
+    /** Get the height, in logical pixels, of a row's cell image. */
+    public Number getImageHeight(TableRowData row) {
+        Number imageHeight = row.getNumber("imageHeight", this.imageHeight );
+        if( imageHeight == null ) {
+            imageHeight = row.getHeight( height );
+        }
+        if( imageHeight.intValue() == 0 ) {
+            imageHeight = DefaultImageHeight;
+        }
+        return imageHeight;
+    }
+
+    /** Get the width, in logical pixels, of a row's cell image. */
+    public Number getImageWidth(TableRowData row) {
+        Number imageWidth = row.getNumber("imageWidth", this.imageWidth );
+        if( imageWidth == null || imageWidth.intValue() == 0 ) {
+            imageWidth = DefaultImageWidth;
+        }
+        return imageWidth;
+    }
+
+    /**
+     * Get the image cache key of a row's cell image.
+     * Cell images are loaded at the size of the cell's image view, see getImageWidth() and
+     * getImageHeight().
+     * @return The cache key, or null if the row has no image.
+     */
+    public String getImageCacheKey(TableRowData row) {
+        return tableData.getImageCacheKey( row, ImageDataName, 0.0f,
+            (int)convertToRealPixels( getImageWidth( row ) ), (int)convertToRealPixels( getImageHeight( row ) ) );
+    }
+
     public Number heightForRowAtIndexPath(NSIndexPath indexPath) {
-        Configuration rowData = tableData.getRowDataForIndexPath( indexPath );
-        return rowData.getValueAsNumber("height", height );
+        return tableData.getRowForIndexPath( indexPath ).getHeight( height );
     }
 
     /**
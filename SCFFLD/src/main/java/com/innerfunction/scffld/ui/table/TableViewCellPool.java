@@ -0,0 +1,290 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld.ui.table;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+
+import com.nakardo.atableview.view.ATableViewCell;
+import com.nakardo.atableview.view.ATableViewCell.ATableViewCellStyle;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of table cells shared between table views.
+ * Table views only reuse cells within the same table, so without the pool every cell of a table
+ * is discarded when the table's view controller is destroyed (e.g. when popped from a navigation
+ * view), and new cells are inflated for the next table displayed. Cells released to the pool are
+ * reused by later tables which display cells with the same cell style and reuse identifier.
+ *
+ * The pool is bounded, both per cell key and in total. Cells belong to the context they were
+ * created in, so the pool only holds cells for one context at a time; it is emptied when cells
+ * are requested for, or released from, a different context, and when the activity the cells
+ * belong to is destroyed. Cells of a finishing activity aren't pooled. The pool can optionally be
+ * pre-warmed with cells during idle time.
+ *
+ * All methods of this class should be called on the UI thread.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class TableViewCellPool {
+
+    /** The default maximum number of pooled cells per cell key. */
+    static final int DefaultMaxCellsPerKey = 12;
+    /** The default maximum number of pooled cells. */
+    static final int DefaultMaxCells = 48;
+
+    /** The shared pool instance. */
+    private static TableViewCellPool Instance;
+
+    /** The style and reuse identifier of a type of cell. */
+    static class CellKey {
+        final ATableViewCellStyle cellStyle;
+        final String identifier;
+
+        CellKey(ATableViewCellStyle cellStyle, String identifier) {
+            this.cellStyle = cellStyle;
+            this.identifier = identifier;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if( !(obj instanceof CellKey) ) {
+                return false;
+            }
+            CellKey key = (CellKey)obj;
+            return cellStyle == key.cellStyle && identifier.equals( key.identifier );
+        }
+
+        @Override
+        public int hashCode() {
+            return cellStyle.hashCode() * 31 + identifier.hashCode();
+        }
+    }
+
+    /** The context the pooled cells belong to. */
+    private WeakReference<Context> context;
+    /** Clears the pool when the activity the pooled cells belong to is destroyed. */
+    private Application.ActivityLifecycleCallbacks lifecycleCallbacks;
+    /** Pooled cells, keyed by cell style and reuse identifier. */
+    private Map<CellKey,ArrayDeque<ATableViewCell>> cells = new HashMap<>();
+    /** The number of cells requested for each cell key; used to decide which cells to pre-warm. */
+    private Map<CellKey,Integer> demand = new HashMap<>();
+    /** The total number of pooled cells. */
+    private int size;
+    /** The maximum number of pooled cells per cell key. */
+    private int maxCellsPerKey = DefaultMaxCellsPerKey;
+    /** The maximum number of pooled cells. */
+    private int maxCells = DefaultMaxCells;
+    /** The number of cells created by the pool. */
+    private int createdCount;
+    /** The number of cells reused from the pool. */
+    private int reusedCount;
+
+    /** Get the shared pool instance. */
+    public static synchronized TableViewCellPool getInstance() {
+        if( Instance == null ) {
+            Instance = new TableViewCellPool();
+        }
+        return Instance;
+    }
+
+    public void setMaxCellsPerKey(int maxCellsPerKey) {
+        this.maxCellsPerKey = maxCellsPerKey;
+    }
+
+    public void setMaxCells(int maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Obtain a cell.
+     * Returns a pooled cell if one is available, otherwise creates a new cell.
+     * @param context       The context the cell is displayed in.
+     * @param cellStyle     The cell's style.
+     * @param identifier    The cell's reuse identifier.
+     */
+    public ATableViewCell obtainCell(Context context, ATableViewCellStyle cellStyle, String identifier) {
+        setContext( context );
+        CellKey key = new CellKey( cellStyle, identifier );
+        Integer count = demand.get( key );
+        demand.put( key, count != null ? count + 1 : 1 );
+        ArrayDeque<ATableViewCell> keyCells = cells.get( key );
+        if( keyCells != null && !keyCells.isEmpty() ) {
+            size--;
+            reusedCount++;
+            return keyCells.pop();
+        }
+        createdCount++;
+        return new ATableViewCell( cellStyle, identifier, context );
+    }
+
+    /**
+     * Release cells to the pool.
+     * Cells must have been removed from their parent view. Views other than cells, and cells
+     * beyond the pool's bounds, are discarded.
+     */
+    public void releaseCells(Collection<View> views) {
+        for( View view : views ) {
+            if( view instanceof ATableViewCell ) {
+                releaseCell( (ATableViewCell)view );
+            }
+        }
+    }
+
+    /** Release a cell to the pool. The cell must have been removed from its parent view. */
+    public void releaseCell(ATableViewCell cell) {
+        ATableViewCellStyle cellStyle = cell.getStyle();
+        String identifier = cell.getReuseIdentifier();
+        if( cellStyle == null || identifier == null || cell.getParent() != null ) {
+            return;
+        }
+        if( isFinishing( cell.getContext() ) ) {
+            // Don't keep the cells of an activity which is going away.
+            return;
+        }
+        setContext( cell.getContext() );
+        if( size >= maxCells ) {
+            return;
+        }
+        CellKey key = new CellKey( cellStyle, identifier );
+        ArrayDeque<ATableViewCell> keyCells = cells.get( key );
+        if( keyCells == null ) {
+            keyCells = new ArrayDeque<>();
+            cells.put( key, keyCells );
+        }
+        if( keyCells.size() < maxCellsPerKey && !keyCells.contains( cell ) ) {
+            // Release the cell's image; it is set again when the cell is reused.
+            if( cell.getImageView() != null ) {
+                cell.getImageView().setImageDrawable( null );
+            }
+            keyCells.push( cell );
+            size++;
+        }
+    }
+
+    /**
+     * Pre-warm the pool during idle time.
+     * Creates cells, one per idle period, until the pool holds the specified number of cells for
+     * every type of cell previously obtained from the pool.
+     * @param context   The context the cells will be displayed in.
+     * @param count     The number of cells to pre-warm for each type of cell.
+     */
+    public void prewarm(final Context context, final int count) {
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                // Stop if the pool has since switched context, or is full.
+                Context poolContext = getContext();
+                if( (poolContext != null && poolContext != context) || size >= maxCells || isFinishing( context ) ) {
+                    return false;
+                }
+                setContext( context );
+                int target = Math.min( count, maxCellsPerKey );
+                for( CellKey key : demand.keySet() ) {
+                    ArrayDeque<ATableViewCell> keyCells = cells.get( key );
+                    if( keyCells == null || keyCells.size() < target ) {
+                        createdCount++;
+                        releaseCell( new ATableViewCell( key.cellStyle, key.identifier, context ) );
+                        // Continue in the next idle period.
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    /** Discard all pooled cells. */
+    public void clear() {
+        cells.clear();
+        size = 0;
+        context = null;
+    }
+
+    /** Get the context the pooled cells belong to; or null. */
+    private Context getContext() {
+        return context != null ? context.get() : null;
+    }
+
+    /** Get the number of pooled cells. */
+    public int getSize() {
+        return size;
+    }
+
+    /** Get the number of cells created by the pool. */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    /** Get the number of cells reused from the pool. */
+    public int getReusedCount() {
+        return reusedCount;
+    }
+
+    /** Set the context of the pooled cells, discarding cells belonging to any other context. */
+    private void setContext(Context context) {
+        if( getContext() != context ) {
+            clear();
+            this.context = new WeakReference<>( context );
+            if( lifecycleCallbacks == null && context instanceof Activity ) {
+                Application application = ((Activity)context).getApplication();
+                if( application != null ) {
+                    lifecycleCallbacks = new LifecycleCallbacks();
+                    application.registerActivityLifecycleCallbacks( lifecycleCallbacks );
+                }
+            }
+        }
+    }
+
+    /** Test whether a context is an activity which is finishing or destroyed. */
+    private static boolean isFinishing(Context context) {
+        if( context instanceof Activity ) {
+            Activity activity = (Activity)context;
+            return activity.isFinishing() || activity.isDestroyed();
+        }
+        return false;
+    }
+
+    /** Activity lifecycle callbacks which clear the pool when its activity is destroyed. */
+    private class LifecycleCallbacks implements Application.ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            if( activity == getContext() ) {
+                clear();
+            }
+        }
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+        @Override
+        public void onActivityStarted(Activity activity) {}
+        @Override
+        public void onActivityResumed(Activity activity) {}
+        @Override
+        public void onActivityPaused(Activity activity) {}
+        @Override
+        public void onActivityStopped(Activity activity) {}
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+    }
+}
@@ -13,6 +13,7 @@
 // limitations under the License
 package com.innerfunction.scffld.ui.table;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.util.Log;
 import android.view.View;
+import android.widget.AbsListView;
 import android.widget.Toast;
 
 import com.innerfunction.scffld.Configuration;
@@ -32,6 +34,7 @@ import com.innerfunction.scffld.app.ViewController;
 import com.innerfunction.uri.Resource;
 
 import com.nakardo.atableview.foundation.NSIndexPath;
+import com.nakardo.atableview.internal.ATableViewAdapter;
 import com.nakardo.atableview.protocol.ATableViewDataSource;
 import com.nakardo.atableview.protocol.ATableViewDelegate;
 import com.nakardo.atableview.view.ATableView.ATableViewStyle;
@@ -49,6 +52,10 @@ public class TableViewController extends ViewController implements IOCConfigurat
     protected ATableView tableView;
     /** The data displayed by the table. */
     protected TableData tableData;
+    /** Loads cell images off the UI thread. */
+    protected CellImageLoader cellImageLoader;
+    /** Prefetches the images of rows about to scroll into view. */
+    protected ImagePrefetcher imagePrefetcher;
     /** The default factory for producing table cells (rows). */
     private TableViewCellFactory defaultFactory;
     /** A map of table cell factories, keyed by table display mode name. */
@@ -73,11 +80,27 @@ public class TableViewController extends ViewController implements IOCConfigurat
     private Object content;
     /** The name of a filter applied to the table data. */
     private String filterName;
+    /** The rows currently displayed by the table view. Used to diff changes to the table data. */
+    private TableSections displayedSections;
+    /** The section titles of the displayed rows. */
+    private List<String> displayedSectionTitles;
+    /** A count of table view refreshes. Used to discard diffs superseded by a later refresh. */
+    private int refreshGeneration;
+    /** The table's rows, when loaded from a paged data source. */
+    private PagedRowList pagedRows;
+    /** The number of rows in a page, when loading rows from a paged data source. */
+    private int pageSize = PagedRowList.DefaultPageSize;
+    /** The maximum number of resident pages, when loading rows from a paged data source. */
+    private int maxResidentPages = PagedRowList.DefaultMaxResidentPages;
+    /** The number of cells of each type to pre-warm in the shared cell pool; 0 to disable. */
+    private int prewarmCellCount;
 
     public TableViewController(Context context) {
         super( context );
         setHideTitleBar( false );
         this.tableData = new TableData( context );
+        this.cellImageLoader = new CellImageLoader( context, tableData );
+        this.imagePrefetcher = new ImagePrefetcher( this );
     }
 
     @Override
@@ -104,8 +127,23 @@ public class TableViewController extends ViewController implements IOCConfigurat
         super.onCreateView( activity );
         ATableViewStyle style = "Grouped".equals( tableStyle ) ? ATableViewStyle.Grouped : ATableViewStyle.Plain;
         tableView = new ATableView( style, activity );
+        displayedSections = null;
+        tableData.releaseDisplayedRows();
         tableView.setDataSource( makeDataSource() );
         tableView.setDelegate( makeDelegate() );
+        // Cancel image loads for cells which scroll off screen, and release their images.
+        tableView.setRecyclerListener(new AbsListView.RecyclerListener() {
+            @Override
+            public void onMovedToScrapHeap(View view) {
+                if( view instanceof ATableViewCell ) {
+                    cellImageLoader.recycle( ((ATableViewCell)view).getImageView() );
+                }
+            }
+        });
+        tableView.setOnScrollListener( imagePrefetcher );
+        if( prewarmCellCount > 0 ) {
+            TableViewCellPool.getInstance().prewarm( activity, prewarmCellCount );
+        }
         int backgroundColor = getBackgroundColor();
         if( backgroundColor != 0 ) {
             tableView.setBackgroundColor( getBackgroundColor() );
@@ -136,6 +174,19 @@ public class TableViewController extends ViewController implements IOCConfigurat
             public ATableViewCell cellForRowAtIndexPath(com.nakardo.atableview.view.ATableView tableView, NSIndexPath indexPath) {
                 return TableViewController.this.cellForRowAtIndexPath( tableView, indexPath );
             }
+            @Override
+            public long versionForRowAtIndexPath(com.nakardo.atableview.view.ATableView tableView, NSIndexPath indexPath) {
+                return TableViewController.this.versionForRowAtIndexPath( indexPath );
+            }
+            @Override
+            public boolean isRowLoadedAtIndexPath(com.nakardo.atableview.view.ATableView tableView, NSIndexPath indexPath) {
+                return tableData.isRowLoaded( indexPath );
+            }
+            @Override
+            public ATableViewCell placeholderCellForRowAtIndexPath(com.nakardo.atableview.view.ATableView tableView, NSIndexPath indexPath) {
+                tableData.loadRowsNear( indexPath );
+                return super.placeholderCellForRowAtIndexPath( tableView, indexPath );
+            }
         };
     }
 
@@ -152,10 +203,27 @@ public class TableViewController extends ViewController implements IOCConfigurat
     }
 
     public ATableViewCell cellForRowAtIndexPath(com.nakardo.atableview.view.ATableView tableView, NSIndexPath indexPath) {
+        // Keep the pages around displayed rows resident, if the rows are paged.
+        tableData.loadRowsNear( indexPath );
         TableViewCellFactory factory = getCellFactoryForIndexPath( indexPath );
         return factory.resolveCellForTable( tableView, indexPath, tableView.getDataSource() );
     }
 
+    /**
+     * Get a stamp identifying the version of the row at an index path.
+     * The table view only asks for the height of a row again when the row's version changes.
+     * The default implementation combines the row's data version with the row's cell factory,
+     * as it is the factory which calculates the row height.
+     */
+    public long versionForRowAtIndexPath(NSIndexPath indexPath) {
+        long version = tableData.getRowVersionForIndexPath( indexPath );
+        if( version == ATableViewDataSource.UNVERSIONED ) {
+            return version;
+        }
+        TableViewCellFactory factory = getCellFactoryForIndexPath( indexPath );
+        return version * 31 + System.identityHashCode( factory );
+    }
+
     protected ATableViewDelegate makeDelegate() {
         // The table view delegate is a class i.e. not an interface, so has to be subclassed.
         // This implementation just forwards requests to the same method on the view controller
@@ -209,10 +277,33 @@ public class TableViewController extends ViewController implements IOCConfigurat
         }
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        cellImageLoader.cancelAll();
+        imagePrefetcher.reset();
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if( tableView != null ) {
+            // Return the table's cells to the shared cell pool, for reuse by other tables.
+            List<View> views = new ArrayList<>();
+            tableView.reclaimViews( views );
+            TableViewCellPool.getInstance().releaseCells( views );
+        }
+        cellImageLoader.releaseAll();
+    }
+
     public ATableView getTableView() {
         return tableView;
     }
 
+    public CellImageLoader getCellImageLoader() {
+        return cellImageLoader;
+    }
+
     public void setTableStyle(String style) {
         this.tableStyle = style;
     }
@@ -263,17 +354,119 @@ public class TableViewController extends ViewController implements IOCConfigurat
         this.filterName = name;
     }
 
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void setMaxResidentPages(int maxResidentPages) {
+        this.maxResidentPages = maxResidentPages;
+    }
+
+    public void setPrewarmCellCount(int prewarmCellCount) {
+        this.prewarmCellCount = prewarmCellCount;
+    }
+
     public void refreshTableView() {
         if( tableView != null ) {
             tableView.post( new Runnable() {
                 @Override
                 public void run() {
-                    tableView.reloadData();
+                    updateTableView();
                 }
             } );
         }
     }
 
+    /**
+     * Update the table view with the current table data.
+     * The table data is diffed against the rows currently displayed, and only the differences
+     * are applied to the table view. Large diffs are calculated off the UI thread. Must be called
+     * on the UI thread.
+     */
+    protected void updateTableView() {
+        imagePrefetcher.reset();
+        final int generation = ++refreshGeneration;
+        if( tableData.isPaged() ) {
+            // Paged rows can't be diffed, as rows which aren't resident are unknown.
+            tableData.releaseDisplayedRows();
+            displayedSections = null;
+            tableView.reloadData();
+            return;
+        }
+        final TableSections oldSections = displayedSections;
+        final TableSections newSections = tableData.getVisibleSections();
+        final List<String> newSectionTitles = tableData.getSectionTitles();
+        if( oldSections == null || tableView.getInternalAdapter() == null ) {
+            tableData.releaseDisplayedRows();
+            displayedSections = newSections;
+            displayedSectionTitles = newSectionTitles;
+            tableView.reloadData();
+            return;
+        }
+        final String idFieldName = tableData.getIDFieldName();
+        int rowCount = oldSections.getRowCount() + newSections.getRowCount();
+        if( rowCount > TableDataDiff.BackgroundDiffThreshold ) {
+            // Keep the table view on the displayed rows until the diff is applied, so that rows
+            // are always read using the row counts the table view has.
+            tableData.holdDisplayedRows( oldSections, displayedSectionTitles );
+            TableDataDiff.DiffQueue.dispatch(new Runnable() {
+                @Override
+                public void run() {
+                    final TableDataDiff diff = TableDataDiff.calculate( oldSections, newSections, idFieldName );
+                    tableView.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            applyDiff( diff, generation, newSections, newSectionTitles );
+                        }
+                    });
+                }
+            });
+        }
+        else {
+            TableDataDiff diff = TableDataDiff.calculate( oldSections, newSections, idFieldName );
+            applyDiff( diff, generation, newSections, newSectionTitles );
+        }
+    }
+
+    /**
+     * Apply a table data diff to the table view.
+     * Releases any rows held by the table data, and records the diff's new rows as displayed.
+     */
+    private void applyDiff(TableDataDiff diff, int generation, TableSections newSections, List<String> newSectionTitles) {
+        if( generation != refreshGeneration ) {
+            // A later refresh has superseded this diff; the displayed rows are unchanged.
+            return;
+        }
+        tableData.releaseDisplayedRows();
+        displayedSections = newSections;
+        displayedSectionTitles = newSectionTitles;
+        if( diff.requiresReload() ) {
+            tableView.reloadData();
+        }
+        else if( diff.isEmpty() ) {
+            return;
+        }
+        else if( !diff.hasStructuralChanges() ) {
+            tableView.reloadRowsAtIndexPaths( diff.getChanged() );
+        }
+        else {
+            // Keep the first visible row which is still in the table at the same screen position.
+            ATableViewAdapter adapter = tableView.getInternalAdapter();
+            int firstPosition = tableView.getFirstVisiblePosition();
+            NSIndexPath anchor = null;
+            int anchorTop = 0;
+            for( int i = 0; i < tableView.getChildCount() && anchor == null; i++ ) {
+                int position = firstPosition + i;
+                if( position >= adapter.getCount() || adapter.isHeaderRow( position ) || adapter.isFooterRow( position ) ) {
+                    continue;
+                }
+                anchor = diff.getNewIndexPath( adapter.getIndexPath( position ) );
+                anchorTop = tableView.getChildAt( i ).getTop();
+            }
+            tableView.reloadDataKeepingPosition( anchor, anchorTop, diff );
+        }
+    }
+
     public void loadContent() {
         if( content == null ) {
             Log.w( Tag, "No content specified");
@@ -287,6 +480,12 @@ public class TableViewController extends ViewController implements IOCConfigurat
         else if( content instanceof List ) {
             setRowsArray( (List)content );
         }
+        else if( content instanceof PagedDataSource ) {
+            // Keep the rows already loaded from the source.
+            if( pagedRows == null || pagedRows.getSource() != content ) {
+                setRowsSource( (PagedDataSource)content );
+            }
+        }
     }
 
     /**
@@ -297,6 +496,7 @@ public class TableViewController extends ViewController implements IOCConfigurat
     public void setRows(Configuration rows) {
         Object sourceData = rows.getSourceData();
         if( sourceData instanceof List ) {
+            pagedRows = null;
             rows.setData( formatData( (List)sourceData ) );
             tableData.setRowsConfiguration( rows );
             applyFilterName( filterName );
@@ -310,15 +510,60 @@ public class TableViewController extends ViewController implements IOCConfigurat
      */
     public void setRowsArray(List rows) {
         if( rows != null ) {
+            pagedRows = null;
             rows = formatData( rows );
             tableData.setRowsData( rows );
             applyFilterName( filterName );
         }
     }
 
+    /**
+     * Set the table's data.
+     * Use this to display rows loaded on demand from a paged data source. Rows are loaded a page
+     * at a time as they are displayed; formatData() is applied to each page of rows as it loads,
+     * and must return one row for each row it is passed. Named filters aren't applied to paged rows.
+     * @param source A paged data source.
+     */
+    public void setRowsSource(PagedDataSource source) {
+        pagedRows = new PagedRowList( source, pageSize, maxResidentPages );
+        pagedRows.setListener(new PagedRowList.Listener() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Map> formatPage(List<Map> page) {
+                return formatData( page );
+            }
+            @Override
+            public void onRowCountLoaded(PagedRowList rows) {
+                if( rows == pagedRows ) {
+                    applyFilterName( filterName );
+                }
+            }
+            @Override
+            public void onPageLoaded(PagedRowList rows, int offset, int count) {
+                if( rows == pagedRows && tableView != null && tableData.isPaged() ) {
+                    // Only the heights of the loaded rows are requested again.
+                    List<NSIndexPath> indexPaths = new ArrayList<>( count );
+                    for( int row = offset; row < offset + count; row++ ) {
+                        indexPaths.add( NSIndexPath.indexPathForRowInSection( row, 0 ) );
+                    }
+                    tableView.reloadRowsAtIndexPaths( indexPaths );
+                }
+            }
+        });
+        tableData.setPagedRowsData( pagedRows );
+        pagedRows.reload();
+        applyFilterName( filterName );
+    }
+
     public void applyFilterName(String name) {
         this.filterName = name;
-        if( name != null ) {
+        if( name != null && pagedRows != null ) {
+            // Named filters can only test resident rows, so can't be applied to paged rows; paged
+            // data sources should apply any filtering to the rows they return.
+            Log.w( Tag, String.format("Filter '%s' not applied to paged rows", name ) );
+            tableData.clearFilter();
+        }
+        else if( name != null ) {
             TableData.FilterPredicate predicate = getFilterPredicateForName( name );
             if( predicate != null ) {
                 tableData.filterBy( predicate );
@@ -359,8 +604,7 @@ public class TableViewController extends ViewController implements IOCConfigurat
      * property of the row's data item.
      */
     public String actionForRowAtIndexPath(NSIndexPath indexPath) {
-        Configuration rowData = tableData.getRowDataForIndexPath( indexPath );
-        return rowData.getValueAsString("action");
+        return tableData.getRowForIndexPath( indexPath ).getString("action", null );
     }
 
     public String displayModeForIndexPath(NSIndexPath indexPath) {
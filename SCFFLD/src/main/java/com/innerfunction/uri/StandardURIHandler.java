@@ -19,6 +19,7 @@ import android.util.Log;
 import com.innerfunction.util.Assets;
 import com.innerfunction.util.Files;
 import com.innerfunction.util.Maps;
+import com.innerfunction.util.Tracer;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -157,6 +158,16 @@ public class StandardURIHandler implements URIHandler {
      */
     @Override
     public Object dereference(CompoundURI uri) {
+        Tracer.begin("StandardURIHandler.dereference", uri.getScheme() );
+        try {
+            return dereferenceURI( uri );
+        }
+        finally {
+            Tracer.end("StandardURIHandler.dereference");
+        }
+    }
+
+    private Object dereferenceURI(CompoundURI uri) {
         Object value = null;
         URIScheme handler = schemeHandlers.get( uri.getScheme() );
         if( handler != null ) {
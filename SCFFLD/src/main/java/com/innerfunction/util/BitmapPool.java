@@ -0,0 +1,175 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * A size bounded pool of reusable bitmaps.
+ * Bitmaps in the pool can be used as the target of a decode operation (through the inBitmap
+ * decode option) or as a drawing surface, saving the cost of allocating new pixel memory.
+ * Bitmaps should only be returned to the pool once nothing else holds a reference to them, i.e.
+ * once they are no longer displayed or cached.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class BitmapPool {
+
+    /** The maximum total size, in bytes, of bitmaps held in the pool. */
+    private int maxSize;
+    /** The total size, in bytes, of bitmaps currently in the pool. */
+    private int size;
+    /** The pooled bitmaps, oldest first. */
+    private LinkedList<Bitmap> bitmaps = new LinkedList<>();
+
+    public BitmapPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return a bitmap to the pool.
+     * Only mutable bitmaps can be reused; other bitmaps are ignored.
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if( bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || bitmaps.contains( bitmap ) ) {
+            return;
+        }
+        int byteCount = getByteCount( bitmap );
+        if( byteCount > maxSize ) {
+            return;
+        }
+        bitmaps.add( bitmap );
+        size += byteCount;
+        while( size > maxSize ) {
+            Bitmap oldest = bitmaps.removeFirst();
+            size -= getByteCount( oldest );
+        }
+    }
+
+    /**
+     * Take a bitmap of the specified size and configuration from the pool.
+     * The bitmap's pixels are cleared before it is returned.
+     * @return A pooled bitmap, or null if no suitable bitmap is available.
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        for( Iterator<Bitmap> it = bitmaps.iterator(); it.hasNext(); ) {
+            Bitmap bitmap = it.next();
+            if( canReuseForDrawing( bitmap, width, height, config ) ) {
+                it.remove();
+                size -= getByteCount( bitmap );
+                if( bitmap.getWidth() != width || bitmap.getHeight() != height ) {
+                    reconfigure( bitmap, width, height, config );
+                }
+                bitmap.eraseColor( 0 );
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take a bitmap from the pool which can be used as the inBitmap target when decoding an image.
+     * @param options   Decode options. The options must contain the image's dimensions (i.e. as
+     *                  returned by a bounds-only decode) and the sample size to be used.
+     * @return A pooled bitmap, or null if no suitable bitmap is available.
+     */
+    public synchronized Bitmap getForDecode(BitmapFactory.Options options) {
+        for( Iterator<Bitmap> it = bitmaps.iterator(); it.hasNext(); ) {
+            Bitmap bitmap = it.next();
+            if( canReuseForDecode( bitmap, options ) ) {
+                it.remove();
+                size -= getByteCount( bitmap );
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove a bitmap from the pool, e.g. because it is in use again.
+     * @return true if the bitmap was in the pool.
+     */
+    public synchronized boolean remove(Bitmap bitmap) {
+        if( bitmaps.remove( bitmap ) ) {
+            size -= getByteCount( bitmap );
+            return true;
+        }
+        return false;
+    }
+
+    /** Remove all bitmaps from the pool. */
+    public synchronized void clear() {
+        bitmaps.clear();
+        size = 0;
+    }
+
+    /** Test whether a bitmap can be reused as a drawing surface of the specified size. */
+    private boolean canReuseForDrawing(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        if( bitmap.getConfig() != config ) {
+            return false;
+        }
+        if( bitmap.getWidth() == width && bitmap.getHeight() == height ) {
+            return true;
+        }
+        // From KitKat, a larger bitmap can be reconfigured to a smaller size.
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+            && width * height * getBytesPerPixel( config ) <= bitmap.getAllocationByteCount();
+    }
+
+    /** Test whether a bitmap can be used as the inBitmap target of a decode. */
+    private boolean canReuseForDecode(Bitmap bitmap, BitmapFactory.Options options) {
+        int sampleSize = Math.max( 1, options.inSampleSize );
+        if( Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT ) {
+            // From KitKat, any bitmap with a large enough allocation can be reused.
+            int width = options.outWidth / sampleSize;
+            int height = options.outHeight / sampleSize;
+            int byteCount = width * height * getBytesPerPixel( bitmap.getConfig() );
+            return byteCount <= bitmap.getAllocationByteCount();
+        }
+        // Before KitKat, the bitmap must exactly match the image size and no sampling can be used.
+        return sampleSize == 1
+            && bitmap.getWidth() == options.outWidth
+            && bitmap.getHeight() == options.outHeight;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private void reconfigure(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        bitmap.reconfigure( width, height, config );
+    }
+
+    /** Get the number of bytes of memory used by a bitmap. */
+    static int getByteCount(Bitmap bitmap) {
+        if( Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT ) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+
+    /** Get the number of bytes used per pixel by a bitmap configuration. */
+    static int getBytesPerPixel(Bitmap.Config config) {
+        if( config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444 ) {
+            return 2;
+        }
+        if( config == Bitmap.Config.ALPHA_8 ) {
+            return 1;
+        }
+        return 4;
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of values computed for classes.
+ * Similar to java.lang.ClassValue, which isn't available on Android. Values are computed on
+ * first request by computeValue(..) and are then held until removed; the cache is never evicted.
+ * Reads are lock free and don't allocate; the cache can be used from any thread.
+ *
+ * Note that both classes and values are strongly referenced, so a cached class can't be unloaded
+ * until its entry is removed. (Cached values, such as property and method lists, typically refer
+ * to their class anyway, so weakly referencing the classes wouldn't allow them to be unloaded.)
+ * App classes are never unloaded on Android, so this only matters for classes loaded through a
+ * custom class loader; remove their entries, or clear the cache, when the class loader is
+ * discarded.
+ *
+ * Note that a value may occasionally be computed more than once for the same class when first
+ * requested concurrently from different threads; only one of the values is cached.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public abstract class ClassCache<V> {
+
+    /** The cached values. Class hash codes and equality are by identity. */
+    private final ConcurrentHashMap<Class<?>,V> values = new ConcurrentHashMap<>();
+
+    /**
+     * Compute the value for a class.
+     * Called the first time a class' value is requested. Must not return null.
+     */
+    protected abstract V computeValue(Class<?> clss);
+
+    /** Get the value for a class, computing it if not already cached. */
+    public V get(Class<?> clss) {
+        V value = values.get( clss );
+        if( value == null ) {
+            value = computeValue( clss );
+            V existing = values.putIfAbsent( clss, value );
+            if( existing != null ) {
+                value = existing;
+            }
+        }
+        return value;
+    }
+
+    /** Test whether a value is cached for a class. */
+    public boolean contains(Class<?> clss) {
+        return values.containsKey( clss );
+    }
+
+    /** Discard the cached value for a class. */
+    public void remove(Class<?> clss) {
+        values.remove( clss );
+    }
+
+    /** Discard all cached values. */
+    public void clear() {
+        values.clear();
+    }
+
+    /** Get the number of cached values. */
+    public int size() {
+        return values.size();
+    }
+}
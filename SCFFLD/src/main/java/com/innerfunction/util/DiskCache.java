@@ -0,0 +1,165 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import android.util.Log;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A size bounded, least-recently-used cache of data files.
+ * Each cache entry is stored as a separate file, named using a hash of the entry key, within
+ * the cache directory. When the total size of the cache exceeds its limit then the least
+ * recently used entries are deleted.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class DiskCache {
+
+    static final String Tag = DiskCache.class.getSimpleName();
+
+    /** The cache directory. */
+    private File dir;
+    /** The maximum size of the cache, in bytes. */
+    private long maxSize;
+    /** The current size of the cache, in bytes; or -1 if not yet calculated. */
+    private long size = -1;
+
+    public DiskCache(File dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the file for a cache entry.
+     * @return The entry's file, or null if the entry isn't in the cache.
+     */
+    public synchronized File get(String key) {
+        File file = fileForKey( key );
+        if( file.exists() ) {
+            // Record the entry as recently used.
+            file.setLastModified( System.currentTimeMillis() );
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * Add an entry to the cache.
+     * @return The entry's file, or null if the data couldn't be written.
+     */
+    public synchronized File put(String key, byte[] data) {
+        if( !Files.ensureDirectoryExists( dir, true ) ) {
+            return null;
+        }
+        ensureSize();
+        File file = fileForKey( key );
+        long previousSize = file.exists() ? file.length() : 0;
+        // Write to a temporary file and then rename, so that a partially written entry is
+        // never visible in the cache.
+        File tmpFile = new File( dir, file.getName()+".tmp");
+        if( !Files.writeData( tmpFile, data, false ) || !tmpFile.renameTo( file ) ) {
+            tmpFile.delete();
+            return null;
+        }
+        size += data.length - previousSize;
+        trim();
+        return file;
+    }
+
+    /** Remove an entry from the cache. */
+    public synchronized void remove(String key) {
+        File file = fileForKey( key );
+        if( file.exists() ) {
+            long length = file.length();
+            if( file.delete() && size > -1 ) {
+                size -= length;
+            }
+        }
+    }
+
+    /** Remove all entries from the cache. */
+    public synchronized void clear() {
+        File[] files = dir.listFiles();
+        if( files != null ) {
+            for( File file : files ) {
+                file.delete();
+            }
+        }
+        size = 0;
+    }
+
+    /** Calculate the size of the cache, if not already known. */
+    private void ensureSize() {
+        if( size < 0 ) {
+            size = 0;
+            File[] files = dir.listFiles();
+            if( files != null ) {
+                for( File file : files ) {
+                    size += file.length();
+                }
+            }
+        }
+    }
+
+    /** Delete least recently used entries until the cache is within its size limit. */
+    private void trim() {
+        if( size <= maxSize ) {
+            return;
+        }
+        File[] files = dir.listFiles();
+        if( files == null ) {
+            return;
+        }
+        Arrays.sort( files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long diff = f1.lastModified() - f2.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for( int i = 0; i < files.length && size > maxSize; i++ ) {
+            long length = files[i].length();
+            if( files[i].delete() ) {
+                size -= length;
+            }
+        }
+    }
+
+    /** Get the file used to store the entry with the specified key. */
+    private File fileForKey(String key) {
+        return new File( dir, hashKey( key ) );
+    }
+
+    /** Hash a cache key to a filename. */
+    static String hashKey(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest( key.getBytes("UTF-8") );
+            StringBuilder sb = new StringBuilder( hash.length * 2 );
+            for( byte b : hash ) {
+                sb.append( Character.forDigit( (b >> 4) & 0xf, 16 ) );
+                sb.append( Character.forDigit( b & 0xf, 16 ) );
+            }
+            return sb.toString();
+        }
+        catch(Exception e) {
+            Log.w( Tag, "Hashing cache key", e );
+            return Integer.toHexString( key.hashCode() );
+        }
+    }
+}
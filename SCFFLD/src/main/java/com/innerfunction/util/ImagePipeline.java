@@ -0,0 +1,736 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.innerfunction.http.Client;
+import com.innerfunction.http.DataRequest;
+import com.innerfunction.http.Response;
+import com.innerfunction.q.Q;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A shared pipeline for loading, decoding and caching images.
+ * Images are identified by a reference, which can be any of the following:
+ * <ul>
+ *     <li>An HTTP or HTTPS URL;</li>
+ *     <li>A file URL or absolute file path;</li>
+ *     <li>An image resource name (see Images.imageNameToResourceID());</li>
+ *     <li>An asset name.</li>
+ * </ul>
+ * Decoded bitmaps are held in a memory cache sized by bitmap byte count. Images loaded over HTTP
+ * are also written to a disk cache, so that they don't need to be downloaded again. When a target
+ * size is specified for an image then it is downsampled as it is decoded, and where possible
+ * decoding reuses the pixel memory of bitmaps from the pipeline's bitmap pool.
+ *
+ * Bitmaps are returned to the pool once they are no longer in use. Because the pipeline can't
+ * know what other code does with the bitmaps it returns, a bitmap is only pooled once it has been
+ * acquired for display with acquireBitmap(), every acquisition has been released with
+ * releaseBitmap(), and the bitmap has been removed from the memory caches. Bitmaps handed to code
+ * which doesn't release them should be marked with shareBitmap(), and are then never pooled.
+ *
+ * Bitmaps derived from a source image by an image transform (e.g. rounded corners) are held in a
+ * separate memory cache, so that derived bitmaps don't evict the source images they are derived
+ * from. A derived bitmap's cache key is the source image's key combined with the transform key.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ImagePipeline {
+
+    static final String Tag = ImagePipeline.class.getSimpleName();
+
+    /** The proportion of the app's maximum memory used for the memory cache. */
+    static final int MemoryCacheFraction = 8;
+    /** The proportion of the app's maximum memory used for the derived bitmap cache. */
+    static final int DerivedCacheFraction = 16;
+    /** The maximum size of the bitmap pool, in bytes. */
+    static final int BitmapPoolSize = 4 * 1024 * 1024;
+    /** The maximum size of the disk cache, in bytes. */
+    static final long DiskCacheSize = 20 * 1024 * 1024;
+    /** The name of the disk cache directory, under the app's cache directory. */
+    static final String DiskCacheDirName = "scffld-images";
+    /** The number of threads used to load images. */
+    static final int LoaderThreadCount = 2;
+    /** The maximum number of image misses recorded. */
+    static final int MaxMissCount = 256;
+    /** The time, in milliseconds, after which a recorded miss expires and the image is retried. */
+    static final long MissTTL = 5 * 60 * 1000;
+
+    /** The shared pipeline instance. */
+    private static ImagePipeline Instance;
+
+    /** Get the shared pipeline instance. */
+    public static synchronized ImagePipeline getInstance(Context context) {
+        if( Instance == null ) {
+            Instance = new ImagePipeline( context.getApplicationContext() );
+        }
+        return Instance;
+    }
+
+    /** An exception indicating that an image couldn't be loaded, but that the load may succeed if retried. */
+    static class TransientLoadException extends IOException {
+        TransientLoadException(String message) {
+            super( message );
+        }
+    }
+
+    /** The use of a bitmap by the memory caches and by the views displaying it. */
+    static class BitmapUse {
+        /** The number of memory cache entries holding the bitmap. */
+        int cacheCount;
+        /** The number of acquisitions of the bitmap which haven't yet been released. */
+        int useCount;
+        /** Whether the bitmap has been acquired for display, and so can be pooled once released. */
+        boolean isReleasable;
+        /** Whether the bitmap has been handed to code which doesn't release it. */
+        boolean isShared;
+
+        /** Test whether the bitmap is unused, and can be returned to the bitmap pool. */
+        boolean isPoolable() {
+            return isReleasable && !isShared && cacheCount <= 0 && useCount <= 0;
+        }
+    }
+
+    /** An interface for decoding a bitmap from a source. */
+    interface Decoder {
+        Bitmap decode(BitmapFactory.Options options) throws IOException;
+    }
+
+    private Context context;
+    private Resources r;
+    /** An HTTP client for downloading images. */
+    private Client httpClient;
+    /** The memory cache of decoded bitmaps. */
+    private LruCache<String,Bitmap> memoryCache;
+    /** The memory cache of bitmaps derived by image transforms. */
+    private LruCache<String,Bitmap> derivedCache;
+    /** The disk cache of downloaded image data. */
+    private DiskCache diskCache;
+    /** A pool of reusable bitmaps. */
+    private BitmapPool bitmapPool;
+    /**
+     * The keys of images which couldn't be loaded, mapped to the time the miss was recorded.
+     * Only definitive failures (e.g. a missing file, or a 404 response) are recorded; the oldest
+     * misses are discarded once the maximum count is reached. Access is synchronized on the map.
+     */
+    private Map<String,Long> misses = new LinkedHashMap<String,Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,Long> eldest) {
+            return size() > MaxMissCount;
+        }
+    };
+    /**
+     * The use of bitmaps created by the pipeline or acquired for display. Bitmaps don't override
+     * equals() so are compared by identity; the map's keys are weak so that bitmaps which are no
+     * longer referenced aren't retained. Access is synchronized on the map.
+     */
+    private Map<Bitmap,BitmapUse> bitmapUses = new WeakHashMap<>();
+    /** The thread pool used to load images asynchronously. */
+    private ExecutorService loaderExecutor;
+
+    ImagePipeline(Context context) {
+        this.context = context;
+        this.r = context.getResources();
+        this.httpClient = new Client( context );
+        int memoryCacheSize = (int)(Runtime.getRuntime().maxMemory() / MemoryCacheFraction);
+        this.memoryCache = new LruCache<String,Bitmap>( memoryCacheSize ) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return BitmapPool.getByteCount( bitmap );
+            }
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if( oldValue != newValue ) {
+                    uncacheBitmap( oldValue );
+                }
+            }
+        };
+        int derivedCacheSize = (int)(Runtime.getRuntime().maxMemory() / DerivedCacheFraction);
+        this.derivedCache = new LruCache<String,Bitmap>( derivedCacheSize ) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return BitmapPool.getByteCount( bitmap );
+            }
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if( oldValue != newValue ) {
+                    uncacheBitmap( oldValue );
+                }
+            }
+        };
+        this.diskCache = new DiskCache( new File( context.getCacheDir(), DiskCacheDirName ), DiskCacheSize );
+        this.bitmapPool = new BitmapPool( BitmapPoolSize );
+        this.loaderExecutor = Executors.newFixedThreadPool( LoaderThreadCount, new ThreadFactory() {
+            private int count = 0;
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread( runnable, String.format("%s-%d", Tag, count++ ) );
+                thread.setDaemon( true );
+                thread.setPriority( Thread.NORM_PRIORITY - 1 );
+                return thread;
+            }
+        });
+    }
+
+    /** Get the pipeline's bitmap pool. */
+    public BitmapPool getBitmapPool() {
+        return bitmapPool;
+    }
+
+    /**
+     * Submit a task to run on the pipeline's loader threads.
+     * Use this for work which resolves or decodes images outside of the pipeline's own load
+     * methods, so that all image work shares the same threads.
+     * @return A future which can be used to cancel the task.
+     */
+    public Future<?> submit(Runnable task) {
+        return loaderExecutor.submit( task );
+    }
+
+    /**
+     * Make the memory cache key for an image reference and target size.
+     * Images loaded at different target sizes are cached separately.
+     */
+    public static String makeCacheKey(String ref, int width, int height) {
+        if( width > 0 || height > 0 ) {
+            return ref+"@"+width+"x"+height;
+        }
+        return ref;
+    }
+
+    /** Make the cache key for a bitmap derived from a source image by an image transform. */
+    public static String makeDerivedCacheKey(String sourceKey, ImageTransform transform) {
+        return sourceKey+"|"+transform.getKey();
+    }
+
+    /** Test whether an image reference refers to a remote (i.e. HTTP) image. */
+    public static boolean isRemoteRef(String ref) {
+        return ref.startsWith("http:") || ref.startsWith("https:");
+    }
+
+    /** Get a source or derived bitmap from the memory caches. */
+    public Bitmap getCachedBitmap(String key) {
+        Bitmap bitmap = memoryCache.get( key );
+        if( bitmap == null ) {
+            bitmap = derivedCache.get( key );
+        }
+        return bitmap;
+    }
+
+    /** Add a bitmap to the memory cache. */
+    public void putCachedBitmap(String key, Bitmap bitmap) {
+        if( key != null && bitmap != null ) {
+            cacheBitmap( memoryCache, key, bitmap );
+            removeMiss( key );
+        }
+    }
+
+    /**
+     * Test whether an image with the specified key is known not to be loadable.
+     * Misses expire after a period of time, after which the image load is retried.
+     */
+    public boolean isKnownMiss(String key) {
+        synchronized( misses ) {
+            Long time = misses.get( key );
+            if( time == null ) {
+                return false;
+            }
+            if( System.currentTimeMillis() - time > MissTTL ) {
+                misses.remove( key );
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Record that an image with the specified key can't be loaded.
+     * Callers should only record definitive failures, and not failures which may succeed if
+     * retried (e.g. because of a network error).
+     */
+    public void recordMiss(String key) {
+        synchronized( misses ) {
+            // Remove any previous entry first, so that the miss moves to the end of the map.
+            misses.remove( key );
+            misses.put( key, System.currentTimeMillis() );
+        }
+    }
+
+    private void removeMiss(String key) {
+        synchronized( misses ) {
+            misses.remove( key );
+        }
+    }
+
+    /**
+     * Acquire a bitmap for display.
+     * The bitmap isn't returned to the bitmap pool until it is released, and so must be released
+     * once no longer displayed, e.g. when the view displaying it is recycled.
+     */
+    public void acquireBitmap(Bitmap bitmap) {
+        useBitmap( bitmap, true );
+    }
+
+    /**
+     * Release a bitmap acquired for display.
+     * The bitmap is returned to the bitmap pool if it is no longer in use or in the memory caches.
+     */
+    public void releaseBitmap(Bitmap bitmap) {
+        if( bitmap == null ) {
+            return;
+        }
+        boolean poolable = false;
+        synchronized( bitmapUses ) {
+            BitmapUse use = bitmapUses.get( bitmap );
+            if( use != null ) {
+                use.useCount--;
+                poolable = use.isPoolable();
+            }
+        }
+        if( poolable ) {
+            poolBitmap( bitmap );
+        }
+    }
+
+    /**
+     * Mark a bitmap as shared with code which doesn't release it.
+     * The bitmap is never returned to the bitmap pool.
+     */
+    public void shareBitmap(Bitmap bitmap) {
+        if( bitmap != null ) {
+            synchronized( bitmapUses ) {
+                getBitmapUse( bitmap ).isShared = true;
+            }
+        }
+    }
+
+    /** Record a use of a bitmap. */
+    private void useBitmap(Bitmap bitmap, boolean display) {
+        if( bitmap != null ) {
+            synchronized( bitmapUses ) {
+                BitmapUse use = getBitmapUse( bitmap );
+                use.useCount++;
+                use.isReleasable |= display;
+            }
+        }
+    }
+
+    /** Add a bitmap to a memory cache, and record the cache's use of the bitmap. */
+    private void cacheBitmap(LruCache<String,Bitmap> cache, String key, Bitmap bitmap) {
+        // Record the use before adding to the cache, as the put may immediately evict the bitmap.
+        synchronized( bitmapUses ) {
+            getBitmapUse( bitmap ).cacheCount++;
+        }
+        Bitmap previous = cache.put( key, bitmap );
+        if( previous == bitmap ) {
+            // The bitmap was already cached under the key, so the cache's use is unchanged.
+            synchronized( bitmapUses ) {
+                getBitmapUse( bitmap ).cacheCount--;
+            }
+        }
+    }
+
+    /** Record that a bitmap has been removed from a memory cache; pool the bitmap if unused. */
+    private void uncacheBitmap(Bitmap bitmap) {
+        boolean poolable = false;
+        synchronized( bitmapUses ) {
+            BitmapUse use = bitmapUses.get( bitmap );
+            if( use != null ) {
+                use.cacheCount--;
+                poolable = use.isPoolable();
+            }
+        }
+        if( poolable ) {
+            poolBitmap( bitmap );
+        }
+    }
+
+    /**
+     * Return an unused bitmap to the bitmap pool.
+     * The bitmap's use is checked again under the lock, as it may have been reused since the
+     * caller tested it.
+     */
+    private void poolBitmap(Bitmap bitmap) {
+        synchronized( bitmapUses ) {
+            BitmapUse use = bitmapUses.get( bitmap );
+            if( use != null && use.isPoolable() ) {
+                bitmapUses.remove( bitmap );
+                bitmapPool.put( bitmap );
+            }
+        }
+    }
+
+    /**
+     * Get a bitmap's use record, creating it if necessary. Must be called with the lock held.
+     * A bitmap without a use record may have been pooled whilst still referenced elsewhere, e.g.
+     * when evicted from the cache as it was returned to a caller; such a bitmap is taken back out
+     * of the pool before it can be reused.
+     */
+    private BitmapUse getBitmapUse(Bitmap bitmap) {
+        BitmapUse use = bitmapUses.get( bitmap );
+        if( use == null ) {
+            bitmapPool.remove( bitmap );
+            use = new BitmapUse();
+            bitmapUses.put( bitmap, use );
+        }
+        return use;
+    }
+
+    /** Clear the memory caches and the bitmap pool. */
+    public void clearMemoryCache() {
+        memoryCache.evictAll();
+        derivedCache.evictAll();
+        bitmapPool.clear();
+        synchronized( misses ) {
+            misses.clear();
+        }
+    }
+
+    /** Wrap a bitmap in a drawable. */
+    public Drawable toDrawable(Bitmap bitmap) {
+        return bitmap == null ? null : new BitmapDrawable( r, bitmap );
+    }
+
+    /**
+     * Load an image.
+     * This method blocks whilst the image is loaded, and so shouldn't be called on the UI thread
+     * for images which may need to be downloaded.
+     * @param ref       An image reference.
+     * @param width     The target width, in pixels; or 0 to load the image at full size.
+     * @param height    The target height, in pixels; or 0 to load the image at full size.
+     * @return The image bitmap, or null if the image can't be loaded.
+     */
+    public Bitmap loadBitmap(String ref, int width, int height) {
+        if( ref == null ) {
+            return null;
+        }
+        String key = makeCacheKey( ref, width, height );
+        Bitmap bitmap = memoryCache.get( key );
+        if( bitmap == null && !isKnownMiss( key ) ) {
+            try {
+                bitmap = decodeRef( ref, width, height );
+                if( bitmap != null ) {
+                    cacheBitmap( memoryCache, key, bitmap );
+                }
+                else {
+                    recordMiss( key );
+                }
+            }
+            catch(TransientLoadException e) {
+                // Don't record the miss, so that the load is retried on the next request.
+                Log.w( Tag, String.format("Loading image %s: %s", ref, e.getMessage() ) );
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Load an image as a drawable.
+     * @see #loadBitmap(String, int, int)
+     */
+    public Drawable loadImage(String ref, int width, int height) {
+        return toDrawable( loadBitmap( ref, width, height ) );
+    }
+
+    /**
+     * Load an image and apply a transform to it.
+     * This method blocks whilst the image is loaded and transformed.
+     * @see #loadBitmap(String, int, int)
+     * @return The transformed image, or null if the image can't be loaded.
+     */
+    public Bitmap loadBitmap(String ref, int width, int height, ImageTransform transform) {
+        if( ref == null ) {
+            return null;
+        }
+        String sourceKey = makeCacheKey( ref, width, height );
+        String key = makeDerivedCacheKey( sourceKey, transform );
+        Bitmap bitmap = derivedCache.get( key );
+        if( bitmap == null ) {
+            Bitmap source = loadBitmap( ref, width, height );
+            if( source != null ) {
+                bitmap = transformBitmap( key, source, transform );
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Apply a transform to a bitmap.
+     * The derived bitmap is drawn into a bitmap from the pool where possible, and is added to
+     * the derived bitmap cache.
+     * @param key       The derived bitmap's cache key; see makeDerivedCacheKey().
+     * @param source    The source bitmap.
+     * @param transform The transform to apply.
+     * @return The derived bitmap.
+     */
+    public Bitmap transformBitmap(String key, Bitmap source, ImageTransform transform) {
+        Bitmap bitmap = derivedCache.get( key );
+        if( bitmap == null ) {
+            // Hold the source bitmap whilst drawing, so that it isn't pooled if evicted meanwhile.
+            useBitmap( source, false );
+            try {
+                bitmap = transform.transform( source, bitmapPool );
+            }
+            catch(OutOfMemoryError e) {
+                Log.e( Tag, "Out of memory transforming image", e );
+                derivedCache.evictAll();
+                return source;
+            }
+            finally {
+                releaseBitmap( source );
+            }
+            cacheBitmap( derivedCache, key, bitmap );
+            removeMiss( key );
+        }
+        return bitmap;
+    }
+
+    /**
+     * Asynchronously load an image.
+     * @return A promise resolving to the image bitmap, or to null if the image can't be loaded.
+     */
+    public Q.Promise<Bitmap> loadBitmapAsync(final String ref, final int width, final int height) {
+        final Q.Promise<Bitmap> promise = new Q.Promise<>();
+        // Check the memory cache first, to avoid a thread switch.
+        Bitmap bitmap = memoryCache.get( makeCacheKey( ref, width, height ) );
+        if( bitmap != null ) {
+            shareBitmap( bitmap );
+            promise.resolve( bitmap );
+            return promise;
+        }
+        loaderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Bitmap bitmap = loadBitmap( ref, width, height );
+                    shareBitmap( bitmap );
+                    promise.resolve( bitmap );
+                }
+                catch(Exception e) {
+                    promise.reject( e );
+                }
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Asynchronously load an image as a drawable.
+     * @return A promise resolving to the image drawable, or to null if the image can't be loaded.
+     */
+    public Q.Promise<Drawable> loadImageAsync(String ref, int width, int height) {
+        return loadBitmapAsync( ref, width, height )
+            .then(new Q.Promise.Callback<Bitmap, Drawable>() {
+                @Override
+                public Drawable result(Bitmap bitmap) {
+                    return toDrawable( bitmap );
+                }
+            });
+    }
+
+    /**
+     * Decode an image reference.
+     * @return The decoded image, or null if the reference doesn't refer to a decodable image.
+     * @throws TransientLoadException If the image couldn't be loaded, but may load if retried.
+     */
+    private Bitmap decodeRef(String ref, int width, int height) throws TransientLoadException {
+        if( isRemoteRef( ref ) ) {
+            return decodeURL( ref, width, height );
+        }
+        String path = Files.fileRefToPath( ref );
+        if( Files.isAssetPath( path ) ) {
+            return decodeAsset( Files.assetPathToName( path ), width, height );
+        }
+        if( path.startsWith("/") ) {
+            return decodeFile( path, width, height );
+        }
+        int id = Images.imageNameToResourceID( ref, r, context );
+        if( id > 0 ) {
+            return decodeResource( id, width, height );
+        }
+        return decodeAsset( ref, width, height );
+    }
+
+    /**
+     * Decode an image downloaded from a URL, using the disk cache where possible.
+     * Network errors, and server responses which may succeed if retried, are reported as
+     * transient load failures.
+     */
+    private Bitmap decodeURL(String url, int width, int height) throws TransientLoadException {
+        File file = diskCache.get( url );
+        if( file == null ) {
+            Response response;
+            try {
+                // Download on the loader thread, so that image downloads don't queue behind the
+                // app's other HTTP requests.
+                response = httpClient.sendSync( new DataRequest( url, "GET") );
+            }
+            catch(MalformedURLException e) {
+                Log.w( Tag, String.format("Bad image URL: %s", url ) );
+                return null;
+            }
+            catch(Exception e) {
+                throw new TransientLoadException( e.getMessage() );
+            }
+            int statusCode = response.getStatusCode();
+            if( isTransientStatus( statusCode ) ) {
+                throw new TransientLoadException( String.format("HTTP status %d", statusCode ) );
+            }
+            String contentType = response.getContentType();
+            if( statusCode != 200 || contentType == null || !contentType.startsWith("image/") ) {
+                return null;
+            }
+            final byte[] data = response.getRawBody();
+            file = diskCache.put( url, data );
+            if( file == null ) {
+                // Disk cache write failed, decode directly from the downloaded data.
+                return decode( new Decoder() {
+                    @Override
+                    public Bitmap decode(BitmapFactory.Options options) {
+                        return BitmapFactory.decodeByteArray( data, 0, data.length, options );
+                    }
+                }, width, height );
+            }
+        }
+        return decodeFile( file.getAbsolutePath(), width, height );
+    }
+
+    /**
+     * Test whether an HTTP response status indicates a failure which may succeed if retried,
+     * i.e. a request timeout, rate limiting or a server error.
+     */
+    static boolean isTransientStatus(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    /** Decode an image file. */
+    private Bitmap decodeFile(final String path, int width, int height) throws TransientLoadException {
+        return decode( new Decoder() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeFile( path, options );
+            }
+        }, width, height );
+    }
+
+    /** Decode an image resource. */
+    private Bitmap decodeResource(final int id, int width, int height) throws TransientLoadException {
+        Bitmap bitmap = decode( new Decoder() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeResource( r, id, options );
+            }
+        }, width, height );
+        // Nine-patch images can't be represented as a plain bitmap, so leave these to be loaded
+        // through the resources API.
+        if( bitmap != null && bitmap.getNinePatchChunk() != null ) {
+            return null;
+        }
+        return bitmap;
+    }
+
+    /** Decode an image asset. */
+    private Bitmap decodeAsset(final String name, int width, int height) throws TransientLoadException {
+        final AssetManager assets = context.getAssets();
+        return decode( new Decoder() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) throws IOException {
+                InputStream in = assets.open( name );
+                try {
+                    return BitmapFactory.decodeStream( in, null, options );
+                }
+                finally {
+                    in.close();
+                }
+            }
+        }, width, height );
+    }
+
+    /**
+     * Decode a bitmap, downsampled to the target size.
+     * The image's bounds are read first, to calculate the sample size; a bitmap from the pool is
+     * then reused for the decode, if one is available.
+     */
+    private Bitmap decode(Decoder decoder, int width, int height) throws TransientLoadException {
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            decoder.decode( options );
+            if( options.outWidth <= 0 || options.outHeight <= 0 ) {
+                // Not a decodable image.
+                return null;
+            }
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = calculateSampleSize( options.outWidth, options.outHeight, width, height );
+            options.inMutable = true;
+            options.inBitmap = bitmapPool.getForDecode( options );
+            try {
+                return decoder.decode( options );
+            }
+            catch(IllegalArgumentException e) {
+                // The pooled bitmap couldn't be reused, so retry without it.
+                if( options.inBitmap == null ) {
+                    throw e;
+                }
+                options.inBitmap = null;
+                return decoder.decode( options );
+            }
+        }
+        catch(IOException e) {
+            Log.w( Tag, "Decoding image", e );
+        }
+        catch(OutOfMemoryError e) {
+            Log.e( Tag, "Out of memory decoding image", e );
+            memoryCache.evictAll();
+            throw new TransientLoadException("Out of memory");
+        }
+        return null;
+    }
+
+    /**
+     * Calculate the largest power-of-two sample size which keeps the decoded image at least as
+     * large as the target size.
+     */
+    static int calculateSampleSize(int imageWidth, int imageHeight, int width, int height) {
+        int sampleSize = 1;
+        if( width <= 0 && height <= 0 ) {
+            return sampleSize;
+        }
+        while( (width <= 0 || (imageWidth / (sampleSize * 2)) >= width)
+            && (height <= 0 || (imageHeight / (sampleSize * 2)) >= height) ) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
@@ -0,0 +1,272 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff.Mode;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader.TileMode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A transform applied to a bitmap to produce a derived bitmap.
+ * Each transform has a key which uniquely and stably identifies the transform and its parameters;
+ * the key is used to cache the bitmaps derived by the transform. Transform instances hold the
+ * paint and shader objects they draw with, so that these are reused between calls. Instances are
+ * shared through the factory methods on this class, and their transform() methods can be called
+ * from any thread.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public abstract class ImageTransform {
+
+    /** Shared transform instances, keyed by transform key. */
+    private static final Map<String,ImageTransform> Transforms = new ConcurrentHashMap<>();
+    /**
+     * The last rounded corners transform returned. Tables typically use a single corner radius
+     * for every row, so this avoids making a key for each lookup.
+     */
+    private static volatile RoundedCorners LastRoundedCorners;
+
+    /** Get a transform which rounds an image's corners. */
+    public static ImageTransform roundedCorners(float radius) {
+        RoundedCorners last = LastRoundedCorners;
+        if( last != null && Float.compare( last.radius, radius ) == 0 ) {
+            return last;
+        }
+        String key = RoundedCorners.makeKey( radius );
+        RoundedCorners transform = (RoundedCorners)Transforms.get( key );
+        if( transform == null ) {
+            transform = new RoundedCorners( key, radius );
+            Transforms.put( key, transform );
+        }
+        LastRoundedCorners = transform;
+        return transform;
+    }
+
+    /** Get a transform which adds a reflection below an image. */
+    public static ImageTransform reflection() {
+        ImageTransform transform = Transforms.get( Reflection.Key );
+        if( transform == null ) {
+            transform = new Reflection();
+            Transforms.put( Reflection.Key, transform );
+        }
+        return transform;
+    }
+
+    /** Get a transform which scales an image to a specified size. */
+    public static ImageTransform zoom(int width, int height) {
+        String key = Zoom.makeKey( width, height );
+        ImageTransform transform = Transforms.get( key );
+        if( transform == null ) {
+            transform = new Zoom( key, width, height );
+            Transforms.put( key, transform );
+        }
+        return transform;
+    }
+
+    /** The transform key. */
+    private String key;
+    /** A canvas used to draw into the derived bitmap. */
+    protected Canvas canvas = new Canvas();
+
+    protected ImageTransform(String key) {
+        this.key = key;
+    }
+
+    /** Get the transform's key. */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Transform a bitmap.
+     * @param source    The bitmap to transform. The source bitmap isn't modified.
+     * @param pool      A pool to take the derived bitmap from. May be null.
+     * @return A new bitmap derived from the source bitmap.
+     */
+    public synchronized Bitmap transform(Bitmap source, BitmapPool pool) {
+        Bitmap output = obtainBitmap( pool, getWidth( source ), getHeight( source ), getConfig( source ) );
+        canvas.setBitmap( output );
+        draw( source, output );
+        canvas.setBitmap( null );
+        return output;
+    }
+
+    /** Get the width of the bitmap derived from a source bitmap. */
+    protected int getWidth(Bitmap source) {
+        return source.getWidth();
+    }
+
+    /** Get the height of the bitmap derived from a source bitmap. */
+    protected int getHeight(Bitmap source) {
+        return source.getHeight();
+    }
+
+    /** Get the configuration of the bitmap derived from a source bitmap. */
+    protected Bitmap.Config getConfig(Bitmap source) {
+        return Bitmap.Config.ARGB_8888;
+    }
+
+    /** Draw the transformed source bitmap onto the transform's canvas. */
+    protected abstract void draw(Bitmap source, Bitmap output);
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+    /** Take a bitmap from a pool, or create a new bitmap if the pool has none of the required size. */
+    static Bitmap obtainBitmap(BitmapPool pool, int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = pool != null ? pool.get( width, height, config ) : null;
+        if( bitmap == null ) {
+            bitmap = Bitmap.createBitmap( width, height, config );
+        }
+        return bitmap;
+    }
+
+    /** A transform which rounds an image's corners. */
+    static class RoundedCorners extends ImageTransform {
+
+        static String makeKey(float radius) {
+            return "round:"+radius;
+        }
+
+        private final float radius;
+        /** Paint used to draw the rounded corner mask. */
+        private Paint maskPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
+        /** Paint used to draw the source image through the mask. */
+        private Paint imagePaint = new Paint( Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG );
+        private Rect rect = new Rect();
+        private RectF rectF = new RectF();
+
+        RoundedCorners(String key, float radius) {
+            super( key );
+            this.radius = radius;
+            maskPaint.setColor( 0xff424242 );
+            imagePaint.setXfermode( new PorterDuffXfermode( Mode.SRC_IN ) );
+        }
+
+        @Override
+        protected void draw(Bitmap source, Bitmap output) {
+            rect.set( 0, 0, source.getWidth(), source.getHeight() );
+            rectF.set( rect );
+            canvas.drawRoundRect( rectF, radius, radius, maskPaint );
+            canvas.drawBitmap( source, rect, rect, imagePaint );
+        }
+    }
+
+    /** A transform which adds a fading reflection below an image. */
+    static class Reflection extends ImageTransform {
+
+        static final String Key = "reflection";
+        /** The gap between the image and its reflection. */
+        static final int ReflectionGap = 4;
+
+        /** Paint used to fill the gap between the image and its reflection. */
+        private Paint gapPaint = new Paint();
+        /** Paint used to fade the reflection. */
+        private Paint fadePaint = new Paint();
+        /** The fade shader; reused for images of the same height. */
+        private LinearGradient fadeShader;
+        /** The image height the fade shader was created for. */
+        private int fadeShaderHeight = -1;
+        private Matrix matrix = new Matrix();
+
+        Reflection() {
+            super( Key );
+            fadePaint.setXfermode( new PorterDuffXfermode( Mode.DST_IN ) );
+        }
+
+        @Override
+        protected int getHeight(Bitmap source) {
+            int height = source.getHeight();
+            return height + height / 2;
+        }
+
+        @Override
+        protected void draw(Bitmap source, Bitmap output) {
+            int width = source.getWidth();
+            int height = source.getHeight();
+            int outputHeight = output.getHeight();
+            canvas.drawBitmap( source, 0, 0, null );
+            canvas.drawRect( 0, height, width, height + ReflectionGap, gapPaint );
+            // Draw the bottom half of the image, flipped vertically, below the gap.
+            matrix.setScale( 1, -1 );
+            matrix.postTranslate( 0, 2 * height + ReflectionGap );
+            canvas.save();
+            canvas.clipRect( 0, height + ReflectionGap, width, outputHeight );
+            canvas.drawBitmap( source, matrix, null );
+            canvas.restore();
+            if( fadeShaderHeight != height ) {
+                fadeShader = new LinearGradient( 0, height, 0, outputHeight + ReflectionGap,
+                    0x70ffffff, 0x00ffffff, TileMode.CLAMP );
+                fadePaint.setShader( fadeShader );
+                fadeShaderHeight = height;
+            }
+            canvas.drawRect( 0, height, width, outputHeight + ReflectionGap, fadePaint );
+        }
+    }
+
+    /** A transform which scales an image to a specified size. */
+    static class Zoom extends ImageTransform {
+
+        static String makeKey(int width, int height) {
+            return "zoom:"+width+"x"+height;
+        }
+
+        private int width;
+        private int height;
+        private Paint paint = new Paint( Paint.FILTER_BITMAP_FLAG );
+        private Rect srcRect = new Rect();
+        private Rect dstRect = new Rect();
+
+        Zoom(String key, int width, int height) {
+            super( key );
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected int getWidth(Bitmap source) {
+            return width;
+        }
+
+        @Override
+        protected int getHeight(Bitmap source) {
+            return height;
+        }
+
+        @Override
+        protected Bitmap.Config getConfig(Bitmap source) {
+            Bitmap.Config config = source.getConfig();
+            return config != null ? config : Bitmap.Config.ARGB_8888;
+        }
+
+        @Override
+        protected void draw(Bitmap source, Bitmap output) {
+            srcRect.set( 0, 0, source.getWidth(), source.getHeight() );
+            dstRect.set( 0, 0, width, height );
+            canvas.drawBitmap( source, srcRect, dstRect, paint );
+        }
+    }
+}
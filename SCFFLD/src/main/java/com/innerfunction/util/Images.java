@@ -16,66 +16,46 @@ package com.innerfunction.util;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
-import android.graphics.Bitmap.Config;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.LinearGradient;
-import android.graphics.Matrix;
-import android.graphics.Paint;
 import android.graphics.PixelFormat;
-import android.graphics.PorterDuff.Mode;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.Shader.TileMode;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
 
-import com.innerfunction.http.Client;
-import com.innerfunction.http.Response;
 import com.innerfunction.q.Q;
 
-import java.io.File;
-import java.net.MalformedURLException;
-
 public class Images {
 
     /**
      * Load an image from a URL.
+     * The image is downsampled to the size of the display.
      * @param url       Either a file: or HTTP URL.
      * @param context   An Android context object.
      * @return          A deferred promise resolving to the image as a Drawable instance.
      *                  The promise will resolve to null if a valid image can't be loaded from the
-     *                  URL.
+     *                  URL. Images are loaded and cached through the shared image pipeline.
      */
     public static Q.Promise<Drawable> loadImageFromURL(String url, Context context) {
+        DisplayMetrics displayMetrics = Display.getDisplayMetrics();
+        return loadImageFromURL( url, context, displayMetrics.widthPixels, displayMetrics.heightPixels );
+    }
+
+    /**
+     * Load an image from a URL, downsampled to a target size.
+     * @param url       Either a file: or HTTP URL.
+     * @param context   An Android context object.
+     * @param width     The target width, in pixels; or 0 to load the image at full size.
+     * @param height    The target height, in pixels; or 0 to load the image at full size.
+     * @return          A deferred promise resolving to the image as a Drawable instance.
+     */
+    public static Q.Promise<Drawable> loadImageFromURL(String url, Context context, int width, int height) {
         int idx = url.indexOf(':');
         if( idx == -1 ) {
             return Q.reject("Invalid URL");
         }
         String scheme = url.substring( 0, idx );
-        if( "file".equals( scheme ) ) {
-            String path = url.substring( 7 );
-            Bitmap bitmap = BitmapFactory.decodeFile( path );
-            Drawable drawable = new BitmapDrawable( Resources.getSystem(), bitmap );
-            return Q.resolve( drawable );
-        }
-        else if( "http".equals( scheme ) || "https".equals( scheme ) ) {
-            Client httpClient = new Client( context );
-            return httpClient.get( url )
-                .then( new Q.Promise.Callback<Response, Drawable>() {
-                    @Override
-                    public Drawable result(Response response) {
-                        Drawable drawable = null;
-                        String contentType = response.getContentType();
-                        if( contentType != null && contentType.startsWith("image/") ) {
-                            byte[] data = response.getRawBody();
-                            Bitmap bitmap = BitmapFactory.decodeByteArray( data, 0, data.length );
-                            drawable = new BitmapDrawable( Resources.getSystem(), bitmap );
-                        }
-                        return drawable;
-                    }
-                } );
+        if( "file".equals( scheme ) || "http".equals( scheme ) || "https".equals( scheme ) ) {
+            return ImagePipeline.getInstance( context ).loadImageAsync( url, width, height );
         }
         return Q.reject( String.format("Unsupported URL scheme: %s", scheme ) );
     }
@@ -105,14 +85,7 @@ public class Images {
      * Zooming image
      */
     public static Bitmap zoomBitmap(Bitmap bitmap, int w, int h) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        Matrix matrix = new Matrix();
-        float scaleWidht = ((float) w / width);
-        float scaleHeight = ((float) h / height);
-        matrix.postScale(scaleWidht, scaleHeight);
-        Bitmap newbmp = Bitmap.createBitmap(bitmap, 0, 0, width, height, matrix, true);
-        return newbmp;
+        return ImageTransform.zoom( w, h ).transform( bitmap, null );
     }
 
     /**
@@ -138,24 +111,7 @@ public class Images {
      * @return 圆角图片
      */
     public static Bitmap toRoundedCorner(Bitmap bitmap, float radius) {
-        Bitmap output = Bitmap.createBitmap(bitmap.getWidth(), bitmap
-            .getHeight(), Config.ARGB_8888);
-        Canvas canvas = new Canvas(output);
-
-        final int color = 0xff424242;
-        final Paint paint = new Paint();
-        final Rect rect = new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight());
-        final RectF rectF = new RectF(rect);
-
-        paint.setAntiAlias(true);
-        canvas.drawARGB(0, 0, 0, 0);
-        paint.setColor(color);
-        canvas.drawRoundRect(rectF, radius, radius, paint);
-
-        paint.setXfermode(new PorterDuffXfermode(Mode.SRC_IN));
-        canvas.drawBitmap(bitmap, rect, rect, paint);
-
-        return output;
+        return ImageTransform.roundedCorners( radius ).transform( bitmap, null );
     }
 
 
@@ -176,37 +132,7 @@ public class Images {
      * Get Bitmap Reflection
      */
     public static Bitmap createReflectionImageWithOrigin(Bitmap bitmap) {
-        final int reflectionGap = 4;
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-
-        Matrix matrix = new Matrix();
-        matrix.preScale(1, -1);
-
-        Bitmap reflectionImage = Bitmap.createBitmap(bitmap, 0, height / 2, width, height / 2,
-            matrix, false);
-
-        Bitmap bitmapWithReflection = Bitmap.createBitmap(width, (height + height / 2),
-            Config.ARGB_8888);
-
-        Canvas canvas = new Canvas(bitmapWithReflection);
-        canvas.drawBitmap(bitmap, 0, 0, null);
-        Paint defaultPaint = new Paint();
-        canvas.drawRect(0, height, width, height + reflectionGap, defaultPaint);
-
-        canvas.drawBitmap(reflectionImage, 0, height + reflectionGap, null);
-
-        Paint paint = new Paint();
-        LinearGradient shader = new LinearGradient(0, bitmap.getHeight(), 0,
-            bitmapWithReflection.getHeight() + reflectionGap, 0x70ffffff, 0x00ffffff,
-            TileMode.CLAMP);
-        paint.setShader(shader);
-        // Set the Transfer mode to be porter duff and destination in
-        paint.setXfermode(new PorterDuffXfermode(Mode.DST_IN));
-        // Draw a rectangle using the paint with our linear gradient
-        canvas.drawRect(0, height, width, bitmapWithReflection.getHeight() + reflectionGap, paint);
-
-        return bitmapWithReflection;
+        return ImageTransform.reflection().transform( bitmap, null );
     }
 
 }
@@ -62,12 +62,33 @@ public class Maps {
             }
             @Override
             public Set<Entry<K,V>> entrySet() {
+                // Entries in the modified set shadow entries with the same key in the original.
                 HashSet<Entry<K,V>> entries = new HashSet<Entry<K,V>>();
                 entries.addAll( super.entrySet() );
-                entries.addAll( map.entrySet() );
+                for( Entry<K,V> entry : map.entrySet() ) {
+                    if( !super.containsKey( entry.getKey() ) ) {
+                        entries.add( entry );
+                    }
+                }
                 return entries;
             }
             @Override
+            public int size() {
+                // Count the original's entries plus the modified entries which don't shadow one of
+                // the original's entries; avoids building the merged key set.
+                int size = map.size();
+                for( K key : super.keySet() ) {
+                    if( !map.containsKey( key ) ) {
+                        size++;
+                    }
+                }
+                return size;
+            }
+            @Override
+            public boolean isEmpty() {
+                return super.isEmpty() && map.isEmpty();
+            }
+            @Override
             public String toString() {
                 StringBuffer sb = new StringBuffer("{ ");
                 boolean delimit = false;
@@ -109,7 +130,9 @@ public class Maps {
      * @return
      */
     public static <K, V> Map<K, V> mixin(Map<K, V> map0, Map<K, V> map1) {
-        Map<K, V> result = extend( map0 );
+        // Copy into a new map instead of extending the first map; lookups on the result would
+        // otherwise have to walk the chain of maps built up by successive mixins.
+        Map<K, V> result = new HashMap<K, V>( map0 );
         result.putAll( map1 );
         return result;
     }
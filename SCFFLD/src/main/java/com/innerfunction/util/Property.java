@@ -14,7 +14,6 @@
 package com.innerfunction.util;
 
 import android.util.Log;
-import android.util.LruCache;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -160,13 +159,17 @@ public class Property {
     }
 
     /**
-     * A cache of object properties by class name.
-     * Used to cache the results of getPropertiesForObject(..). The Class.getMethods() call can be
-     * CPU intensive; however, it is not desirable to cache all results for all classes as this
-     * could swap CPU overhead for memory overhead. Instead, an LRU cache with a smallish size (of
-     * 50 items) is kept.
+     * A cache of object properties by class.
+     * Used to cache the results of getPropertiesForObject(..). Scanning a class' declared methods
+     * is CPU intensive, and an app may configure many more classes than a small LRU cache can
+     * hold, so the properties of each class are kept for as long as the class is loaded.
      */
-    static final LruCache<Class,Map<String,Property>> ObjectPropertiesByClass = new LruCache<>( 50 );
+    static final ClassCache<Map<String,Property>> ObjectPropertiesByClass = new ClassCache<Map<String,Property>>() {
+        @Override
+        protected Map<String,Property> computeValue(Class<?> clss) {
+            return readPropertiesForClass( clss );
+        }
+    };
 
     /**
      * Get the configurable properties for an object.
@@ -175,78 +178,82 @@ public class Property {
      * @return A map of object properties.
      */
     public static Map<String,Property> getPropertiesForObject(Object object) {
-        Class<?> objClass = object.getClass();
-        // Check for a cached result.
-        Map<String,Property> properties = ObjectPropertiesByClass.get( objClass );
-        if( properties == null ) {
-            // Cache miss.
-            Log.d( Tag, String.format("getPropertiesForObject(%s) cache miss", objClass.getCanonicalName()));
-            // Build a map of all the class' setter & getter methods, and a list of property base
-            // names.
-            Map<String, Method> setters = new HashMap<>();
-            Map<String, Method> getters = new HashMap<>();
-            List<String> baseNames = new ArrayList<>();
-
-            // Extract public setter methods from the class. The following implementation avoids
-            // the Class.getMethods() method because it is not very efficient - seems to spend a
-            // lot of time detecting and removing duplicate method names.
-            Class<?> hierMember = objClass;
-            while( hierMember != null ) {
-                for( Method method : hierMember.getDeclaredMethods() ) {
-                    int modifiers = method.getModifiers();
-                    // We're only interested in public, non-static methods;
-                    if( Modifier.isPublic( modifiers ) && !Modifier.isStatic( modifiers ) ) {
-                        Class[] paramTypes = method.getParameterTypes();
-                        String methodName = method.getName();
-                        // We're only interested in setters taking one argument
-                        if( paramTypes.length == 1 && methodName.startsWith("set") ) {
-                            // Only add this method if not previously added (implying that the
-                            // method is overridden in a subclass).
-                            if( !setters.containsKey( methodName ) ) {
-                                baseNames.add( methodName.substring( 3 ) );
-                                setters.put( methodName, method );
-                            }
+        return ObjectPropertiesByClass.get( object.getClass() );
+    }
+
+    /**
+     * Get the configurable properties for a class.
+     * Can be used to preload property metadata before any instance of the class is configured.
+     * @param objClass  The class whose properties are needed.
+     * @return A map of Property instances keyed by property name.
+     */
+    public static Map<String,Property> getPropertiesForClass(Class<?> objClass) {
+        return ObjectPropertiesByClass.get( objClass );
+    }
+
+    /** Read the configurable properties of a class. */
+    private static Map<String,Property> readPropertiesForClass(Class<?> objClass) {
+        // Build a map of all the class' setter & getter methods, and a list of property base
+        // names.
+        Map<String, Method> setters = new HashMap<>();
+        Map<String, Method> getters = new HashMap<>();
+        List<String> baseNames = new ArrayList<>();
+
+        // Extract public setter methods from the class. The following implementation avoids
+        // the Class.getMethods() method because it is not very efficient - seems to spend a
+        // lot of time detecting and removing duplicate method names.
+        Class<?> hierMember = objClass;
+        while( hierMember != null ) {
+            for( Method method : hierMember.getDeclaredMethods() ) {
+                int modifiers = method.getModifiers();
+                // We're only interested in public, non-static methods;
+                if( Modifier.isPublic( modifiers ) && !Modifier.isStatic( modifiers ) ) {
+                    Class[] paramTypes = method.getParameterTypes();
+                    String methodName = method.getName();
+                    // We're only interested in setters taking one argument
+                    if( paramTypes.length == 1 && methodName.startsWith("set") ) {
+                        // Only add this method if not previously added (implying that the
+                        // method is overridden in a subclass).
+                        if( !setters.containsKey( methodName ) ) {
+                            baseNames.add( methodName.substring( 3 ) );
+                            setters.put( methodName, method );
                         }
-                        // Else build a map of potential getters.
-                        else if( paramTypes.length == 0
-                            && (methodName.startsWith("get")
-                            ||  methodName.startsWith("is")
-                            ||  methodName.startsWith("has")) ) {
-                            // Only add this method if not previously added (implying that the
-                            // method is overridden in a subclass).
-                            if( !getters.containsKey( methodName ) ) {
-                                getters.put( methodName, method );
-                            }
+                    }
+                    // Else build a map of potential getters.
+                    else if( paramTypes.length == 0
+                        && (methodName.startsWith("get")
+                        ||  methodName.startsWith("is")
+                        ||  methodName.startsWith("has")) ) {
+                        // Only add this method if not previously added (implying that the
+                        // method is overridden in a subclass).
+                        if( !getters.containsKey( methodName ) ) {
+                            getters.put( methodName, method );
                         }
                     }
                 }
-                // Continue to the superclass.
-                hierMember = hierMember.getSuperclass();
             }
+            // Continue to the superclass.
+            hierMember = hierMember.getSuperclass();
+        }
 
-            /*
-            for( Method method : cl.getMethods() ) {
-                String methodName = method.getName();
-                if( methodName.startsWith( "set" ) ) {
-                    Class[] argTypes = method.getParameterTypes();
-                    if( argTypes.length == 1 ) {
-                        baseNames.add( methodName.substring( 3 ) );
-                    }
+        /*
+        for( Method method : cl.getMethods() ) {
+            String methodName = method.getName();
+            if( methodName.startsWith( "set" ) ) {
+                Class[] argTypes = method.getParameterTypes();
+                if( argTypes.length == 1 ) {
+                    baseNames.add( methodName.substring( 3 ) );
                 }
-                methods.put( methodName, method );
             }
-           */
+            methods.put( methodName, method );
+        }
+       */
 
-            // Generate a map of properties.
-            properties = new HashMap<>();
-            for( String baseName : baseNames ) {
-                Property property = new Property( baseName, setters, getters );
-                properties.put( property.name, property );
-            }
-            // Add result to cache.
-            synchronized( ObjectPropertiesByClass ) {
-                ObjectPropertiesByClass.put( objClass, properties );
-            }
+        // Generate a map of properties.
+        Map<String,Property> properties = new HashMap<>();
+        for( String baseName : baseNames ) {
+            Property property = new Property( baseName, setters, getters );
+            properties.put( property.name, property );
         }
         return properties;
     }
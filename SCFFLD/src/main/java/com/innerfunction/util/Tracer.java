@@ -0,0 +1,281 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import android.os.Process;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lightweight tracer for measuring startup and other app phases.
+ * Code marks the start and end of a span with begin() and end() calls; spans can be nested, and
+ * must be ended on the thread they were begun on:
+ *
+ *     Tracer.begin("Container.configureWith");
+ *     try {
+ *         ...
+ *     }
+ *     finally {
+ *         Tracer.end("Container.configureWith");
+ *     }
+ *
+ * Events are written to a fixed size ring buffer without locking; once the buffer is full, either
+ * the oldest events are overwritten or, for traces of a phase such as startup, tracing stops. Each
+ * event is an immutable object, published to the buffer through an atomic reference array. The
+ * buffer can be dumped in Chrome's trace event format, and loaded into chrome://tracing or
+ * Perfetto for viewing.
+ *
+ * The tracer is disabled by default. When disabled, begin() and end() return after a single
+ * field read, and no buffer is allocated.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@SuppressWarnings("unchecked")
+public class Tracer {
+
+    /** The default number of events held by the ring buffer. */
+    public static final int DefaultCapacity = 16384;
+
+    /** Trace event phases. */
+    static final byte Begin = 'B';
+    static final byte End   = 'E';
+
+    /** A ring buffer of trace events. */
+    static final class Buffer {
+
+        /** Mask for converting event sequence numbers to buffer slots. */
+        final int mask;
+        /** Flag indicating whether to stop recording events once the buffer is full. */
+        final boolean stopWhenFull;
+        /** The nano time at which the buffer was created; event times are relative to this. */
+        final long origin = System.nanoTime();
+        /** The sequence number of the next event. */
+        final AtomicLong next = new AtomicLong();
+        /** The event in each slot; null for empty slots. */
+        final AtomicReferenceArray<Event> events;
+
+        Buffer(int capacity, boolean stopWhenFull) {
+            // Round the capacity up to a power of two.
+            int size = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+            this.mask = size - 1;
+            this.stopWhenFull = stopWhenFull;
+            this.events = new AtomicReferenceArray<>( size );
+        }
+
+        void record(byte phase, String name, String arg) {
+            if( stopWhenFull && next.get() > mask ) {
+                return;
+            }
+            long sequence = next.getAndIncrement();
+            if( stopWhenFull && sequence > mask ) {
+                return;
+            }
+            long time = System.nanoTime() - origin;
+            events.set( (int)(sequence & mask), new Event( sequence, phase, name, arg, time, Thread.currentThread().getId() ) );
+        }
+
+        /** Test whether the buffer has stopped recording events because it is full. */
+        boolean isFull() {
+            return stopWhenFull && next.get() > mask;
+        }
+    }
+
+    /** A trace event. */
+    static final class Event {
+        final long sequence;
+        final byte phase;
+        final String name;
+        final String arg;
+        final long time;
+        final long threadID;
+
+        Event(long sequence, byte phase, String name, String arg, long time, long threadID) {
+            this.sequence = sequence;
+            this.phase = phase;
+            this.name = name;
+            this.arg = arg;
+            this.time = time;
+            this.threadID = threadID;
+        }
+    }
+
+    /** The active buffer; null when the tracer is disabled. */
+    private static volatile Buffer ActiveBuffer;
+    /** The names of traced threads, keyed by thread ID. */
+    private static final Map<Long,String> ThreadNames = new ConcurrentHashMap<>();
+
+    /** Enable tracing with the default buffer capacity. */
+    public static void enable() {
+        enable( DefaultCapacity );
+    }
+
+    /**
+     * Enable tracing.
+     * Discards any previously traced events. Once the buffer is full, the oldest events are
+     * overwritten.
+     * @param capacity  The maximum number of events to hold.
+     */
+    public static void enable(int capacity) {
+        enable( capacity, false );
+    }
+
+    /**
+     * Enable tracing.
+     * Discards any previously traced events.
+     * @param capacity      The maximum number of events to hold.
+     * @param stopWhenFull  If true then tracing stops once the buffer is full, so that the start
+     *                      of a phase (e.g. startup) is kept; otherwise the oldest events are
+     *                      overwritten.
+     */
+    public static synchronized void enable(int capacity, boolean stopWhenFull) {
+        ThreadNames.clear();
+        ActiveBuffer = new Buffer( capacity, stopWhenFull );
+    }
+
+    /** Disable tracing and discard all traced events. */
+    public static synchronized void disable() {
+        ActiveBuffer = null;
+        ThreadNames.clear();
+    }
+
+    public static boolean isEnabled() {
+        return ActiveBuffer != null;
+    }
+
+    /** Test whether tracing has stopped because the buffer is full. */
+    public static boolean isFull() {
+        Buffer buffer = ActiveBuffer;
+        return buffer != null && buffer.isFull();
+    }
+
+    /** Begin a span. */
+    public static void begin(String name) {
+        Buffer buffer = ActiveBuffer;
+        if( buffer != null ) {
+            recordThreadName();
+            buffer.record( Begin, name, null );
+        }
+    }
+
+    /**
+     * Begin a span.
+     * @param name  The span name.
+     * @param arg   An argument describing the span instance, e.g. the name of the object being
+     *              built; shown with the span in trace viewers.
+     */
+    public static void begin(String name, String arg) {
+        Buffer buffer = ActiveBuffer;
+        if( buffer != null ) {
+            recordThreadName();
+            buffer.record( Begin, name, arg );
+        }
+    }
+
+    /** End a span. Must be called on the thread the span was begun on. */
+    public static void end(String name) {
+        Buffer buffer = ActiveBuffer;
+        if( buffer != null ) {
+            buffer.record( End, name, null );
+        }
+    }
+
+    /**
+     * Get the traced events in Chrome's trace event format.
+     * Events are read without stopping tracing; events written during the read may be omitted.
+     */
+    public static JSONObject toChromeTraceData() {
+        JSONArray traceEvents = new JSONArray();
+        Buffer buffer = ActiveBuffer;
+        if( buffer != null ) {
+            int pid = Process.myPid();
+            for( Map.Entry<Long,String> entry : ThreadNames.entrySet() ) {
+                JSONObject args = new JSONObject();
+                args.put("name", entry.getValue() );
+                JSONObject traceEvent = new JSONObject();
+                traceEvent.put("name", "thread_name");
+                traceEvent.put("ph", "M");
+                traceEvent.put("pid", pid );
+                traceEvent.put("tid", entry.getKey() );
+                traceEvent.put("args", args );
+                traceEvents.add( traceEvent );
+            }
+            for( Event event : readEvents( buffer ) ) {
+                JSONObject traceEvent = new JSONObject();
+                traceEvent.put("name", event.name );
+                traceEvent.put("ph", String.valueOf( (char)event.phase ) );
+                // Trace event times are in microseconds.
+                traceEvent.put("ts", event.time / 1000.0 );
+                traceEvent.put("pid", pid );
+                traceEvent.put("tid", event.threadID );
+                if( event.arg != null ) {
+                    JSONObject args = new JSONObject();
+                    args.put("arg", event.arg );
+                    traceEvent.put("args", args );
+                }
+                traceEvents.add( traceEvent );
+            }
+        }
+        JSONObject trace = new JSONObject();
+        trace.put("traceEvents", traceEvents );
+        trace.put("displayTimeUnit", "ms");
+        return trace;
+    }
+
+    /**
+     * Write the traced events to a file in Chrome's trace event format.
+     * @return Returns true if the trace was successfully written.
+     */
+    public static boolean writeChromeTrace(File file) {
+        return Files.writeJSON( file, toChromeTraceData() );
+    }
+
+    /** Read the events currently in a buffer, in the order they were recorded. */
+    private static List<Event> readEvents(Buffer buffer) {
+        int size = buffer.mask + 1;
+        List<Event> events = new ArrayList<>( size );
+        for( int slot = 0; slot < size; slot++ ) {
+            Event event = buffer.events.get( slot );
+            if( event != null ) {
+                events.add( event );
+            }
+        }
+        Collections.sort( events, new Comparator<Event>() {
+            @Override
+            public int compare(Event e1, Event e2) {
+                return e1.sequence < e2.sequence ? -1 : (e1.sequence == e2.sequence ? 0 : 1);
+            }
+        });
+        return events;
+    }
+
+    /** Record the current thread's name, for display in trace viewers. */
+    private static void recordThreadName() {
+        Thread thread = Thread.currentThread();
+        Long threadID = thread.getId();
+        if( !ThreadNames.containsKey( threadID ) ) {
+            ThreadNames.put( threadID, thread.getName() );
+        }
+    }
+}
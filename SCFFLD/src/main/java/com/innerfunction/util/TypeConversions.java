@@ -31,6 +31,7 @@ import org.json.simple.JSONValue;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
@@ -220,12 +221,40 @@ public class TypeConversions {
     /**
      * Convert value to an image:
      *  * -> String -> Drawable (string interpreted as image resource name; if not found, then as asset name). 
+     * Bitmap images are loaded through the shared image pipeline, and so are cached.
      */
-    @SuppressWarnings("deprecation")
     public Drawable asImage(Object value) {
+        return asImage( value, 0, 0 );
+    }
+
+    /**
+     * Convert value to an image, downsampled to a target size.
+     * Bitmap images are decoded at the smallest power-of-two sample size which keeps the image
+     * at least as large as the target size; see ImagePipeline.loadBitmap(). Callers which acquire
+     * the image's bitmap for display through the image pipeline must release it once it is no
+     * longer displayed; see ImagePipeline.acquireBitmap().
+     * @param width     The target width, in pixels; or 0 to load the image at full size.
+     * @param height    The target height, in pixels; or 0 to load the image at full size.
+     */
+    @SuppressWarnings("deprecation")
+    public Drawable asImage(Object value, int width, int height) {
         Drawable result = null;
         if( value != null && this.context != null && this.r != null ) {
             String name = asString( value );
+            if( name != null && !ImagePipeline.isRemoteRef( name ) ) {
+                ImagePipeline imagePipeline = ImagePipeline.getInstance( this.context );
+                Bitmap bitmap = imagePipeline.loadBitmap( name, width, height );
+                if( bitmap != null ) {
+                    if( width <= 0 && height <= 0 ) {
+                        // The image may be used anywhere, e.g. as a configured view property, so
+                        // the bitmap must never be pooled.
+                        imagePipeline.shareBitmap( bitmap );
+                    }
+                    return imagePipeline.toDrawable( bitmap );
+                }
+                // Not a bitmap image (e.g. an XML or nine-patch drawable), so fall through to
+                // the resources API.
+            }
             if( name != null ) {
                 int id = Images.imageNameToResourceID( name, this.r, this.context );
                 if( id > 0 ) {
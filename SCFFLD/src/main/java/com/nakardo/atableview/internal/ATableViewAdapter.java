@@ -24,6 +24,7 @@ import com.nakardo.atableview.internal.ATableViewHeaderFooterCell.ATableViewHead
 import com.nakardo.atableview.protocol.ATableViewDataSource;
 import com.nakardo.atableview.protocol.ATableViewDataSourceExt;
 import com.nakardo.atableview.protocol.ATableViewDelegate;
+import com.nakardo.atableview.protocol.ATableViewRowMapping;
 import com.nakardo.atableview.utils.DrawableUtils;
 import com.nakardo.atableview.view.ATableView;
 import com.nakardo.atableview.view.ATableView.ATableViewStyle;
@@ -36,9 +37,11 @@ public class ATableViewAdapter extends BaseAdapter {
     private List<Integer> mHeadersHeight;
     private List<Integer> mFootersHeight;
     private List<Integer> mRows;
-    private List<List<Integer>> mRowsHeight;
+    // JG change - row heights are held in a cache belonging to the table view, see ATableViewRowHeightCache.
+    private ATableViewRowHeightCache mRowsHeight;
     
     private ATableView mTableView;
+    private ATableViewRowMapping mRowMapping;
 
     private void initialize() {
         mHasHeader = new ArrayList<Boolean>();
@@ -46,7 +49,7 @@ public class ATableViewAdapter extends BaseAdapter {
         mHeadersHeight = new ArrayList<Integer>();
         mFootersHeight = new ArrayList<Integer>();
         mRows = new ArrayList<Integer>();
-        mRowsHeight = new ArrayList<List<Integer>>();
+        mRowsHeight = mTableView.getRowHeightCache();
         
         int sections = 0;
         
@@ -79,20 +82,11 @@ public class ATableViewAdapter extends BaseAdapter {
                 
                 // pull row count from datasource.
                 mRows.add(dataSource.numberOfRowsInSection(mTableView, s));
-                
-                List<Integer> sectionRowHeights = new ArrayList<Integer>();
-                
-                // pull row heights.
-                // closes #23, make sure to pull at least the default height for empty rows sections
-                int r = mRows.get(s) - 1;
-                do {
-                    NSIndexPath indexPath = NSIndexPath.indexPathForRowInSection(r, s);
-                    sectionRowHeights.add(delegate.heightForRowAtIndexPath(mTableView, indexPath));
-                    r--;
-                } while (r >= 0);
-                mRowsHeight.add(sectionRowHeights);
             }
         }
+        
+        // pull row heights, only rows changed since the last update are pulled from the delegate.
+        mRowsHeight.update(mTableView, mRows, mRowMapping);
     }
     
     public ATableViewAdapter(ATableView tableView) {
@@ -106,6 +100,39 @@ public class ATableViewAdapter extends BaseAdapter {
         super.notifyDataSetChanged();
     }
     
+    // JG addition - as notifyDataSetChanged(), but the heights of rows the mapping reports as unchanged are kept
+    // without pulling the rows' versions again.
+    public void notifyDataSetChanged(ATableViewRowMapping rowMapping) {
+        mRowMapping = rowMapping;
+        try {
+            notifyDataSetChanged();
+        } finally {
+            mRowMapping = null;
+        }
+    }
+    
+    // JG addition - pull row counts & changed row heights again without notifying the list view, used
+    // when only the content of existing rows has changed.
+    public void notifyRowsChanged() {
+        initialize();
+    }
+    
+    // JG addition - as notifyRowsChanged(), but only the heights of the given rows are pulled again, unless
+    // the row counts have changed since the last update.
+    public void notifyRowsChanged(List<NSIndexPath> indexPaths) {
+        ATableViewDataSource dataSource = mTableView.getDataSource();
+        boolean countsChanged = dataSource == null || dataSource.numberOfSectionsInTableView(mTableView) != mRows.size();
+        for (int s = 0; !countsChanged && s < mRows.size(); s++) {
+            countsChanged = dataSource.numberOfRowsInSection(mTableView, s) != mRows.get(s);
+        }
+        
+        if (countsChanged || !mRowsHeight.hasRowCounts(mRows)) {
+            initialize();
+        } else {
+            mRowsHeight.updateRows(mTableView, indexPaths);
+        }
+    }
+    
     public int getContentHeight() {
         float height = 0;
         
@@ -116,13 +143,8 @@ public class ATableViewAdapter extends BaseAdapter {
             //float density = mTableView.getResources().getDisplayMetrics().density;
             
             // rows.
-            for (List<Integer> sectionHeights : mRowsHeight) {
-                for (int rowHeight : sectionHeights) {
-                    // JG change 2136
-                    //height += rowHeight * density;
-                    height += rowHeight;
-                }
-            }
+            // JG change - total row height is read from the height cache's prefix sums.
+            height += mRowsHeight.getTotalHeight();
             // JG change 2136
             float density = mTableView.getResources().getDisplayMetrics().density;
             height *= density;
@@ -146,11 +168,20 @@ public class ATableViewAdapter extends BaseAdapter {
     }
     
     public int getLastRowHeight() {
-        if( mRowsHeight.size() > 0 ) {
-            List<Integer> sectionHeights = mRowsHeight.get(mRowsHeight.size() - 1);
-            return sectionHeights.get(sectionHeights.size() - 1);
-        }
-        return 0;
+        return mRowsHeight.getLastRowHeight();
+    }
+    
+    // JG addition - offset of a row from the top of the first row, in pixels, excluding headers & footers.
+    public int getRowOffset(NSIndexPath indexPath) {
+        float density = mTableView.getResources().getDisplayMetrics().density;
+        return (int) Math.floor(mRowsHeight.getOffset(indexPath) * density);
+    }
+    
+    // JG addition - index path of the row at an offset in pixels from the top of the first row,
+    // excluding headers & footers.
+    public NSIndexPath getIndexPathForRowOffset(int offset) {
+        float density = mTableView.getResources().getDisplayMetrics().density;
+        return mRowsHeight.getIndexPathForOffset((long) (offset / density));
     }
     
     public NSIndexPath getIndexPath(int position) {
@@ -175,6 +206,21 @@ public class ATableViewAdapter extends BaseAdapter {
         return null;
     }
     
+    // JG addition - the list position of a row, or -1 if the table has no such row.
+    public int getPosition(NSIndexPath indexPath) {
+        int section = indexPath.getSection(), row = indexPath.getRow();
+        if (section < 0 || section >= mRows.size() || row < 0 || row >= mRows.get(section)) {
+            return -1;
+        }
+        
+        int position = 0;
+        for (int s = 0; s < section; s++) {
+            position += mRows.get(s) + getHeaderFooterCountOffset(s);
+        }
+        
+        return position + (hasHeader(section) ? 1 : 0) + row;
+    }
+    
     public boolean hasHeader(int section) {
         if (mTableView.getStyle() == ATableViewStyle.Grouped) {
             return true;
@@ -239,7 +285,7 @@ public class ATableViewAdapter extends BaseAdapter {
         // add measured height to cache, so we don't have to recalculate every time.
         int height = (int) (cell.getMeasuredHeight() / cell.getResources().getDisplayMetrics().density);
         if (cache) {
-            mRowsHeight.get(indexPath.getSection()).set(indexPath.getRow(), height);
+            mRowsHeight.setHeight(indexPath, height);
         }
         
         return height;
@@ -250,7 +296,7 @@ public class ATableViewAdapter extends BaseAdapter {
         
         // transform height constants into values if we've set so.
         // closes #7. it seems Android ~2.2 requires known row height to draw cell background drawable.
-        int rowHeight = mRowsHeight.get(indexPath.getSection()).get(indexPath.getRow());
+        int rowHeight = mRowsHeight.getHeight(indexPath);
         if (rowHeight < 0) {
             // cached for performance, it might have some impact if user changes the text after layout.
             rowHeight = getMeasuredRowHeight(cell, indexPath, true);
@@ -552,7 +598,12 @@ public class ATableViewAdapter extends BaseAdapter {
             ATableViewDataSource dataSource = mTableView.getDataSource();
             dataSource.setReusableCell(cell);
             
-            cell = dataSource.cellForRowAtIndexPath(mTableView, indexPath);
+            // JG change - rows which haven't loaded yet are displayed using a placeholder cell.
+            if (dataSource.isRowLoadedAtIndexPath(mTableView, indexPath)) {
+                cell = dataSource.cellForRowAtIndexPath(mTableView, indexPath);
+            } else {
+                cell = dataSource.placeholderCellForRowAtIndexPath(mTableView, indexPath);
+            }
             
             ATableViewCellBackgroundStyle backgroundStyle = getRowBackgroundStyle(indexPath);
             int rowHeight = getRowHeight(cell, indexPath, backgroundStyle);
@@ -0,0 +1,218 @@
+package com.nakardo.atableview.internal;
+
+import java.util.List;
+
+import com.nakardo.atableview.foundation.NSIndexPath;
+import com.nakardo.atableview.protocol.ATableViewDataSource;
+import com.nakardo.atableview.protocol.ATableViewDelegate;
+import com.nakardo.atableview.protocol.ATableViewRowMapping;
+import com.nakardo.atableview.view.ATableView;
+
+// JG addition - caches row heights between data reloads, keyed by index path and the row version
+// returned by the data source. Only rows whose version has changed are asked for their height
+// again. A prefix sum of the row heights gives the content height and the offset of any row
+// without iterating over every row.
+public class ATableViewRowHeightCache {
+	private int[][] mHeights = new int[0][];
+	private long[][] mVersions = new long[0][];
+	private int[] mRowCounts = new int[0];
+
+	// prefix sums of row heights in table order, mPrefixSums[i] is the height of the rows before row i.
+	private long[] mPrefixSums;
+	private int[] mSectionOffsets;
+	private boolean mPrefixSumsValid;
+
+	private int mRequestedCount;
+
+	public void update(ATableView tableView, List<Integer> rows) {
+		update(tableView, rows, null);
+	}
+
+	// as update(), but the heights of rows which the mapping reports as unchanged are moved from the rows'
+	// previous index paths, without asking the data source for the rows' versions.
+	public void update(ATableView tableView, List<Integer> rows, ATableViewRowMapping rowMapping) {
+		ATableViewDataSource dataSource = tableView.getDataSource();
+		ATableViewDelegate delegate = tableView.getDelegate();
+
+		int sections = rows.size();
+		int[][] heights = new int[sections][];
+		long[][] versions = new long[sections][];
+		mRequestedCount = 0;
+		for (int s = 0; s < sections; s++) {
+
+			// closes #23, make sure to pull at least the default height for empty rows sections.
+			int rowCount = rows.get(s);
+			if (rowCount == 0) {
+				heights[s] = new int[] { delegate.heightForRowAtIndexPath(tableView, NSIndexPath.indexPathForRowInSection(-1, s)) };
+				versions[s] = new long[] { ATableViewDataSource.UNVERSIONED };
+				mRequestedCount++;
+				continue;
+			}
+
+			heights[s] = new int[rowCount];
+			versions[s] = new long[rowCount];
+			for (int r = 0; r < rowCount; r++) {
+				NSIndexPath indexPath = NSIndexPath.indexPathForRowInSection(r, s);
+				NSIndexPath previous = rowMapping != null ? rowMapping.previousIndexPathForRowAtIndexPath(indexPath) : null;
+				if (previous != null && isCached(previous.getSection(), previous.getRow())) {
+					heights[s][r] = mHeights[previous.getSection()][previous.getRow()];
+					versions[s][r] = mVersions[previous.getSection()][previous.getRow()];
+					continue;
+				}
+
+				long version = dataSource.versionForRowAtIndexPath(tableView, indexPath);
+				if (version != ATableViewDataSource.UNVERSIONED && s < mVersions.length && r < mVersions[s].length
+					&& mVersions[s][r] == version) {
+					heights[s][r] = mHeights[s][r];
+				} else {
+					heights[s][r] = delegate.heightForRowAtIndexPath(tableView, indexPath);
+					mRequestedCount++;
+				}
+				versions[s][r] = version;
+			}
+		}
+
+		mHeights = heights;
+		mVersions = versions;
+		mRowCounts = new int[sections];
+		for (int s = 0; s < sections; s++) {
+			mRowCounts[s] = rows.get(s);
+		}
+		mPrefixSumsValid = false;
+	}
+
+	// pull the versions of a set of rows again, and the heights of those rows whose version has changed.
+	// only valid when the table's row counts haven't changed since the last update.
+	public void updateRows(ATableView tableView, List<NSIndexPath> indexPaths) {
+		ATableViewDataSource dataSource = tableView.getDataSource();
+		ATableViewDelegate delegate = tableView.getDelegate();
+
+		mRequestedCount = 0;
+		for (NSIndexPath indexPath : indexPaths) {
+			int s = indexPath.getSection(), r = indexPath.getRow();
+			if (!isCached(s, r)) {
+				continue;
+			}
+
+			long version = dataSource.versionForRowAtIndexPath(tableView, indexPath);
+			if (version == ATableViewDataSource.UNVERSIONED || mVersions[s][r] != version) {
+				int height = delegate.heightForRowAtIndexPath(tableView, indexPath);
+				mRequestedCount++;
+				if (height != mHeights[s][r]) {
+					mHeights[s][r] = height;
+					mPrefixSumsValid = false;
+				}
+				mVersions[s][r] = version;
+			}
+		}
+	}
+
+	// test whether the cache was last updated with the given row counts.
+	public boolean hasRowCounts(List<Integer> rows) {
+		if (rows.size() != mRowCounts.length) {
+			return false;
+		}
+		for (int s = 0; s < mRowCounts.length; s++) {
+			if (rows.get(s) != mRowCounts[s]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isCached(int section, int row) {
+		return section >= 0 && section < mRowCounts.length && row >= 0 && row < mRowCounts[section];
+	}
+
+	public void clear() {
+		mHeights = new int[0][];
+		mVersions = new long[0][];
+		mRowCounts = new int[0];
+		mPrefixSumsValid = false;
+	}
+
+	// number of rows whose height was pulled from the delegate on the last update.
+	public int getRequestedCount() {
+		return mRequestedCount;
+	}
+
+	public int getHeight(NSIndexPath indexPath) {
+		return mHeights[indexPath.getSection()][indexPath.getRow()];
+	}
+
+	public void setHeight(NSIndexPath indexPath, int height) {
+		mHeights[indexPath.getSection()][indexPath.getRow()] = height;
+		mPrefixSumsValid = false;
+	}
+
+	public int getLastRowHeight() {
+		if (mHeights.length > 0) {
+			int[] sectionHeights = mHeights[mHeights.length - 1];
+			return sectionHeights[sectionHeights.length - 1];
+		}
+		return 0;
+	}
+
+	// total height of all rows, as returned by the delegate (i.e. not scaled by density).
+	public long getTotalHeight() {
+		ensurePrefixSums();
+		return mPrefixSums[mPrefixSums.length - 1];
+	}
+
+	// offset of a row from the top of the first row, excluding headers & footers.
+	public long getOffset(NSIndexPath indexPath) {
+		ensurePrefixSums();
+		return mPrefixSums[mSectionOffsets[indexPath.getSection()] + indexPath.getRow()];
+	}
+
+	// index path of the row at an offset from the top of the first row, excluding headers & footers.
+	public NSIndexPath getIndexPathForOffset(long offset) {
+		ensurePrefixSums();
+		int count = mPrefixSums.length - 1;
+		if (count == 0 || offset < 0) {
+			return null;
+		}
+
+		// binary search for the last row starting at or before the offset.
+		int low = 0, high = count - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (mPrefixSums[mid] <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		int section = 0;
+		while (section < mSectionOffsets.length - 1 && mSectionOffsets[section + 1] <= low) {
+			section++;
+		}
+		return NSIndexPath.indexPathForRowInSection(low - mSectionOffsets[section], section);
+	}
+
+	private void ensurePrefixSums() {
+		if (mPrefixSumsValid) {
+			return;
+		}
+
+		int count = 0;
+		mSectionOffsets = new int[mHeights.length];
+		for (int s = 0; s < mHeights.length; s++) {
+			mSectionOffsets[s] = count;
+			count += mHeights[s].length;
+		}
+
+		mPrefixSums = new long[count + 1];
+		int i = 0;
+		for (int[] sectionHeights : mHeights) {
+			for (int height : sectionHeights) {
+
+				// rows waiting to be measured don't have a height yet.
+				mPrefixSums[i + 1] = mPrefixSums[i] + Math.max(0, height);
+				i++;
+			}
+		}
+		mPrefixSumsValid = true;
+	}
+}
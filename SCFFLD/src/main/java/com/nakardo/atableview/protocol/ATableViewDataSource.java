@@ -3,8 +3,15 @@ package com.nakardo.atableview.protocol;
 import com.nakardo.atableview.foundation.NSIndexPath;
 import com.nakardo.atableview.view.ATableView;
 import com.nakardo.atableview.view.ATableViewCell;
+import com.nakardo.atableview.view.ATableViewCell.ATableViewCellSelectionStyle;
+import com.nakardo.atableview.view.ATableViewCell.ATableViewCellStyle;
 
 public abstract class ATableViewDataSource {
+	// JG addition - returned by versionForRowAtIndexPath when rows aren't versioned.
+	public static final long UNVERSIONED = 0;
+	// JG addition - reuse identifier of the cells displayed for rows which haven't loaded yet.
+	public static final String PLACEHOLDER_IDENTIFIER = "ATableViewPlaceholderCell";
+	
 	private ATableViewCell mReusableCell;
 	
 	public abstract ATableViewCell cellForRowAtIndexPath(ATableView tableView, NSIndexPath indexPath);
@@ -22,6 +29,30 @@ public abstract class ATableViewDataSource {
 		return null;
 	}
 	
+	// JG addition - a stamp identifying the version of a row's data. Row heights are only pulled
+	// again from the delegate when a row's version changes; rows returning UNVERSIONED are always
+	// pulled again when the table's data changes.
+	public long versionForRowAtIndexPath(ATableView tableView, NSIndexPath indexPath) {
+		return UNVERSIONED;
+	}
+	
+	// JG addition - rows of a paged data source may not have loaded when first displayed, the adapter
+	// displays a placeholder cell for such rows instead of asking for the row's cell.
+	public boolean isRowLoadedAtIndexPath(ATableView tableView, NSIndexPath indexPath) {
+		return true;
+	}
+	
+	// JG addition - the cell displayed for a row which hasn't loaded yet.
+	public ATableViewCell placeholderCellForRowAtIndexPath(ATableView tableView, NSIndexPath indexPath) {
+		ATableViewCell cell = dequeueReusableCellWithIdentifier(PLACEHOLDER_IDENTIFIER);
+		if (cell == null) {
+			cell = new ATableViewCell(ATableViewCellStyle.Default, PLACEHOLDER_IDENTIFIER, tableView.getContext());
+			cell.setSelectionStyle(ATableViewCellSelectionStyle.None);
+		}
+		
+		return cell;
+	}
+	
 	public ATableViewCell dequeueReusableCellWithIdentifier(String cellIdentifier) {
 		if (cellIdentifier != null && mReusableCell != null &&
 			cellIdentifier.equals(mReusableCell.getReuseIdentifier())) {
@@ -0,0 +1,10 @@
+package com.nakardo.atableview.protocol;
+
+import com.nakardo.atableview.foundation.NSIndexPath;
+
+// JG addition - maps the rows of a table to the index paths they had before a change to the table's data,
+// so that the heights of unchanged rows can be kept without asking the data source for their versions.
+public interface ATableViewRowMapping {
+	// returns the row's index path before the change, or null if the row is new or its content has changed.
+	public NSIndexPath previousIndexPathForRowAtIndexPath(NSIndexPath indexPath);
+}
@@ -1,6 +1,7 @@
 package com.nakardo.atableview.view;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import android.content.Context;
 import android.graphics.Color;
@@ -17,8 +18,10 @@ import com.nakardo.atableview.foundation.NSIndexPath;
 import com.nakardo.atableview.internal.ATableViewAdapter;
 import com.nakardo.atableview.internal.ATableViewCellClickListener;
 import com.nakardo.atableview.internal.ATableViewPlainFooterDrawable;
+import com.nakardo.atableview.internal.ATableViewRowHeightCache;
 import com.nakardo.atableview.protocol.ATableViewDataSource;
 import com.nakardo.atableview.protocol.ATableViewDelegate;
+import com.nakardo.atableview.protocol.ATableViewRowMapping;
 import com.nakardo.atableview.utils.DrawableUtils;
 import com.nakardo.atableview.view.ATableViewCell.ATableViewCellSeparatorStyle;
 
@@ -37,6 +40,8 @@ public class ATableView extends ListView {
 	private ATableViewDelegate mDelegate = new ATableViewDelegate();
 
 	private View mFooterView;
+	// JG addition - row heights are cached across reloads.
+	private ATableViewRowHeightCache mRowHeightCache = new ATableViewRowHeightCache();
 
 	public enum ATableViewStyle {
 		Plain, Grouped
@@ -215,6 +220,7 @@ public class ATableView extends ListView {
 	}
 	public void setDataSource(ATableViewDataSource dataSource) {
 		mDataSource = dataSource;
+		mRowHeightCache.clear();
 	}
 
 	public ATableViewDelegate getDelegate() {
@@ -222,6 +228,11 @@ public class ATableView extends ListView {
 	}
 	public void setDelegate(ATableViewDelegate delegate) {
 		mDelegate = delegate;
+		mRowHeightCache.clear();
+	}
+	
+	public ATableViewRowHeightCache getRowHeightCache() {
+		return mRowHeightCache;
 	}
 	
 	public ATableViewAdapter getInternalAdapter() {
@@ -249,6 +260,54 @@ public class ATableView extends ListView {
 		clearSelectedRows();
 	}
 	
+	// JG addition - rebind the visible rows at the specified index paths, without reloading the whole table.
+	// used when the content of rows has changed but no rows have been added, removed or moved.
+	public void reloadRowsAtIndexPaths(List<NSIndexPath> indexPaths) {
+		ATableViewAdapter adapter = getInternalAdapter();
+		if (adapter == null) {
+			reloadData(); return;
+		}
+		
+		adapter.notifyRowsChanged(indexPaths);
+		int firstPosition = getFirstVisiblePosition();
+		for (NSIndexPath indexPath : indexPaths) {
+			int childIndex = adapter.getPosition(indexPath) - firstPosition;
+			if (childIndex < 0 || childIndex >= getChildCount()) {
+				continue;
+			}
+			
+			// if the cell can't be reused for the row's new content then fall back to a full rebind.
+			View child = getChildAt(childIndex);
+			if (adapter.getView(firstPosition + childIndex, child, this) != child) {
+				adapter.notifyDataSetChanged(); return;
+			}
+		}
+	}
+	
+	// JG addition - apply changes to the table's rows using the current adapter, keeping the anchor row
+	// at the same position on screen. unlike reloadData(), visible row heights and scroll position are kept.
+	public void reloadDataKeepingPosition(NSIndexPath anchorIndexPath, int anchorTop) {
+		reloadDataKeepingPosition(anchorIndexPath, anchorTop, null);
+	}
+	
+	// JG addition - as above, rows the mapping reports as unchanged keep their cached heights.
+	public void reloadDataKeepingPosition(NSIndexPath anchorIndexPath, int anchorTop, ATableViewRowMapping rowMapping) {
+		ATableViewAdapter adapter = getInternalAdapter();
+		if (adapter == null) {
+			reloadData(); return;
+		}
+		
+		adapter.notifyDataSetChanged(rowMapping);
+		setupFooterView(adapter.getLastRowHeight());
+		clearSelectedRows();
+		if (anchorIndexPath != null) {
+			int position = adapter.getPosition(anchorIndexPath);
+			if (position >= 0) {
+				setSelectionFromTop(position, anchorTop);
+			}
+		}
+	}
+	
 	@Override
 	protected void onAttachedToWindow() {
 		ATableViewAdapter adapter = new ATableViewAdapter(this);
@@ -27,6 +27,8 @@ public class ATableViewCell extends FrameLayout implements Checkable {
 	private boolean mIsChecked;
 	
 	private String mReuseIdentifier;
+	// JG addition - the cell's style, used to pool cells for reuse between tables.
+	private ATableViewCellStyle mStyle;
 	private TextView mTextLabel;
 	private TextView mDetailTextLabel;
 	private ImageView mImageView;
@@ -53,6 +55,7 @@ public class ATableViewCell extends FrameLayout implements Checkable {
 		LayoutInflater.from(context).inflate(getLayout(style), this, true);
 		
 		mReuseIdentifier = reuseIdentifier;
+		mStyle = style;
 		mTextLabel = (TextView)findViewById(R.id.textLabel);
 		mDetailTextLabel = (TextView)findViewById(R.id.detailTextLabel);
 		mImageView = (ImageView)findViewById(R.id.imageView);
@@ -76,6 +79,11 @@ public class ATableViewCell extends FrameLayout implements Checkable {
 		mBackgroundColor = resId;
 	}
 	
+	// JG addition
+	public ATableViewCellStyle getStyle() {
+		return mStyle;
+	}
+	
 	public String getReuseIdentifier() {
 		return mReuseIdentifier;
 	}
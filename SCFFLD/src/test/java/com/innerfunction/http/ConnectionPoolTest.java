@@ -0,0 +1,148 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that released connections are reused by later requests.
+ * Sends requests to a local keep-alive server and counts the sockets it accepts.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ConnectionPoolTest {
+
+    /** The response body sent by the test server. */
+    static final String ResponseBody = "Hello pool";
+
+    /** A minimal HTTP/1.1 server which keeps connections alive between requests. */
+    static class KeepAliveServer implements Runnable {
+
+        final ServerSocket serverSocket;
+        /** The number of sockets accepted. */
+        final AtomicInteger acceptedCount = new AtomicInteger();
+        /** The number of requests served. */
+        final AtomicInteger requestCount = new AtomicInteger();
+
+        KeepAliveServer() throws IOException {
+            serverSocket = new ServerSocket( 0, 50, InetAddress.getByName("127.0.0.1") );
+        }
+
+        String getURL() {
+            return String.format("http://127.0.0.1:%d/", serverSocket.getLocalPort() );
+        }
+
+        void start() {
+            Thread thread = new Thread( this, "KeepAliveServer");
+            thread.setDaemon( true );
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while( true ) {
+                    final Socket socket = serverSocket.accept();
+                    acceptedCount.incrementAndGet();
+                    Thread thread = new Thread( new Runnable() {
+                        @Override
+                        public void run() {
+                            serve( socket );
+                        }
+                    });
+                    thread.setDaemon( true );
+                    thread.start();
+                }
+            }
+            catch(IOException e) {
+                // Server socket closed.
+            }
+        }
+
+        /** Serve requests on a socket until the client closes it. */
+        void serve(Socket socket) {
+            try {
+                BufferedReader in = new BufferedReader( new InputStreamReader( socket.getInputStream(), "US-ASCII") );
+                OutputStream out = socket.getOutputStream();
+                byte[] body = ResponseBody.getBytes("US-ASCII");
+                while( true ) {
+                    String line = in.readLine();
+                    if( line == null ) {
+                        break;
+                    }
+                    // Skip the request headers.
+                    while( line != null && line.length() > 0 ) {
+                        line = in.readLine();
+                    }
+                    requestCount.incrementAndGet();
+                    String headers = String.format("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: %d\r\n\r\n", body.length );
+                    out.write( headers.getBytes("US-ASCII") );
+                    out.write( body );
+                    out.flush();
+                }
+                socket.close();
+            }
+            catch(IOException e) {
+                // Client disconnected.
+            }
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+
+    private KeepAliveServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new KeepAliveServer();
+        server.start();
+        ConnectionPool.resetMetrics();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testReleasedConnectionIsReused() throws IOException {
+        Response first = new DataRequest( server.getURL(), "GET").connect( null );
+        assertEquals( 200, first.getStatusCode() );
+        assertEquals( ResponseBody, new String( first.getRawBody(), "US-ASCII") );
+        Response second = new DataRequest( server.getURL(), "GET").connect( null );
+        assertEquals( 200, second.getStatusCode() );
+        assertEquals( 2, server.requestCount.get() );
+        // Both requests were sent over the same socket.
+        assertEquals( 1, server.acceptedCount.get() );
+        assertEquals( 2, ConnectionPool.getOpenedCount() );
+        assertEquals( 2, ConnectionPool.getReleasedCount() );
+        assertEquals( 0, ConnectionPool.getDisconnectedCount() );
+        assertEquals( 1f, ConnectionPool.getReleaseRate(), 0f );
+    }
+}
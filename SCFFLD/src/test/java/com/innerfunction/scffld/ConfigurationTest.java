@@ -0,0 +1,113 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+import com.innerfunction.uri.StandardURIHandler;
+import com.innerfunction.util.Assets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.innerfunction.util.DataLiterals.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for configuration parameters and mixins.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ConfigurationTest {
+
+    private Container container;
+
+    @Before
+    public void setUp() {
+        TestContext context = new TestContext();
+        container = new Container( context, new StandardURIHandler( context, new Assets( context ) ) );
+    }
+
+    @Test
+    public void testParametersAreInheritedByChildConfigurations() {
+        Configuration configuration = container.makeConfiguration( m(
+            kv("$p",    "parent"),
+            kv("child", m(
+                kv("$q",    "child"),
+                kv("p",     "$p"),
+                kv("q",     "$q")
+            ))
+        ));
+        Configuration child = configuration.getValueAsConfiguration("child");
+        assertEquals("parent", child.getValueAsString("p") );
+        assertEquals("child", child.getValueAsString("q") );
+    }
+
+    @Test
+    public void testParametersDontLeakIntoParentOrSiblings() {
+        Configuration configuration = container.makeConfiguration( m(
+            kv("q",     "$q"),
+            kv("child1", m(
+                kv("$q",    "child1")
+            )),
+            kv("child2", m(
+                kv("q",     "$q")
+            ))
+        ));
+        Configuration child1 = configuration.getValueAsConfiguration("child1");
+        assertNotNull( child1 );
+        assertNotEquals("child1", configuration.getValueAsString("q") );
+        Configuration child2 = configuration.getValueAsConfiguration("child2");
+        assertNotEquals("child1", child2.getValueAsString("q") );
+    }
+
+    @Test
+    public void testFlattenAppliesEveryMixin() {
+        Configuration configuration = container.makeConfiguration( m(
+            kv("a",         "base"),
+            kv("-config",   m( kv("b", "config") ) ),
+            kv("-mixin",    m( kv("c", "mixin") ) ),
+            kv("-mixins",   l(
+                m( kv("d", "mixin0") ),
+                m( kv("e", "mixin1"), kv("a", "mixin1") )
+            ))
+        ));
+        Configuration flattened = configuration.flatten();
+        assertEquals("mixin1", flattened.getValueAsString("a") );
+        assertEquals("config", flattened.getValueAsString("b") );
+        assertEquals("mixin", flattened.getValueAsString("c") );
+        assertEquals("mixin0", flattened.getValueAsString("d") );
+        assertEquals("mixin1", flattened.getValueAsString("e") );
+    }
+
+    @Test
+    public void testFlattenAppliesMixinsInOrder() {
+        Configuration configuration = container.makeConfiguration( m(
+            kv("-mixins",   l(
+                m( kv("a", "mixin0") ),
+                m( kv("a", "mixin1") )
+            ))
+        ));
+        assertEquals("mixin1", configuration.flatten().getValueAsString("a") );
+    }
+
+    @Test
+    public void testFlattenSkipsUnresolvedMixins() {
+        Configuration configuration = container.makeConfiguration( m(
+            kv("-mixins",   l(
+                "#missing",
+                m( kv("a", "mixin1") )
+            ))
+        ));
+        assertEquals("mixin1", configuration.flatten().getValueAsString("a") );
+    }
+}
@@ -0,0 +1,132 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.scffld;
+
+import com.innerfunction.scffld.app.NamedScheme;
+import com.innerfunction.uri.StandardURIHandler;
+import com.innerfunction.util.Assets;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.innerfunction.util.DataLiterals.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for building named objects on multiple threads.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class ContainerTest {
+
+    /** The number of times to repeat the concurrent build, to vary the thread interleaving. */
+    static final int ConcurrentBuildRepeatCount = 50;
+
+    /**
+     * A configurable object with a reference to a peer.
+     * Objects named "X" and "Y" wait for each other to start configuring, so that the two named
+     * objects are guaranteed to be built concurrently.
+     */
+    public static class Node implements IOCConfigurationAware {
+
+        static CountDownLatch xStarted;
+        static CyclicBarrier buildsStarted;
+
+        private String name;
+        private Node peer;
+        AtomicInteger afterConfigureCount = new AtomicInteger();
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setPeer(Node peer) {
+            this.peer = peer;
+        }
+
+        public Node getPeer() {
+            return peer;
+        }
+
+        @Override
+        public void beforeIOCConfigure(Configuration configuration) {
+            String name = configuration.getValueAsString("name");
+            if( "X".equals( name ) ) {
+                xStarted.countDown();
+            }
+            try {
+                buildsStarted.await( 5, TimeUnit.SECONDS );
+            }
+            catch(Exception e) {
+                throw new RuntimeException( e );
+            }
+        }
+
+        @Override
+        public void afterIOCConfigure(Configuration configuration) {
+            afterConfigureCount.incrementAndGet();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testMutuallyReferencingNamedsBuiltOnTwoThreads() throws Exception {
+        for( int i = 0; i < ConcurrentBuildRepeatCount; i++ ) {
+            buildMutuallyReferencingNameds();
+        }
+    }
+
+    private void buildMutuallyReferencingNameds() throws Exception {
+        Node.xStarted = new CountDownLatch( 1 );
+        Node.buildsStarted = new CyclicBarrier( 2 );
+        TestContext context = new TestContext();
+        StandardURIHandler uriHandler = new StandardURIHandler( context, new Assets( context ) );
+        final Container container = new Container( context, uriHandler );
+        uriHandler.addHandlerForScheme("named", new NamedScheme( container ) );
+        final Configuration configuration = container.makeConfiguration( m(
+            kv("X", m(
+                kv("-class",    Node.class.getName() ),
+                kv("name",      "X"),
+                kv("peer",      "@named:Y")
+            )),
+            kv("Y", m(
+                kv("-class",    Node.class.getName() ),
+                kv("name",      "Y"),
+                kv("peer",      "@named:X")
+            ))
+        ));
+        // Build X on one thread, and Y on another once X's build has started.
+        container.setPriorityNames("X");
+        Thread xThread = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                container.configureWith( configuration );
+            }
+        });
+        xThread.start();
+        assertTrue( Node.xStarted.await( 5, TimeUnit.SECONDS ) );
+        Node y = (Node)container.getNamed("Y");
+        xThread.join();
+        Node x = (Node)container.getNamed("X");
+        assertNotNull( x );
+        assertNotNull( y );
+        assertSame( y, x.getPeer() );
+        assertSame( x, y.getPeer() );
+        assertEquals( 1, x.afterConfigureCount.get() );
+        assertEquals( 1, y.afterConfigureCount.get() );
+    }
+}
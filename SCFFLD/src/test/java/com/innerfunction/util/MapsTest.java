@@ -0,0 +1,91 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.innerfunction.util.DataLiterals.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the extend and mixin map functions.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class MapsTest {
+
+    @Test
+    public void testExtendShadowsOriginalEntries() {
+        Map<String,Object> original = m( kv("a", 1 ), kv("b", 2 ) );
+        Map<String,Object> extended = Maps.extend( original, "b", (Object)3 );
+        assertEquals( 3, extended.get("b") );
+        assertEquals( 2, original.get("b") );
+        // The shadowed entry isn't visible through the entry set.
+        assertEquals( 2, extended.entrySet().size() );
+        for( Map.Entry<String,Object> entry : extended.entrySet() ) {
+            assertEquals( extended.get( entry.getKey() ), entry.getValue() );
+        }
+    }
+
+    @Test
+    public void testExtendSizeCountsBothMaps() {
+        Map<String,Object> original = m( kv("a", 1 ), kv("b", 2 ) );
+        Map<String,Object> extended = Maps.extend( original );
+        assertEquals( 2, extended.size() );
+        assertFalse( extended.isEmpty() );
+        extended.put("b", 3 );
+        assertEquals( 2, extended.size() );
+        extended.put("c", 4 );
+        assertEquals( 3, extended.size() );
+        assertEquals( extended.keySet().size(), extended.size() );
+        assertTrue( Maps.extend( new HashMap<String,Object>() ).isEmpty() );
+    }
+
+    @Test
+    public void testExtendWithoutOverridesCanBeCopied() {
+        // HashMap.putAll() and the copy constructor skip maps reporting a size of zero.
+        Map<String,Object> extended = Maps.extend( m( kv("a", 1 ) ) );
+        Map<String,Object> copy = new HashMap<>();
+        copy.putAll( extended );
+        assertEquals( 1, copy.get("a") );
+        assertEquals( 1, new HashMap<>( extended ).get("a") );
+    }
+
+    @Test
+    public void testMixinOverwritesFirstMap() {
+        Map<String,Object> map0 = m( kv("a", 1 ), kv("b", 2 ) );
+        Map<String,Object> map1 = m( kv("b", 3 ), kv("c", 4 ) );
+        Map<String,Object> result = Maps.mixin( map0, map1 );
+        assertEquals( 1, result.get("a") );
+        assertEquals( 3, result.get("b") );
+        assertEquals( 4, result.get("c") );
+        assertEquals( 3, result.size() );
+    }
+
+    @Test
+    public void testMixinIsACopy() {
+        Map<String,Object> map0 = m( kv("a", 1 ), kv("b", 2 ) );
+        Map<String,Object> result = Maps.mixin( map0, m( kv("c", 3 ) ) );
+        // Removing from the result leaves the source map unchanged.
+        result.remove("a");
+        assertNull( result.get("a") );
+        assertEquals( 1, map0.get("a") );
+        // Later changes to the source map aren't seen by the result.
+        map0.put("d", 4 );
+        assertNull( result.get("d") );
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+/**
+ * An Android context for running the SCFFLD core on a plain JVM.
+ * The context has no resources, assets or shared preferences; files are stored under a temporary
+ * directory. Must be run with the Android shims ahead of android.jar on the classpath.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class BenchmarkContext extends ContextWrapper {
+
+    static final String PackageName = "com.innerfunction.benchmarks";
+
+    private ApplicationInfo applicationInfo;
+    private File filesDir;
+    private File cacheDir;
+
+    public BenchmarkContext() {
+        super( null );
+        File rootDir = new File( System.getProperty("java.io.tmpdir"), PackageName );
+        this.filesDir = new File( rootDir, "files" );
+        this.cacheDir = new File( rootDir, "cache" );
+        filesDir.mkdirs();
+        cacheDir.mkdirs();
+        this.applicationInfo = new ApplicationInfo();
+        applicationInfo.packageName = PackageName;
+        applicationInfo.processName = PackageName;
+        applicationInfo.dataDir = rootDir.getAbsolutePath();
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public String getPackageName() {
+        return PackageName;
+    }
+
+    @Override
+    public ApplicationInfo getApplicationInfo() {
+        return applicationInfo;
+    }
+
+    @Override
+    public Resources getResources() {
+        return null;
+    }
+
+    @Override
+    public AssetManager getAssets() {
+        return null;
+    }
+
+    @Override
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+        return null;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return filesDir;
+    }
+
+    @Override
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    @Override
+    public File getExternalFilesDir(String type) {
+        return null;
+    }
+
+    @Override
+    public File getExternalCacheDir() {
+        return null;
+    }
+
+}
@@ -0,0 +1,72 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.uri.CompoundURI;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for compound URI parsing and serialization.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompoundURIBenchmark {
+
+    /** A URI typical of configuration file references. */
+    static final String SimpleURI = "app:/SCFFLD/nameds/home.json";
+    /** A URI with a fragment, and with literal and nested URI parameters. */
+    static final String ParameterizedURI = "app:/SCFFLD/patterns/list.json#items+title=Home+data@[local:feed+key@s:latest]+style@s:dark";
+
+    private CompoundURI compoundURI;
+
+    @Setup
+    public void setup() throws URISyntaxException {
+        compoundURI = CompoundURI.parse( ParameterizedURI );
+    }
+
+    @Benchmark
+    public CompoundURI parseSimple() throws URISyntaxException {
+        return CompoundURI.parse( SimpleURI );
+    }
+
+    @Benchmark
+    public CompoundURI parseParameterized() throws URISyntaxException {
+        return CompoundURI.parse( ParameterizedURI );
+    }
+
+    @Benchmark
+    public String canonicalForm() {
+        // Copy the URI first, so that the cached canonical form isn't used.
+        return compoundURI.copyOf().canonicalForm();
+    }
+}
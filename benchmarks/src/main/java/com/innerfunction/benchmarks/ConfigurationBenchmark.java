@@ -0,0 +1,161 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.Configuration;
+import com.innerfunction.uri.StandardURIHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.innerfunction.util.DataLiterals.*;
+
+/**
+ * Benchmarks for reading configuration values and for normalizing and merging configurations.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBenchmark {
+
+    /** A configuration extending a chain of other configurations. */
+    @State(Scope.Benchmark)
+    public static class ExtendsChain {
+
+        /** The number of configurations in the -extends chain. */
+        @Param({ "1", "4", "16" })
+        public int depth;
+
+        Configuration configuration;
+
+        @Setup
+        public void setup() {
+            BenchmarkContext context = new BenchmarkContext();
+            Map<String,Object> data = new HashMap<>();
+            // Build a chain of configurations, each extending the previous one.
+            for( int i = 0; i < depth; i++ ) {
+                Map<String,Object> level = new HashMap<>();
+                if( i > 0 ) {
+                    level.put("-extends", "#level"+(i - 1) );
+                }
+                for( int j = 0; j < 8; j++ ) {
+                    level.put( String.format("property%d", j ), String.format("level%d-value%d", i, j ) );
+                }
+                data.put("level"+i, level );
+            }
+            Configuration root = new Configuration( data, StandardURIHandler.getInstance( context ), context );
+            configuration = new Configuration( m( kv("-extends", "#level"+(depth - 1) ) ), root );
+        }
+    }
+
+    private Configuration configuration;
+    private Configuration mixinBase;
+    private Configuration mixin;
+
+    @Setup
+    public void setup() {
+        BenchmarkContext context = new BenchmarkContext();
+        Map<String,Object> data = m(
+            kv("$title",        "Parameter title"),
+            kv("title",         "Home"),
+            kv("count",         42),
+            kv("countString",   "42"),
+            kv("parameterRef",  "$title"),
+            kv("pathRef",       "#title"),
+            kv("template",      "?{$title} page"),
+            kv("uriRef",        "@s:Hello%20world"),
+            kv("nested", m(
+                kv("color",     "red"),
+                kv("size",      12)
+            ))
+        );
+        Map<String,Object> baseData = new HashMap<>();
+        Map<String,Object> mixinData = new HashMap<>();
+        for( int j = 0; j < 8; j++ ) {
+            baseData.put( String.format("property%d", j ), String.format("base-value%d", j ) );
+            mixinData.put( String.format("property%d", j * 2 ), String.format("mixin-value%d", j ) );
+        }
+        configuration = new Configuration( data, StandardURIHandler.getInstance( context ), context );
+        mixinBase = new Configuration( baseData, configuration );
+        mixin = new Configuration( mixinData, configuration );
+    }
+
+    @Benchmark
+    public String getValueAsString() {
+        return configuration.getValueAsString("title");
+    }
+
+    @Benchmark
+    public Number getValueAsNumber() {
+        return configuration.getValueAsNumber("countString");
+    }
+
+    @Benchmark
+    public String getNestedValueAsString() {
+        return configuration.getValueAsString("nested.color");
+    }
+
+    @Benchmark
+    public String getParameterReference() {
+        return configuration.getValueAsString("parameterRef");
+    }
+
+    @Benchmark
+    public String getPathReference() {
+        return configuration.getValueAsString("pathRef");
+    }
+
+    @Benchmark
+    public String getTemplateValue() {
+        return configuration.getValueAsString("template");
+    }
+
+    @Benchmark
+    public String getURIReference() {
+        return configuration.getValueAsString("uriRef");
+    }
+
+    @Benchmark
+    public Configuration getValueAsConfiguration() {
+        return configuration.getValueAsConfiguration("nested");
+    }
+
+    @Benchmark
+    public Configuration normalize(ExtendsChain chain) {
+        return chain.configuration.normalize();
+    }
+
+    @Benchmark
+    public Configuration mixinConfiguration() {
+        return mixinBase.mixinConfiguration( mixin );
+    }
+}
@@ -0,0 +1,67 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.Container;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for container startup over large synthetic configurations.
+ * Measures warm startup; use {@link StartupHarness} to measure cold startup.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ContainerStartupBenchmark {
+
+    @Param({ "500", "2000", "5000" })
+    public int namedCount;
+
+    @Param({ "8" })
+    public int extendsDepth;
+
+    private Map<String,Object> data;
+
+    @Setup
+    public void setup() {
+        SyntheticConfiguration generator = new SyntheticConfiguration();
+        generator.setNamedCount( namedCount );
+        generator.setExtendsDepth( extendsDepth );
+        data = generator.generate();
+    }
+
+    @Benchmark
+    public Container configureContainer() {
+        return StartupHarness.startContainer( data, false );
+    }
+}
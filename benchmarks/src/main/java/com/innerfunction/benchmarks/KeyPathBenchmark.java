@@ -0,0 +1,87 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.util.KeyPath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.innerfunction.util.DataLiterals.*;
+
+/**
+ * Benchmarks for key path resolution over maps, lists and object properties.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyPathBenchmark {
+
+    private Object data;
+
+    @Setup
+    public void setup() {
+        SyntheticTypes.Item item = new SyntheticTypes.Item();
+        item.setTitle("Item");
+        data = m(
+            kv("name", "root"),
+            kv("app", m(
+                kv("settings", m(
+                    kv("theme", m(
+                        kv("colors", m(
+                            kv("primary", "#336699")
+                        ))
+                    ))
+                ))
+            )),
+            kv("items", l( "zero", "one", m( kv("title", "two") ) )),
+            kv("item", item )
+        );
+    }
+
+    @Benchmark
+    public Object resolveShallow() {
+        return KeyPath.resolve("name", data );
+    }
+
+    @Benchmark
+    public Object resolveDeep() {
+        return KeyPath.resolve("app.settings.theme.colors.primary", data );
+    }
+
+    @Benchmark
+    public Object resolveListIndex() {
+        return KeyPath.resolve("items.2.title", data );
+    }
+
+    @Benchmark
+    public Object resolveObjectProperty() {
+        return KeyPath.resolve("item.title", data );
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.ListBackedMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the list backed map used when configuring list properties.
+ * List items are configured through the map interface, using the item index as the key.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBackedMapBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int size;
+
+    private String[] keys;
+    private ListBackedMap map;
+
+    @Setup
+    public void setup() {
+        keys = new String[size];
+        List<Object> list = new ArrayList<>( size );
+        for( int i = 0; i < size; i++ ) {
+            keys[i] = Integer.toString( i );
+            list.add( "item" + i );
+        }
+        map = new ListBackedMap( list );
+    }
+
+    @Benchmark
+    public ListBackedMap putAll() {
+        ListBackedMap result = new ListBackedMap();
+        for( String key : keys ) {
+            result.put( key, key );
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        for( String key : keys ) {
+            blackhole.consume( map.get( key ) );
+        }
+    }
+
+    @Benchmark
+    public void iterateEntries(Blackhole blackhole) {
+        for( Map.Entry<String,Object> entry : map.entrySet() ) {
+            blackhole.consume( entry.getValue() );
+        }
+    }
+
+    @Benchmark
+    public Object keySet() {
+        return map.keySet();
+    }
+}
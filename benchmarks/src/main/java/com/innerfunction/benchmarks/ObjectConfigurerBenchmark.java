@@ -0,0 +1,129 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.Configuration;
+import com.innerfunction.scffld.Container;
+import com.innerfunction.scffld.ObjectConfigurer;
+import com.innerfunction.uri.StandardURIHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.innerfunction.util.DataLiterals.*;
+
+/**
+ * Benchmarks for object configuration over the synthetic types.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectConfigurerBenchmark {
+
+    private Container container;
+    private ObjectConfigurer configurer;
+    private Configuration itemConfiguration;
+    private Configuration groupConfiguration;
+    private Configuration groupBuildConfiguration;
+
+    @Setup
+    public void setup() {
+        BenchmarkContext context = new BenchmarkContext();
+        container = new Container( context, StandardURIHandler.getInstance( context ) );
+        configurer = new ObjectConfigurer( container );
+        itemConfiguration = container.makeConfiguration( itemData( 0 ) );
+        groupConfiguration = container.makeConfiguration( groupData() );
+        Map<String,Object> groupBuildData = groupData();
+        groupBuildData.put("-class", SyntheticTypes.GroupClassName );
+        groupBuildConfiguration = container.makeConfiguration( groupBuildData );
+    }
+
+    /** Configure an object with standard type properties only. */
+    @Benchmark
+    public Object configureItem() {
+        SyntheticTypes.Item item = new SyntheticTypes.Item();
+        configurer.configure( item, null, itemConfiguration, "item");
+        return item;
+    }
+
+    /** Configure an object with object, list and map properties. */
+    @Benchmark
+    public Object configureGroup() {
+        SyntheticTypes.Group group = new SyntheticTypes.Group();
+        configurer.configure( group, null, groupConfiguration, "group");
+        return group;
+    }
+
+    /** Instantiate and configure an object from a configuration with a -class hint. */
+    @Benchmark
+    public Object buildGroup() {
+        return container.buildObjectWithConfiguration( groupBuildConfiguration, "group", false );
+    }
+
+    static Map<String,Object> itemData(int position) {
+        return m(
+            kv("title",         "Item "+position ),
+            kv("description",   "A synthetic item used for benchmarking object configuration"),
+            kv("position",      position ),
+            kv("weight",        position * 1.5 ),
+            kv("visible",       true ),
+            kv("modified",      "2017-10-18T12:30:00Z")
+        );
+    }
+
+    static Map<String,Object> groupData() {
+        // List items rely on type inference from the property's generic type; map items
+        // specify their class.
+        List<Object> items = new ArrayList<>();
+        for( int i = 0; i < 8; i++ ) {
+            items.add( itemData( i ) );
+        }
+        Map<String,Object> itemsByName = m();
+        for( int i = 0; i < 4; i++ ) {
+            Map<String,Object> item = itemData( i );
+            item.put("-class", SyntheticTypes.ItemClassName );
+            itemsByName.put("item"+i, item );
+        }
+        Map<String,Object> delegate = itemData( 99 );
+        delegate.put("-class", SyntheticTypes.ItemClassName );
+        return m(
+            kv("name",          "Group"),
+            kv("capacity",      "250"),
+            kv("header",        itemData( -1 ) ),
+            kv("items",         items ),
+            kv("itemsByName",   itemsByName ),
+            kv("tags",          l("one", "two", "three", "four") ),
+            kv("settings",      m( kv("enabled", true ), kv("limit", 10 ), kv("mode", "fast") ) ),
+            kv("delegate",      delegate )
+        );
+    }
+}
@@ -0,0 +1,234 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.Configuration;
+import com.innerfunction.scffld.Container;
+import com.innerfunction.scffld.app.NamedScheme;
+import com.innerfunction.uri.StandardURIHandler;
+import com.innerfunction.util.Assets;
+
+import org.json.simple.JSONValue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A startup regression harness.
+ * Generates a large synthetic configuration and measures the time taken to configure a container
+ * with it, together with the memory allocated and the number of objects and properties configured.
+ * The first run measures a cold start, i.e. with no class metadata or configuration plans cached;
+ * subsequent runs measure a warm start.
+ *
+ * Run with ./gradlew :benchmarks:startupHarness, passing options with -Pharness.args, e.g.
+ * -Pharness.args="-nameds 5000 -depth 16". Options are:
+ * <ul>
+ * <li>-nameds n: The number of named objects to generate;</li>
+ * <li>-depth n: The length of the template -extends chains;</li>
+ * <li>-mixins n: The number of shared mixins;</li>
+ * <li>-seed n: The random seed used to generate the configuration;</li>
+ * <li>-runs n: The number of warm runs;</li>
+ * <li>-warmup: Enable the container's background startup warm-up;</li>
+ * <li>-write file: Write the generated configuration to a JSON file, e.g. for use on a device.</li>
+ * </ul>
+ * Allocations are measured on the configuring thread only, so allocations made by the background
+ * startup warm-up aren't included.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class StartupHarness {
+
+    /** The default number of warm runs. */
+    static final int DefaultRunCount = 10;
+
+    /** The result of a single startup run. */
+    static class Run {
+        /** The time taken to configure the container, in nanoseconds. */
+        long time;
+        /** The number of bytes allocated; or -1 if allocations can't be measured. */
+        long allocatedBytes;
+        /** The number of named objects built. */
+        int namedCount;
+        /** The number of objects configured. */
+        int objectCount;
+        /** The number of properties configured. */
+        int propertyCount;
+    }
+
+    private SyntheticConfiguration generator = new SyntheticConfiguration();
+    private int runCount = DefaultRunCount;
+    private boolean startupWarmUpEnabled = false;
+    private File outputFile;
+
+    public static void main(String[] args) throws IOException {
+        StartupHarness harness = new StartupHarness();
+        if( !harness.parseArgs( args ) ) {
+            System.err.println("Usage: StartupHarness [-nameds n] [-depth n] [-mixins n] [-seed n] [-runs n] [-warmup] [-write file]");
+            System.exit( 1 );
+        }
+        harness.run();
+    }
+
+    private boolean parseArgs(String[] args) {
+        try {
+            for( int i = 0; i < args.length; i++ ) {
+                String arg = args[i];
+                switch( arg ) {
+                case "-nameds":
+                    generator.setNamedCount( Integer.parseInt( args[++i] ) );
+                    break;
+                case "-depth":
+                    generator.setExtendsDepth( Integer.parseInt( args[++i] ) );
+                    break;
+                case "-mixins":
+                    generator.setMixinCount( Integer.parseInt( args[++i] ) );
+                    break;
+                case "-seed":
+                    generator.setSeed( Long.parseLong( args[++i] ) );
+                    break;
+                case "-runs":
+                    runCount = Math.max( 1, Integer.parseInt( args[++i] ) );
+                    break;
+                case "-warmup":
+                    startupWarmUpEnabled = true;
+                    break;
+                case "-write":
+                    outputFile = new File( args[++i] );
+                    break;
+                default:
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch(NumberFormatException e) {
+            return false;
+        }
+        catch(ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    private void run() throws IOException {
+        Map<String,Object> data = generator.generate();
+        if( outputFile != null ) {
+            Writer writer = new FileWriter( outputFile );
+            try {
+                JSONValue.writeJSONString( data, writer );
+            }
+            finally {
+                writer.close();
+            }
+            System.out.printf("Configuration written to %s\n", outputFile );
+        }
+        System.out.printf("Configuration: %d nameds (%d items, %d groups), extends depth %d, %d mixins, seed %d\n",
+            generator.getNamedCount(), generator.getItemCount(), generator.getGroupCount(),
+            generator.getExtendsDepth(), generator.getMixinCount(), generator.getSeed() );
+        System.out.printf("Startup warm-up %s; allocation measurement %s\n",
+            startupWarmUpEnabled ? "enabled" : "disabled",
+            isAllocationMeasurable() ? "available" : "unavailable");
+        System.out.printf("%-6s %12s %16s %8s %8s %10s\n", "Run", "Time (ms)", "Allocated (KB)", "Nameds", "Objects", "Properties");
+        Run cold = runStartup( data, startupWarmUpEnabled );
+        printRun("cold", cold );
+        long[] times = new long[runCount];
+        long[] allocations = new long[runCount];
+        for( int i = 0; i < runCount; i++ ) {
+            Run run = runStartup( data, startupWarmUpEnabled );
+            printRun( Integer.toString( i + 1 ), run );
+            times[i] = run.time;
+            allocations[i] = run.allocatedBytes;
+        }
+        Arrays.sort( times );
+        Arrays.sort( allocations );
+        System.out.printf("Cold: %.2f ms; warm median: %.2f ms, min: %.2f ms, max: %.2f ms\n",
+            millis( cold.time ), millis( times[runCount / 2] ), millis( times[0] ), millis( times[runCount - 1] ) );
+        if( cold.allocatedBytes >= 0 ) {
+            System.out.printf("Allocated cold: %d KB; warm median: %d KB\n",
+                cold.allocatedBytes / 1024, allocations[runCount / 2] / 1024 );
+        }
+    }
+
+    private void printRun(String label, Run run) {
+        System.out.printf("%-6s %12.2f %16s %8d %8d %10d\n", label, millis( run.time ),
+            run.allocatedBytes < 0 ? "-" : Long.toString( run.allocatedBytes / 1024 ),
+            run.namedCount, run.objectCount, run.propertyCount );
+    }
+
+    /** Configure a new container with the configuration data, and measure the result. */
+    static Run runStartup(Map<String,Object> data, boolean startupWarmUpEnabled) {
+        // Settle the heap so that collections from previous runs don't affect the measurement.
+        System.gc();
+        Run run = new Run();
+        long startAllocated = getAllocatedBytes();
+        long start = System.nanoTime();
+        Container container = startContainer( data, startupWarmUpEnabled );
+        run.time = System.nanoTime() - start;
+        long endAllocated = getAllocatedBytes();
+        run.allocatedBytes = startAllocated < 0 ? -1 : endAllocated - startAllocated;
+        run.objectCount = container.getConfiguredObjectCount();
+        run.propertyCount = container.getConfiguredPropertyCount();
+        Map<?,?> nameds = (Map<?,?>)data.get("nameds");
+        for( Object name : nameds.keySet() ) {
+            if( container.getNamed( (String)name ) != null ) {
+                run.namedCount++;
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Create a container and configure it with the configuration data.
+     * Sets up the container in the same way as an app container: type mappings are read from the
+     * "types" section, the "nameds" section is merged over the top-level configuration, and the
+     * named: URI scheme is available for references between named objects.
+     */
+    static Container startContainer(Map<String,Object> data, boolean startupWarmUpEnabled) {
+        BenchmarkContext context = new BenchmarkContext();
+        StandardURIHandler uriHandler = new StandardURIHandler( context, new Assets( context ) );
+        Container container = new Container( context, uriHandler );
+        container.setStartupWarmUpEnabled( startupWarmUpEnabled );
+        uriHandler.addHandlerForScheme("named", new NamedScheme( container ) );
+        Configuration configuration = container.makeConfiguration( data );
+        container.addTypes( configuration.getValueAsConfiguration("types") );
+        Configuration namedsConfig = configuration.getValueAsConfiguration("nameds");
+        configuration = configuration.configurationWithKeysExcluded("nameds");
+        container.configureWith( configuration.mixinConfiguration( namedsConfig ) );
+        return container;
+    }
+
+    static boolean isAllocationMeasurable() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported();
+    }
+
+    /** Get the number of bytes allocated by the current thread; or -1 if unavailable. */
+    static long getAllocatedBytes() {
+        if( !isAllocationMeasurable() ) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes( Thread.currentThread().getId() );
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
@@ -0,0 +1,80 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.util.StringTemplate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.innerfunction.util.DataLiterals.*;
+
+/**
+ * Benchmarks for string template parsing and rendering.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringTemplateBenchmark {
+
+    /** A template with plain, nested and URI encoded placeholders, and an escaped placeholder. */
+    static final String Template = "{title} - page {page.number} of {page.count}: {%query} {{literal}}";
+
+    private Map<String,Object> context;
+    private StringTemplate template;
+
+    @Setup
+    public void setup() {
+        context = m(
+            kv("title", "Search results"),
+            kv("page", m(
+                kv("number", 2),
+                kv("count", 10)
+            )),
+            kv("query", "large tables & indexes")
+        );
+        template = StringTemplate.templateWithString( Template );
+    }
+
+    @Benchmark
+    public String parseAndRender() {
+        return StringTemplate.render( Template, context );
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render( context );
+    }
+
+    @Benchmark
+    public String renderURIEncoded() {
+        return template.render( context, true );
+    }
+}
@@ -0,0 +1,251 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.innerfunction.util.DataLiterals.*;
+
+/**
+ * A generator of large synthetic app configurations.
+ * Generates configurations with the same structure as an app container configuration, i.e. with
+ * "types" and "nameds" sections, over the synthetic types. The named objects make heavy use of
+ * the configuration features which dominate startup time in production apps:
+ * <ul>
+ * <li>Deep -extends chains of shared templates;</li>
+ * <li>-mixins of shared property sets;</li>
+ * <li>@named: references between named objects;</li>
+ * <li># path references into the shared templates;</li>
+ * <li>$ parameters, used directly and within ? string templates.</li>
+ * </ul>
+ * Shared templates are placed under a top-level "templates" key. Note that # references are
+ * resolved against the parent configuration, so only the top-level properties of named objects
+ * can reference the templates; nested objects use $ parameters inherited from their parent.
+ * Generation is deterministic for a given set of options and seed.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class SyntheticConfiguration {
+
+    /** The default number of named objects. */
+    public static final int DefaultNamedCount = 2000;
+    /** The default length of the template -extends chains. */
+    public static final int DefaultExtendsDepth = 8;
+    /** The default number of shared mixins. */
+    public static final int DefaultMixinCount = 6;
+    /** The default random seed. */
+    public static final long DefaultSeed = 1;
+
+    /** The proportion of named objects which are groups; the remainder are items. */
+    static final double GroupRatio = 0.25;
+    /** The number of items in each group's item list. */
+    static final int GroupItemCount = 6;
+    /** The number of mixins applied to each group. */
+    static final int GroupMixinCount = 2;
+    /** The number of shared tag lists. */
+    static final int TagListCount = 4;
+
+    /** The number of named objects to generate. */
+    private int namedCount = DefaultNamedCount;
+    /** The length of the template -extends chains. */
+    private int extendsDepth = DefaultExtendsDepth;
+    /** The number of shared mixins. */
+    private int mixinCount = DefaultMixinCount;
+    /** The random seed used to choose references. */
+    private long seed = DefaultSeed;
+
+    public SyntheticConfiguration() {}
+
+    public void setNamedCount(int namedCount) {
+        this.namedCount = namedCount;
+    }
+
+    public int getNamedCount() {
+        return namedCount;
+    }
+
+    public void setExtendsDepth(int extendsDepth) {
+        this.extendsDepth = Math.max( 1, extendsDepth );
+    }
+
+    public int getExtendsDepth() {
+        return extendsDepth;
+    }
+
+    public void setMixinCount(int mixinCount) {
+        this.mixinCount = Math.max( 1, mixinCount );
+    }
+
+    public int getMixinCount() {
+        return mixinCount;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** Get the number of named groups in the generated configuration. */
+    public int getGroupCount() {
+        return (int)(namedCount * GroupRatio);
+    }
+
+    /** Get the number of named items in the generated configuration. */
+    public int getItemCount() {
+        return namedCount - getGroupCount();
+    }
+
+    /** Generate the configuration data. */
+    public Map<String,Object> generate() {
+        Random random = new Random( seed );
+        return m(
+            kv("types", m(
+                kv("Item",  SyntheticTypes.ItemClassName ),
+                kv("Group", SyntheticTypes.GroupClassName )
+            )),
+            kv("templates", makeTemplates() ),
+            kv("nameds",    makeNameds( random ) )
+        );
+    }
+
+    /** Make the shared templates, mixins and values referenced by the named objects. */
+    private Map<String,Object> makeTemplates() {
+        Map<String,Object> templates = m();
+        // Item and group templates, each level extending the level below it.
+        for( int level = 0; level < extendsDepth; level++ ) {
+            Map<String,Object> item = m(
+                kv("description",   String.format("?{$title} at level %d", level ) ),
+                kv("weight",        level + 0.5 )
+            );
+            Map<String,Object> group = m(
+                kv("name",          String.format("?{$name} (level %d)", level ) ),
+                kv("tags",          String.format("#templates.tags%d", level % TagListCount ) )
+            );
+            if( level == 0 ) {
+                item.put("-type", "Item");
+                item.put("visible", true );
+                item.put("modified", "2017-10-18T12:30:00Z");
+                group.put("-type", "Group");
+                group.put("capacity", "250");
+            }
+            else {
+                item.put("-extends", String.format("#templates.item%d", level - 1 ) );
+                group.put("-extends", String.format("#templates.group%d", level - 1 ) );
+            }
+            templates.put("item"+level, item );
+            templates.put("group"+level, group );
+        }
+        // Mixins applied to groups.
+        for( int i = 0; i < mixinCount; i++ ) {
+            templates.put("mixin"+i, m(
+                kv("capacity",      100 + i ),
+                kv("settings",      m(
+                    kv("mixin",     i ),
+                    kv("enabled",   i % 2 == 0 ),
+                    kv("mode",      "$mode")
+                ))
+            ));
+        }
+        // Shared values.
+        for( int i = 0; i < TagListCount; i++ ) {
+            templates.put("tags"+i, l("tag"+i, "common", "synthetic") );
+        }
+        return templates;
+    }
+
+    /** Make the named object configurations. */
+    private Map<String,Object> makeNameds(Random random) {
+        Map<String,Object> nameds = m();
+        int itemCount = getItemCount();
+        for( int i = 0; i < itemCount; i++ ) {
+            nameds.put("item"+i, makeItem( random, "Item "+i, i ) );
+        }
+        int groupCount = getGroupCount();
+        for( int i = 0; i < groupCount; i++ ) {
+            List<Object> items = new ArrayList<>();
+            for( int j = 0; j < GroupItemCount; j++ ) {
+                // Alternate between references to named items and inline items.
+                if( j % 2 == 0 ) {
+                    items.add( namedRef( "item", random.nextInt( itemCount ) ) );
+                }
+                else {
+                    items.add( makeInlineItem( j ) );
+                }
+            }
+            List<Object> mixins = new ArrayList<>();
+            for( int j = 0; j < GroupMixinCount; j++ ) {
+                mixins.add( String.format("#templates.mixin%d", random.nextInt( mixinCount ) ) );
+            }
+            Map<String,Object> group = m(
+                kv("-extends",      String.format("#templates.group%d", random.nextInt( extendsDepth ) ) ),
+                kv("-mixins",       mixins ),
+                kv("$name",         "Group "+i ),
+                kv("$mode",         i % 2 == 0 ? "fast" : "slow"),
+                kv("header",        namedRef( "item", random.nextInt( itemCount ) ) ),
+                kv("items",         items ),
+                kv("itemsByName",   m(
+                    kv("first",     namedRef( "item", random.nextInt( itemCount ) ) ),
+                    kv("inline",    makeTypedInlineItem( 0 ) )
+                ))
+            );
+            // Reference an earlier group, so that groups form dependency chains.
+            if( i > 0 ) {
+                group.put("delegate", namedRef( "group", random.nextInt( i ) ) );
+            }
+            nameds.put("group"+i, group );
+        }
+        return nameds;
+    }
+
+    /** Make an item configuration extending a random level of the item templates. */
+    private Map<String,Object> makeItem(Random random, String title, int position) {
+        return m(
+            kv("-extends",  String.format("#templates.item%d", random.nextInt( extendsDepth ) ) ),
+            kv("$title",    title ),
+            kv("title",     "$title"),
+            kv("position",  position )
+        );
+    }
+
+    /**
+     * Make an inline item configuration.
+     * The item's type is inferred from the generic type of the list property it belongs to.
+     */
+    private Map<String,Object> makeInlineItem(int position) {
+        return m(
+            kv("title",         String.format("?{$name} item %d", position ) ),
+            kv("description",   "?Inline item of {$name}, mode {$mode}"),
+            kv("position",      position ),
+            kv("weight",        position * 1.5 ),
+            kv("visible",       true )
+        );
+    }
+
+    /** Make an inline item configuration which specifies its type. */
+    private Map<String,Object> makeTypedInlineItem(int position) {
+        Map<String,Object> item = makeInlineItem( position );
+        item.put("-type", "Item");
+        return item;
+    }
+
+    private static String namedRef(String prefix, int idx) {
+        return String.format("@named:%s%d", prefix, idx );
+    }
+}
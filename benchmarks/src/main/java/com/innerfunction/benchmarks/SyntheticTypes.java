@@ -0,0 +1,193 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.Configuration;
+import com.innerfunction.scffld.IOCConfigurationAware;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic configurable classes, used to benchmark object configuration.
+ * The classes have a mix of standard type, object, list and map properties, similar to the
+ * component classes used in app configurations.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class SyntheticTypes {
+
+    /** The fully qualified class name of Item, for use in -class configuration values. */
+    public static final String ItemClassName = Item.class.getName();
+    /** The fully qualified class name of Group, for use in -class configuration values. */
+    public static final String GroupClassName = Group.class.getName();
+
+    /** A leaf object with standard type properties only. */
+    public static class Item {
+
+        private String title;
+        private String description;
+        private int position;
+        private double weight;
+        private Boolean visible;
+        private Date modified;
+
+        public Item() {}
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setPosition(int position) {
+            this.position = position;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setVisible(Boolean visible) {
+            this.visible = visible;
+        }
+
+        public Boolean getVisible() {
+            return visible;
+        }
+
+        public void setModified(Date modified) {
+            this.modified = modified;
+        }
+
+        public Date getModified() {
+            return modified;
+        }
+    }
+
+    /**
+     * A composite object with object, list and map properties.
+     * Implements IOCConfigurationAware so that configuration callbacks are included in
+     * measurements.
+     */
+    public static class Group implements IOCConfigurationAware {
+
+        private String name;
+        private Number capacity;
+        private Item header;
+        private List<Item> items;
+        private Map<String,Item> itemsByName;
+        private List<String> tags;
+        private Map<String,Object> settings;
+        private Object delegate;
+        private int configuredCount;
+
+        public Group() {}
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setCapacity(Number capacity) {
+            this.capacity = capacity;
+        }
+
+        public Number getCapacity() {
+            return capacity;
+        }
+
+        public void setHeader(Item header) {
+            this.header = header;
+        }
+
+        public Item getHeader() {
+            return header;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItemsByName(Map<String,Item> itemsByName) {
+            this.itemsByName = itemsByName;
+        }
+
+        public Map<String,Item> getItemsByName() {
+            return itemsByName;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setSettings(Map<String,Object> settings) {
+            this.settings = settings;
+        }
+
+        public Map<String,Object> getSettings() {
+            return settings;
+        }
+
+        public void setDelegate(Object delegate) {
+            this.delegate = delegate;
+        }
+
+        public Object getDelegate() {
+            return delegate;
+        }
+
+        public int getConfiguredCount() {
+            return configuredCount;
+        }
+
+        @Override
+        public void beforeIOCConfigure(Configuration configuration) {}
+
+        @Override
+        public void afterIOCConfigure(Configuration configuration) {
+            configuredCount++;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.scffld.ui.table.TableSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for table search over a large table.
+ * Compares searches using the trigram search index with a linear scan of the rows, which is how
+ * table data is filtered before its index is ready.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class TableSearchIndexBenchmark {
+
+    static final String[] Words = {
+        "harbour", "station", "market", "gallery", "library", "theatre", "castle", "garden",
+        "museum", "bridge", "chapel", "square", "tower", "abbey", "quay", "mill", "north",
+        "south", "east", "west", "old", "new", "upper", "lower", "royal", "central"
+    };
+
+    /** The search fields of each row. */
+    static final List<String> FieldNames = Arrays.asList("title", "description");
+
+    /**
+     * Pairs of search terms. Consecutive searches alternate between the terms of a pair, so that
+     * each search is a full search rather than a narrowing of the previous search.
+     */
+    static final String[][] Terms = {
+        { "museum", "gallery" },
+        { "royal ga", "old mill" }
+    };
+
+    @Param({ "100000" })
+    public int rowCount;
+
+    private List<Map<String,Object>> rows;
+    private TableSearchIndex index;
+    private int searchCount;
+
+    @Setup
+    public void setup() {
+        Random random = new Random( 1 );
+        rows = new ArrayList<>( rowCount );
+        for( int i = 0; i < rowCount; i++ ) {
+            Map<String,Object> row = new HashMap<>();
+            row.put("title", words( random, 3 ) );
+            row.put("description", words( random, 12 ) );
+            rows.add( row );
+        }
+        index = new TableSearchIndex( rows, false, FieldNames );
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public TableSearchIndex buildIndex() {
+        return new TableSearchIndex( rows, false, FieldNames );
+    }
+
+    @Benchmark
+    public int[] indexedSearchWord() {
+        return index.search( nextTerm( Terms[0] ), null );
+    }
+
+    @Benchmark
+    public int[] indexedSearchPhrase() {
+        return index.search( nextTerm( Terms[1] ), null );
+    }
+
+    @Benchmark
+    public int[] indexedSearchNarrowing() {
+        // Simulate typing, where each term extends the previous term.
+        index.search("mus", null );
+        index.search("muse", null );
+        return index.search("museum", null );
+    }
+
+    @Benchmark
+    public int scanSearchWord() {
+        return scan( nextTerm( Terms[0] ) );
+    }
+
+    /** Count the rows matching a term by scanning every row. */
+    private int scan(String term) {
+        int count = 0;
+        for( Map<String,Object> row : rows ) {
+            for( String fieldName : FieldNames ) {
+                Object value = row.get( fieldName );
+                if( value instanceof String && ((String)value).toLowerCase().contains( term ) ) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private String nextTerm(String[] terms) {
+        return terms[searchCount++ % terms.length];
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for( int i = 0; i < count; i++ ) {
+            if( i > 0 ) {
+                sb.append(' ');
+            }
+            sb.append( Words[random.nextInt( Words.length )] );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package com.innerfunction.benchmarks;
+
+import com.innerfunction.util.TypeConversions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the standard type conversions used when reading configuration values.
+ * Conversions needing Android resources (colors, images) aren't included.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeConversionsBenchmark {
+
+    static final String JSONString = "{\"title\":\"Home\",\"items\":[1,2,3],\"visible\":true}";
+
+    private TypeConversions conversions;
+
+    @Setup
+    public void setup() {
+        conversions = TypeConversions.instanceForContext( new BenchmarkContext() );
+    }
+
+    @Benchmark
+    public String numberAsString() {
+        return conversions.asString( 42.5 );
+    }
+
+    @Benchmark
+    public Number stringAsNumber() {
+        return conversions.asNumber("42.5");
+    }
+
+    @Benchmark
+    public Boolean stringAsBoolean() {
+        return conversions.asBoolean("true");
+    }
+
+    @Benchmark
+    public Date stringAsDate() {
+        return conversions.asDate("2017-10-18T12:30:00Z");
+    }
+
+    @Benchmark
+    public Object stringAsJSONData() {
+        return conversions.asJSONData( JSONString );
+    }
+
+    @Benchmark
+    public Object stringAsNumberRepresentation() {
+        return conversions.asRepresentation("42.5", "number");
+    }
+}
@@ -0,0 +1,51 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package android.content;
+
+import android.content.pm.ApplicationInfo;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+/**
+ * A JVM shim for the Android Context class.
+ * Declares only the methods used by the SCFFLD core on the benchmarked code paths; calling any
+ * other Context method results in a NoSuchMethodError.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public abstract class Context {
+
+    public abstract Context getApplicationContext();
+
+    public abstract String getPackageName();
+
+    public abstract ApplicationInfo getApplicationInfo();
+
+    public abstract Resources getResources();
+
+    public abstract AssetManager getAssets();
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public abstract File getFilesDir();
+
+    public abstract File getCacheDir();
+
+    public abstract File getExternalFilesDir(String type);
+
+    public abstract File getExternalCacheDir();
+
+}
@@ -0,0 +1,121 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package android.net;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A JVM shim for the Android Uri class.
+ * Only provides the static encode() and decode() methods, which follow the Android
+ * implementation: all characters other than letters, digits and the unreserved characters
+ * _-!.~'()* are encoded as UTF-8 escape sequences; and decoding doesn't treat '+' as a space.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public abstract class Uri {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    static final String HexDigits = "0123456789ABCDEF";
+
+    static final String Unreserved = "_-!.~'()*";
+
+    private Uri() {}
+
+    public static String encode(String s) {
+        return encode( s, null );
+    }
+
+    public static String encode(String s, String allow) {
+        if( s == null ) {
+            return null;
+        }
+        StringBuilder result = null;
+        for( int i = 0; i < s.length(); i++ ) {
+            char ch = s.charAt( i );
+            if( isAllowed( ch, allow ) ) {
+                if( result != null ) {
+                    result.append( ch );
+                }
+                continue;
+            }
+            if( result == null ) {
+                result = new StringBuilder( s.length() + 16 );
+                result.append( s, 0, i );
+            }
+            // Find the end of the run of characters needing encoding.
+            int end = i + 1;
+            while( end < s.length() && !isAllowed( s.charAt( end ), allow ) ) {
+                end++;
+            }
+            for( byte b : s.substring( i, end ).getBytes( UTF8 ) ) {
+                result.append('%')
+                      .append( HexDigits.charAt( (b >> 4) & 0xF ) )
+                      .append( HexDigits.charAt( b & 0xF ) );
+            }
+            i = end - 1;
+        }
+        return result == null ? s : result.toString();
+    }
+
+    public static String decode(String s) {
+        if( s == null ) {
+            return null;
+        }
+        if( s.indexOf('%') < 0 ) {
+            return s;
+        }
+        StringBuilder result = new StringBuilder( s.length() );
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int i = 0;
+        while( i < s.length() ) {
+            char ch = s.charAt( i );
+            if( ch == '%' ) {
+                // Collect a run of escaped bytes, and decode them together as UTF-8.
+                bytes.reset();
+                while( i + 2 < s.length() && s.charAt( i ) == '%' ) {
+                    int hi = Character.digit( s.charAt( i + 1 ), 16 );
+                    int lo = Character.digit( s.charAt( i + 2 ), 16 );
+                    if( hi < 0 || lo < 0 ) {
+                        break;
+                    }
+                    bytes.write( (hi << 4) | lo );
+                    i += 3;
+                }
+                if( bytes.size() > 0 ) {
+                    result.append( new String( bytes.toByteArray(), UTF8 ) );
+                }
+                else {
+                    // Invalid escape sequence; Android substitutes the replacement character.
+                    result.append('\uFFFD');
+                    i++;
+                }
+            }
+            else {
+                result.append( ch );
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isAllowed(char ch, String allow) {
+        return (ch >= 'A' && ch <= 'Z')
+            || (ch >= 'a' && ch <= 'z')
+            || (ch >= '0' && ch <= '9')
+            || Unreserved.indexOf( ch ) != -1
+            || (allow != null && allow.indexOf( ch ) != -1);
+    }
+}
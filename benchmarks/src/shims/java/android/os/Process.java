@@ -0,0 +1,53 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package android.os;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A JVM shim for the Android Process class.
+ * Thread priorities are ignored.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public class Process {
+
+    public static final int THREAD_PRIORITY_DEFAULT = 0;
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+    /** The JVM's process ID, read from the runtime name (which has the format pid@hostname). */
+    static final int Pid = readPid();
+
+    public static int myPid() {
+        return Pid;
+    }
+
+    public static int myTid() {
+        return (int)Thread.currentThread().getId();
+    }
+
+    public static void setThreadPriority(int priority) {}
+
+    public static void setThreadPriority(int tid, int priority) {}
+
+    private static int readPid() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Integer.parseInt( name.substring( 0, name.indexOf('@') ) );
+        }
+        catch(RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright 2017 InnerFunction Ltd.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+package android.util;
+
+/**
+ * A JVM shim for the Android Log class.
+ * Messages at or above the minimum level are written to stderr; all other messages are
+ * discarded. The minimum level defaults to WARN, and can be changed using the scffld.log.level
+ * system property, e.g. -Dscffld.log.level=3 to log debug messages.
+ *
+ * Created by juliangoacher on 18/10/2017.
+ */
+public final class Log {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG   = 3;
+    public static final int INFO    = 4;
+    public static final int WARN    = 5;
+    public static final int ERROR   = 6;
+    public static final int ASSERT  = 7;
+
+    static final String[] LevelNames = { "", "", "V", "D", "I", "W", "E", "A" };
+
+    static final int MinLevel = Integer.getInteger("scffld.log.level", WARN );
+
+    private Log() {}
+
+    public static int v(String tag, String msg) {
+        return println( VERBOSE, tag, msg, null );
+    }
+
+    public static int v(String tag, String msg, Throwable tr) {
+        return println( VERBOSE, tag, msg, tr );
+    }
+
+    public static int d(String tag, String msg) {
+        return println( DEBUG, tag, msg, null );
+    }
+
+    public static int d(String tag, String msg, Throwable tr) {
+        return println( DEBUG, tag, msg, tr );
+    }
+
+    public static int i(String tag, String msg) {
+        return println( INFO, tag, msg, null );
+    }
+
+    public static int i(String tag, String msg, Throwable tr) {
+        return println( INFO, tag, msg, tr );
+    }
+
+    public static int w(String tag, String msg) {
+        return println( WARN, tag, msg, null );
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return println( WARN, tag, msg, tr );
+    }
+
+    public static int w(String tag, Throwable tr) {
+        return println( WARN, tag, "", tr );
+    }
+
+    public static int e(String tag, String msg) {
+        return println( ERROR, tag, msg, null );
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return println( ERROR, tag, msg, tr );
+    }
+
+    public static boolean isLoggable(String tag, int level) {
+        return level >= MinLevel;
+    }
+
+    public static int println(int priority, String tag, String msg) {
+        return println( priority, tag, msg, null );
+    }
+
+    private static int println(int priority, String tag, String msg, Throwable tr) {
+        if( priority < MinLevel ) {
+            return 0;
+        }
+        String line = String.format("%s/%s: %s", LevelNames[priority], tag, msg );
+        synchronized( System.err ) {
+            System.err.println( line );
+            if( tr != null ) {
+                tr.printStackTrace();
+            }
+        }
+        return line.length();
+    }
+}